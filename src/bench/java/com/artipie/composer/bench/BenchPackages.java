@@ -0,0 +1,87 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2020 artipie.com
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included
+ * in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NON-INFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package com.artipie.composer.bench;
+
+import java.nio.charset.StandardCharsets;
+import javax.json.Json;
+import javax.json.JsonObject;
+
+/**
+ * Package documents used in benchmarks.
+ *
+ * @since 0.4
+ */
+final class BenchPackages {
+
+    /**
+     * Ctor.
+     */
+    private BenchPackages() {
+    }
+
+    /**
+     * Package document of realistic size.
+     *
+     * @param name Package name.
+     * @param version Patch version number.
+     * @return Package JSON.
+     */
+    static JsonObject json(final String name, final long version) {
+        return Json.createObjectBuilder()
+            .add("name", name)
+            .add("version", String.format("1.0.%d", version))
+            .add("description", "Package used to measure repository performance")
+            .add("license", Json.createArrayBuilder().add("MIT"))
+            .add(
+                "require",
+                Json.createObjectBuilder()
+                    .add("php", ">=7.2")
+                    .add("psr/log", "^1.0")
+            )
+            .add(
+                "autoload",
+                Json.createObjectBuilder().add(
+                    "psr-4", Json.createObjectBuilder().add("Vendor\\\\Package\\\\", "src/")
+                )
+            )
+            .add(
+                "dist",
+                Json.createObjectBuilder()
+                    .add("url", String.format("https://example.com/%s/%d.zip", name, version))
+                    .add("type", "zip")
+            )
+            .build();
+    }
+
+    /**
+     * Package document bytes.
+     *
+     * @param name Package name.
+     * @param version Patch version number.
+     * @return Package JSON bytes.
+     */
+    static byte[] bytes(final String name, final long version) {
+        return BenchPackages.json(name, version).toString().getBytes(StandardCharsets.UTF_8);
+    }
+}
@@ -0,0 +1,104 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2020 artipie.com
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included
+ * in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NON-INFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package com.artipie.composer.bench;
+
+import com.artipie.composer.JsonPackage;
+import com.artipie.composer.JsonPackages;
+import com.artipie.composer.Package;
+import com.artipie.composer.Packages;
+import com.google.common.io.ByteSource;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.TimeUnit;
+import javax.json.Json;
+import javax.json.JsonObjectBuilder;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Benchmark for {@link JsonPackages#add(Package)} depending on registry size.
+ *
+ * @since 0.4
+ * @checkstyle DesignForExtensionCheck (500 lines)
+ * @checkstyle VisibilityModifierCheck (500 lines)
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@State(Scope.Benchmark)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(1)
+public class JsonPackagesBench {
+
+    /**
+     * Number of versions in registry, ten versions per package.
+     */
+    @Param({"100", "1000", "10000", "100000"})
+    public int versions;
+
+    /**
+     * Registry to add package to.
+     */
+    private Packages packages;
+
+    /**
+     * Package to add.
+     */
+    private Package pack;
+
+    @Setup
+    public void setup() {
+        final JsonObjectBuilder registry = Json.createObjectBuilder();
+        for (int pkg = 0; pkg < this.versions / 10; pkg += 1) {
+            final JsonObjectBuilder versions = Json.createObjectBuilder();
+            for (int ver = 0; ver < 10; ver += 1) {
+                versions.add(
+                    String.format("1.0.%d", ver),
+                    BenchPackages.json(String.format("vendor/package-%d", pkg), ver)
+                );
+            }
+            registry.add(String.format("vendor/package-%d", pkg), versions);
+        }
+        this.packages = new JsonPackages(
+            ByteSource.wrap(
+                Json.createObjectBuilder().add("packages", registry).build().toString()
+                    .getBytes(StandardCharsets.UTF_8)
+            )
+        );
+        this.pack = new JsonPackage(BenchPackages.json("vendor/package-0", 100));
+    }
+
+    @Benchmark
+    public Packages add() {
+        return this.packages.add(this.pack);
+    }
+}
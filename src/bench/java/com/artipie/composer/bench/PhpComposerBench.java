@@ -0,0 +1,125 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2020 artipie.com
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included
+ * in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NON-INFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package com.artipie.composer.bench;
+
+import com.artipie.asto.Content;
+import com.artipie.asto.memory.InMemoryStorage;
+import com.artipie.composer.AstoRepository;
+import com.artipie.composer.Repository;
+import com.artipie.composer.http.PhpComposer;
+import com.artipie.http.Connection;
+import com.artipie.http.Slice;
+import com.artipie.http.rq.RequestLine;
+import com.artipie.http.rq.RqMethod;
+import io.reactivex.Flowable;
+import java.nio.ByteBuffer;
+import java.util.Collections;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * End-to-end benchmark of {@link PhpComposer} GET of package metadata and PUT of package.
+ * Response body is read completely by connection.
+ *
+ * @since 0.4
+ * @checkstyle DesignForExtensionCheck (500 lines)
+ * @checkstyle VisibilityModifierCheck (500 lines)
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@State(Scope.Benchmark)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(1)
+public class PhpComposerBench {
+
+    /**
+     * Connection reading response body completely.
+     */
+    private static final Connection DRAIN = (status, headers, body) -> {
+        final CompletableFuture<Void> done = new CompletableFuture<>();
+        Flowable.fromPublisher(body).ignoreElements().subscribe(
+            () -> done.complete(null), done::completeExceptionally
+        );
+        return done;
+    };
+
+    /**
+     * Number of versions of package.
+     */
+    @Param({"10", "1000"})
+    public int versions;
+
+    /**
+     * Repository slice.
+     */
+    private Slice slice;
+
+    /**
+     * Number of added versions.
+     */
+    private long count;
+
+    @Setup
+    public void setup() {
+        final Repository repo = new AstoRepository(new InMemoryStorage());
+        for (int ver = 0; ver < this.versions; ver += 1) {
+            repo.add(new Content.From(BenchPackages.bytes("vendor/package", ver))).join();
+        }
+        this.slice = new PhpComposer(repo);
+        this.count = this.versions;
+    }
+
+    @Benchmark
+    public void get() {
+        this.slice.response(
+            new RequestLine(RqMethod.GET, "/p/vendor/package.json").toString(),
+            Collections.emptyList(),
+            Flowable.empty()
+        ).send(PhpComposerBench.DRAIN).toCompletableFuture().join();
+    }
+
+    @Benchmark
+    public void put() {
+        this.count += 1;
+        this.slice.response(
+            new RequestLine(RqMethod.PUT, "/").toString(),
+            Collections.emptyList(),
+            Flowable.just(
+                ByteBuffer.wrap(BenchPackages.bytes("vendor/other", this.count))
+            )
+        ).send(PhpComposerBench.DRAIN).toCompletableFuture().join();
+    }
+}
@@ -24,20 +24,55 @@
 
 package com.artipie.composer;
 
+import com.artipie.asto.Concatenation;
 import com.artipie.asto.Content;
 import com.artipie.asto.Key;
+import com.artipie.asto.Remaining;
 import com.artipie.asto.Storage;
+import com.artipie.asto.ext.Digests;
 import com.artipie.asto.ext.PublisherAs;
+import com.google.common.base.Suppliers;
+import com.google.common.io.BaseEncoding;
 import com.google.common.io.ByteSource;
+import io.reactivex.Flowable;
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.time.Duration;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 import java.util.UUID;
 import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.CompletionStage;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.BiFunction;
+import java.util.function.Function;
+import java.util.function.Supplier;
+import java.util.stream.Collectors;
+import javax.json.Json;
+import javax.json.JsonObject;
+import javax.json.JsonObjectBuilder;
+import javax.json.JsonReader;
+import org.reactivestreams.Publisher;
 
 /**
  * PHP Composer repository that stores packages in a {@link Storage}.
+ * Besides Composer v1 metadata ('packages.json' and per-package files) repository
+ * maintains per-package Composer v2 metadata ('p2/' files), root 'packages.json'
+ * refers Composer v2 clients to it with 'metadata-url'.
+ * Durations of add stages and sizes of written metadata are reported to {@link Metrics},
+ * calls of storage operations are counted with {@link MeteredStorage}.
+ * When {@link RepoConfig#indexed()} is enabled, metadata is rendered from in-memory
+ * {@link PackageIndex} loaded from storage on first update, so updates do not read
+ * metadata from storage. Added packages are put to index once per add, before any write.
+ * When root lists all packages or vendor {@link Shards}, index changes are persisted
+ * as small deltas after root updates, so it is loaded without scanning metadata files.
  *
  * @since 0.3
+ * @checkstyle ClassFanOutComplexityCheck (500 lines)
  */
 public final class AstoRepository implements Repository {
 
@@ -46,18 +81,168 @@ public final class AstoRepository implements Repository {
      */
     public static final Key ALL_PACKAGES = new AllPackages();
 
+    /**
+     * Attributes of root 'packages.json'.
+     */
+    private static final JsonObject ROOT = Json.createObjectBuilder()
+        .add("metadata-url", "/p2/%package%.json")
+        .add("search", "/search.json?q=%query%&type=%type%")
+        .build();
+
+    /**
+     * Timer of reading added package content.
+     */
+    private static final String ADD_READ = "composer.add.read";
+
+    /**
+     * Timer of parsing added package.
+     */
+    private static final String ADD_PARSE = "composer.add.parse";
+
+    /**
+     * Counter of added packages.
+     */
+    private static final String ADDED = "composer.add.packages";
+
+    /**
+     * Timer of reading package metadata before update.
+     */
+    private static final String META_READ = "composer.metadata.read";
+
+    /**
+     * Timer of merging packages into package metadata.
+     */
+    private static final String META_MERGE = "composer.metadata.merge";
+
+    /**
+     * Timer of saving package metadata.
+     */
+    private static final String META_SAVE = "composer.metadata.save";
+
+    /**
+     * Gauge of last written package metadata size in bytes.
+     */
+    private static final String META_BYTES = "composer.metadata.bytes";
+
+    /**
+     * Timer of reading root 'packages.json' before update.
+     */
+    private static final String ROOT_READ = "composer.root.read";
+
+    /**
+     * Timer of merging packages into root 'packages.json'.
+     */
+    private static final String ROOT_MERGE = "composer.root.merge";
+
+    /**
+     * Timer of saving root 'packages.json'.
+     */
+    private static final String ROOT_SAVE = "composer.root.save";
+
+    /**
+     * Gauge of root 'packages.json' size in bytes.
+     */
+    private static final String ROOT_BYTES = "composer.root.bytes";
+
+    /**
+     * Empty packages registry.
+     */
+    private static final ByteSource EMPTY = ByteSource.wrap(
+        "{\"packages\":{}}".getBytes(StandardCharsets.UTF_8)
+    );
+
     /**
      * The storage.
      */
     private final Storage storage;
 
+    /**
+     * Repository configuration.
+     */
+    private final RepoConfig config;
+
+    /**
+     * Group commit of index updates.
+     */
+    private final GroupCommit commits;
+
+    /**
+     * Metrics.
+     */
+    private final Metrics metrics;
+
+    /**
+     * In-memory package index, loaded once on first use.
+     */
+    private final Supplier<CompletionStage<PackageIndex>> index;
+
+    /**
+     * Search index, loaded once on first search.
+     */
+    private final Supplier<CompletionStage<SearchIndex>> searches;
+
+    /**
+     * Whether search index is requested, added packages are indexed only after that.
+     */
+    private final AtomicBoolean searched;
+
     /**
      * Ctor.
      *
      * @param storage Storage to store all repository data.
      */
     public AstoRepository(final Storage storage) {
-        this.storage = storage;
+        this(storage, new RepoConfig.Simple());
+    }
+
+    /**
+     * Ctor.
+     *
+     * @param storage Storage to store all repository data.
+     * @param window Time window to collect packages added to same index into one write.
+     * @param batch Maximum number of packages written to index at once.
+     */
+    public AstoRepository(final Storage storage, final Duration window, final int batch) {
+        this(storage, new RepoConfig.Simple(window, batch));
+    }
+
+    /**
+     * Ctor.
+     *
+     * @param storage Storage to store all repository data.
+     * @param config Repository configuration.
+     */
+    public AstoRepository(final Storage storage, final RepoConfig config) {
+        this(storage, config, Metrics.NOP);
+    }
+
+    /**
+     * Ctor.
+     *
+     * @param storage Storage to store all repository data.
+     * @param config Repository configuration.
+     * @param metrics Metrics to report to.
+     */
+    public AstoRepository(
+        final Storage storage, final RepoConfig config, final Metrics metrics
+    ) {
+        this.storage = new MeteredStorage(storage, metrics);
+        this.config = config;
+        this.metrics = metrics;
+        this.index = Suppliers.memoize(() -> PackageIndex.load(this.storage));
+        this.searches = Suppliers.memoize(
+            () -> {
+                final CompletionStage<PackageIndex> packages;
+                if (config.indexed()) {
+                    packages = this.index.get();
+                } else {
+                    packages = PackageIndex.load(this.storage);
+                }
+                return packages.thenApply(SearchIndex::from);
+            }
+        );
+        this.searched = new AtomicBoolean();
+        this.commits = new GroupCommit(this::write, config.window(), config.batch());
     }
 
     @Override
@@ -71,33 +256,615 @@ public final class AstoRepository implements Repository {
     }
 
     @Override
-    public CompletableFuture<Void> add(final Content content) {
-        final Key key = new Key.From(UUID.randomUUID().toString());
-        return this.storage.save(key, content).thenCompose(
-            saved -> this.storage.value(key)
-                .thenApply(PublisherAs::new)
-                .thenCompose(PublisherAs::bytes)
-                .thenCompose(
+    public CompletionStage<Optional<Content>> content(final Key key) {
+        return new IndexStorage(this.storage).value(key);
+    }
+
+    @Override
+    public CompletionStage<Optional<Etag>> etag(final Key key) {
+        return new IndexStorage(this.storage).etag(key);
+    }
+
+    @Override
+    public CompletionStage<Optional<Content>> gzip(final Key key) {
+        return new IndexStorage(this.storage).gzip(key);
+    }
+
+    @Override
+    public CompletionStage<Optional<Content>> archive(final Key key) {
+        return new IndexStorage(this.storage).value(key);
+    }
+
+    @Override
+    public CompletionStage<JsonObject> search(
+        final String query, final String type, final int offset, final int limit
+    ) {
+        this.searched.set(true);
+        return this.searches.get().thenApply(
+            index -> index.search(query, type, offset, limit)
+        );
+    }
+
+    @Override
+    public CompletableFuture<Name> add(final Content content) {
+        final long start = System.nanoTime();
+        return new PublisherAs(content).bytes().thenCompose(
+            bytes -> {
+                final long read = System.nanoTime();
+                this.metrics.timer(AstoRepository.ADD_READ, read - start);
+                final Package pack = AstoRepository.checked(
+                    new JsonPackage(ByteSource.wrap(bytes))
+                );
+                final Key key = pack.name().key();
+                this.metrics.timer(AstoRepository.ADD_PARSE, System.nanoTime() - read);
+                this.metrics.counter(AstoRepository.ADDED, 1);
+                final List<Package> packs = Collections.singletonList(pack);
+                return this.written(
+                    packs,
+                    () -> this.listed(
+                        this.commits.add(key, pack), packs,
+                        (listing, added) -> this.commits.add(listing, added.get(0))
+                    )
+                ).thenApply(nothing -> pack.name());
+            }
+        ).toCompletableFuture();
+    }
+
+    @Override
+    public CompletableFuture<Void> addAll(final Publisher<Content> packages) {
+        final CompletableFuture<List<Package>> packs = new CompletableFuture<>();
+        Flowable.fromPublisher(packages)
+            .concatMapSingle(content -> new Concatenation(content).single())
+            .<Package>map(
+                buf -> AstoRepository.checked(
+                    new JsonPackage(ByteSource.wrap(new Remaining(buf).bytes()))
+                )
+            )
+            .toList()
+            .subscribe(packs::complete, packs::completeExceptionally);
+        return packs.thenCompose(
+            list -> {
+                this.metrics.counter(AstoRepository.ADDED, list.size());
+                return this.written(list, () -> this.committed(list));
+            }
+        );
+    }
+
+    @Override
+    public CompletableFuture<Name> addArchive(final Content archive, final String base) {
+        final ZipComposerJson scanner = new ZipComposerJson();
+        final MessageDigest sha = Digests.SHA1.get();
+        final Key upload = new Key.From(
+            ".upload", String.format("%s.zip", UUID.randomUUID().toString())
+        );
+        final CompletableFuture<Name> added = this.storage.save(
+            upload,
+            new Content.From(
+                archive.size(),
+                Flowable.fromPublisher(archive).doOnNext(
+                    buf -> {
+                        scanner.accept(buf);
+                        sha.update(buf.duplicate());
+                    }
+                )
+            )
+        ).thenCompose(
+            nothing -> {
+                final Optional<JsonObject> json = scanner.content().map(
                     bytes -> {
-                        final Package pack = new JsonPackage(ByteSource.wrap(bytes));
-                        final Name name = pack.name();
-                        return CompletableFuture.allOf(
-                            this.packages().thenCompose(
-                                packages -> packages.orElse(new JsonPackages()).add(pack)
-                                    .save(this.storage, AstoRepository.ALL_PACKAGES)
-                            ).toCompletableFuture(),
-                            this.packages(name).thenCompose(
-                                packages -> packages.orElse(new JsonPackages()).add(pack)
-                                    .save(this.storage, name.key())
-                            ).toCompletableFuture()
-                        ).thenCompose(
-                            ignored -> this.storage.delete(key)
+                        try (JsonReader reader = Json.createReader(
+                            new ByteArrayInputStream(bytes)
+                        )) {
+                            return reader.readObject();
+                        }
+                    }
+                ).filter(obj -> obj.containsKey("name") && obj.containsKey("version"));
+                final CompletableFuture<Name> res;
+                if (json.isPresent()) {
+                    final Package pack = new JsonPackage(json.get());
+                    final Key dist = new Key.From(
+                        String.format(
+                            "dist/%s/%s.zip",
+                            pack.name().string(),
+                            pack.version().replaceAll("[^A-Za-z0-9._-]", "-")
+                        )
+                    );
+                    final JsonObject described = Json.createObjectBuilder(json.get())
+                        .add(
+                            "dist",
+                            Json.createObjectBuilder()
+                                .add("url", String.format("%s/%s", base, dist.string()))
+                                .add("type", "zip")
+                                .add(
+                                    "shasum",
+                                    BaseEncoding.base16().lowerCase().encode(sha.digest())
+                                )
+                        )
+                        .build();
+                    res = this.cleaned(
+                        this.storage.move(upload, dist).thenCompose(
+                            moved -> this.add(
+                                new Content.From(
+                                    described.toString().getBytes(StandardCharsets.UTF_8)
+                                )
+                            )
+                        ),
+                        dist
+                    );
+                } else {
+                    res = new CompletableFuture<>();
+                    res.completeExceptionally(
+                        new IllegalArgumentException(
+                            "Archive has no 'composer.json' with name and version"
+                        )
+                    );
+                }
+                return res;
+            }
+        );
+        return this.cleaned(added, upload);
+    }
+
+    /**
+     * Deletes file left by failed add of archive, add fails with its original error.
+     *
+     * @param added Completion of add.
+     * @param key Location of file to delete if add fails.
+     * @return Completion of add.
+     */
+    private CompletableFuture<Name> cleaned(final CompletableFuture<Name> added, final Key key) {
+        return added.handle(
+            (name, err) -> {
+                final CompletableFuture<Name> res;
+                if (err == null) {
+                    res = CompletableFuture.completedFuture(name);
+                } else {
+                    res = new IndexStorage(this.storage).delete(key)
+                        .handle((nothing, ignored) -> null)
+                        .thenCompose(
+                            nothing -> {
+                                final CompletableFuture<Name> failed =
+                                    new CompletableFuture<>();
+                                failed.completeExceptionally(err);
+                                return failed;
+                            }
                         );
+                }
+                return res;
+            }
+        ).thenCompose(Function.identity());
+    }
+
+    /**
+     * Lists added packages in root 'packages.json' and in vendor shards.
+     * Root refers to shards and provider files by hash, so it is written after them.
+     *
+     * @param metadata Completion of package metadata write.
+     * @param packs Added packages.
+     * @param commit Commit of packages to index by its key.
+     * @return Completion of add.
+     */
+    private CompletableFuture<Void> listed(
+        final CompletableFuture<Void> metadata, final List<Package> packs,
+        final BiFunction<Key, List<Package>, CompletableFuture<Void>> commit
+    ) {
+        final CompletableFuture<Void> shards;
+        if (this.config.sharded()) {
+            shards = CompletableFuture.allOf(
+                packs.stream().collect(
+                    Collectors.groupingBy(
+                        pack -> Shards.key(pack.name()).string(),
+                        LinkedHashMap::new, Collectors.toList()
+                    )
+                ).entrySet().stream().map(
+                    entry -> commit.apply(new Key.From(entry.getKey()), entry.getValue())
+                ).toArray(CompletableFuture[]::new)
+            );
+        } else {
+            shards = CompletableFuture.completedFuture(null);
+        }
+        final CompletableFuture<Void> before;
+        if (this.config.providers()) {
+            before = CompletableFuture.allOf(metadata, shards);
+        } else {
+            before = shards;
+        }
+        return CompletableFuture.allOf(
+            metadata,
+            before.thenCompose(nothing -> commit.apply(AstoRepository.ALL_PACKAGES, packs))
+        );
+    }
+
+    /**
+     * Adds batch of packages to package metadata, vendor shards and root.
+     *
+     * @param list Packages to add.
+     * @return Completion of add.
+     */
+    private CompletableFuture<Void> committed(final List<Package> list) {
+        final Map<String, List<Package>> names = list.stream().collect(
+            Collectors.groupingBy(
+                pack -> pack.name().string(), LinkedHashMap::new, Collectors.toList()
+            )
+        );
+        final CompletableFuture<Void> metadata = CompletableFuture.allOf(
+            names.entrySet().stream().map(
+                entry -> this.commits.addAll(new Name(entry.getKey()).key(), entry.getValue())
+            ).toArray(CompletableFuture[]::new)
+        );
+        final CompletableFuture<Void> res;
+        if (list.isEmpty()) {
+            res = CompletableFuture.completedFuture(null);
+        } else {
+            res = this.listed(metadata, list, this.commits::addAll);
+        }
+        return res;
+    }
+
+    /**
+     * Adds packages to package index, writes them and adds them to search index.
+     * Package index changes are rolled back if write fails, so versions which were not
+     * written do not appear in later writes.
+     *
+     * @param packs Added packages, already checked.
+     * @param write Writes packages to storage.
+     * @return Completion of add.
+     */
+    private CompletionStage<Void> written(
+        final List<Package> packs, final Supplier<CompletableFuture<Void>> write
+    ) {
+        return this.indexed(packs).thenCompose(
+            undo -> write.get().whenComplete(
+                (nothing, err) -> {
+                    if (err != null) {
+                        undo.run();
                     }
+                }
+            )
+        ).thenCompose(nothing -> this.searchable(packs));
+    }
+
+    /**
+     * Adds packages to package index if it is enabled, once per add before any write,
+     * so metadata, shards and root are rendered from index which already has them.
+     *
+     * @param packs Added packages.
+     * @return Rollback of index changes.
+     */
+    private CompletionStage<Runnable> indexed(final List<Package> packs) {
+        final CompletionStage<Runnable> res;
+        if (this.config.indexed()) {
+            res = this.index.get().thenApply(index -> index.addAll(packs));
+        } else {
+            res = CompletableFuture.completedFuture(() -> { });
+        }
+        return res;
+    }
+
+    /**
+     * Checks that package has valid name and version, so it fails before
+     * anything is indexed or written.
+     *
+     * @param pack Package.
+     * @return Checked package.
+     */
+    private static Package checked(final Package pack) {
+        pack.name().key();
+        pack.versionKey();
+        return pack;
+    }
+
+    /**
+     * Adds packages to search index if it is used.
+     * Search index loaded later reads added packages from storage.
+     *
+     * @param packs Added packages.
+     * @return Completion of indexing.
+     */
+    private CompletionStage<Void> searchable(final List<Package> packs) {
+        final CompletionStage<Void> res;
+        if (this.searched.get()) {
+            res = this.searches.get().thenAccept(index -> index.addAll(packs));
+        } else {
+            res = CompletableFuture.completedFuture(null);
+        }
+        return res;
+    }
+
+    /**
+     * Writes batch of packages to packages registry stored by the key.
+     *
+     * @param key Packages registry location in storage.
+     * @param packs Packages to add.
+     * @return Completion of write.
+     */
+    private CompletionStage<Void> write(final Key key, final List<Package> packs) {
+        final CompletionStage<Void> res;
+        if (key.string().equals(AstoRepository.ALL_PACKAGES.string())) {
+            res = this.root(packs);
+        } else if (Shards.isShard(key)) {
+            res = this.shard(key, packs);
+        } else {
+            res = this.metadata(packs.get(0).name(), packs);
+        }
+        return res;
+    }
+
+    /**
+     * Writes batch of packages to root 'packages.json'.
+     *
+     * @param packs Packages to add.
+     * @return Completion of write.
+     */
+    private CompletionStage<Void> root(final List<Package> packs) {
+        final long start = System.nanoTime();
+        final CompletionStage<Optional<ByteSource>> current;
+        if (this.config.indexed() && !this.config.providers() && !this.config.sharded()) {
+            current = CompletableFuture.completedFuture(Optional.empty());
+        } else {
+            current = this.source(AstoRepository.ALL_PACKAGES);
+        }
+        return current.thenCompose(
+            source -> {
+                this.metrics.timer(AstoRepository.ROOT_READ, System.nanoTime() - start);
+                return this.attributes(source, packs).thenCompose(
+                    attributes -> this.merge(source, attributes, packs)
+                );
+            }
+        );
+    }
+
+    /**
+     * Merges batch of packages into root 'packages.json' and saves it.
+     * Provider files and shards replaced with saved root are deleted after it is saved.
+     *
+     * @param source Current root content, might be empty.
+     * @param attributes Root attributes.
+     * @param packs Packages to add.
+     * @return Completion of write.
+     */
+    private CompletionStage<Void> merge(
+        final Optional<ByteSource> source, final JsonObject attributes,
+        final List<Package> packs
+    ) {
+        final CompletionStage<JsonObject> updated;
+        if (this.config.sharded()) {
+            updated = new Shards(this.storage).update(
+                source, packs.stream().map(Package::name).collect(Collectors.toList())
+            ).thenApply(
+                includes -> {
+                    final JsonObjectBuilder attrs = Json.createObjectBuilder(attributes);
+                    includes.forEach(attrs::add);
+                    return attrs.build();
+                }
+            );
+        } else {
+            updated = CompletableFuture.completedFuture(attributes);
+        }
+        final CompletionStage<Packages> merged;
+        if (this.config.sharded()) {
+            merged = updated.thenApply(
+                attrs -> {
+                    final long start = System.nanoTime();
+                    final Packages root = new JsonPackages(AstoRepository.EMPTY, attrs)
+                        .addAll(Collections.emptyList());
+                    this.metrics.timer(AstoRepository.ROOT_MERGE, System.nanoTime() - start);
+                    return root;
+                }
+            );
+        } else if (!this.config.inline()) {
+            merged = CompletableFuture.completedFuture(
+                new JsonPackages(AstoRepository.EMPTY, attributes)
+                    .addAll(Collections.emptyList())
+            );
+        } else if (this.config.indexed()) {
+            merged = this.index.get().thenApply(
+                index -> {
+                    final long start = System.nanoTime();
+                    final Packages root = new JsonPackages(index.render(), attributes)
+                        .addAll(Collections.emptyList());
+                    this.metrics.timer(AstoRepository.ROOT_MERGE, System.nanoTime() - start);
+                    return root;
+                }
+            );
+        } else {
+            final long start = System.nanoTime();
+            final Packages root = new JsonPackages(
+                source.orElse(AstoRepository.EMPTY), attributes
+            ).addAll(packs);
+            this.metrics.timer(AstoRepository.ROOT_MERGE, System.nanoTime() - start);
+            merged = CompletableFuture.completedFuture(root);
+        }
+        final CompletionStage<JsonObject> saved = merged.thenCompose(
+            root -> {
+                final long start = System.nanoTime();
+                this.metrics.gauge(AstoRepository.ROOT_BYTES, root.size());
+                return root.save(this.storage, AstoRepository.ALL_PACKAGES).thenCombine(
+                    updated,
+                    (nothing, attrs) -> {
+                        this.metrics.timer(
+                            AstoRepository.ROOT_SAVE, System.nanoTime() - start
+                        );
+                        return attrs;
+                    }
+                );
+            }
+        );
+        final CompletionStage<Void> pruned = saved.thenCompose(
+            attrs -> this.pruned(source, attrs)
+        );
+        final CompletionStage<Void> res;
+        if ((this.config.inline() || this.config.sharded()) && this.config.indexed()) {
+            res = pruned.thenCompose(nothing -> this.persisted(packs));
+        } else {
+            res = pruned;
+        }
+        return res;
+    }
+
+    /**
+     * Deletes provider files and shards which saved root no longer refers to.
+     * Failure to delete does not fail the update, as root is already saved.
+     *
+     * @param source Previous root content, might be empty.
+     * @param attributes Attributes of saved root.
+     * @return Completion of deletion.
+     */
+    private CompletionStage<Void> pruned(
+        final Optional<ByteSource> source, final JsonObject attributes
+    ) {
+        final CompletionStage<Void> start = CompletableFuture.completedFuture(null);
+        final CompletionStage<Void> providers;
+        if (this.config.providers()) {
+            providers = start.thenCompose(
+                nothing -> new Providers(this.storage).prune(source, attributes)
+            );
+        } else {
+            providers = start;
+        }
+        final CompletionStage<Void> res;
+        if (this.config.sharded()) {
+            res = providers.thenCompose(
+                nothing -> new Shards(this.storage).prune(source, attributes)
+            );
+        } else {
+            res = providers;
+        }
+        return res.exceptionally(err -> null);
+    }
+
+    /**
+     * Persists package index changes tagged with validator of saved root 'packages.json'.
+     * Index is persisted only when root lists all packages or hashes of all shards,
+     * so root validator changes with any package update.
+     * Failure to persist does not fail the update, as root is already saved: index is
+     * loaded by scanning metadata files or is rewritten as snapshot with next update.
+     *
+     * @param packs Packages added with root update.
+     * @return Completion of persisting.
+     */
+    private CompletionStage<Void> persisted(final List<Package> packs) {
+        return this.index.get().thenCompose(
+            index -> new IndexStorage(this.storage).etag(AstoRepository.ALL_PACKAGES)
+                .thenCompose(
+                    etag -> etag.map(
+                        tag -> index.persist(this.storage, tag.value(), packs)
+                    ).orElseGet(() -> CompletableFuture.completedFuture(null))
                 )
+        ).exceptionally(err -> null);
+    }
+
+    /**
+     * Builds attributes of root 'packages.json'.
+     * Package metadata should be written before, as provider files refer to it.
+     *
+     * @param root Current root content, might be empty.
+     * @param packs Added packages.
+     * @return Root attributes.
+     */
+    private CompletionStage<JsonObject> attributes(
+        final Optional<ByteSource> root, final List<Package> packs
+    ) {
+        final CompletionStage<JsonObject> res;
+        if (this.config.providers()) {
+            res = new Providers(this.storage).update(
+                root, packs.stream().map(Package::name).collect(Collectors.toList())
+            ).thenApply(
+                providers -> {
+                    final JsonObjectBuilder attrs = Json.createObjectBuilder(
+                        AstoRepository.ROOT
+                    );
+                    providers.forEach(attrs::add);
+                    return attrs.build();
+                }
+            );
+        } else {
+            res = CompletableFuture.completedFuture(AstoRepository.ROOT);
+        }
+        return res;
+    }
+
+    /**
+     * Writes batch of package versions to package metadata.
+     *
+     * @param name Package name.
+     * @param packs Package versions to add.
+     * @return Completion of write.
+     */
+    private CompletionStage<Void> metadata(final Name name, final List<Package> packs) {
+        return this.merged(name, packs).thenCompose(
+            updated -> {
+                final long start = System.nanoTime();
+                this.metrics.gauge(AstoRepository.META_BYTES, updated.size());
+                return updated.save(this.storage, name.key()).thenCombine(
+                    new P2Metadata(name, updated, this.config.minified()).save(this.storage),
+                    (first, second) -> {
+                        this.metrics.timer(
+                            AstoRepository.META_SAVE, System.nanoTime() - start
+                        );
+                        return first;
+                    }
+                );
+            }
         );
     }
 
+    /**
+     * Writes batch of packages to vendor shard.
+     *
+     * @param key Shard key.
+     * @param packs Packages of the vendor to add.
+     * @return Completion of write.
+     */
+    private CompletionStage<Void> shard(final Key key, final List<Package> packs) {
+        final CompletionStage<Packages> updated;
+        if (this.config.indexed()) {
+            updated = this.index.get().thenApply(
+                index -> new JsonPackages(index.vendor(packs.get(0).name()))
+            );
+        } else {
+            updated = this.packages(key).thenApply(
+                packages -> packages.orElse(new JsonPackages()).addAll(packs)
+            );
+        }
+        return updated.thenCompose(packages -> packages.save(this.storage, key));
+    }
+
+    /**
+     * Merges batch of package versions with current package metadata.
+     *
+     * @param name Package name.
+     * @param packs Package versions to add.
+     * @return Updated package metadata.
+     */
+    private CompletionStage<Packages> merged(final Name name, final List<Package> packs) {
+        final long start = System.nanoTime();
+        final CompletionStage<Packages> res;
+        if (this.config.indexed()) {
+            res = this.index.get().thenApply(
+                index -> {
+                    final long read = System.nanoTime();
+                    this.metrics.timer(AstoRepository.META_READ, read - start);
+                    final Packages updated = new JsonPackages(index.render(name));
+                    this.metrics.timer(AstoRepository.META_MERGE, System.nanoTime() - read);
+                    return updated;
+                }
+            );
+        } else {
+            res = this.packages(name.key()).thenApply(
+                packages -> {
+                    final long read = System.nanoTime();
+                    this.metrics.timer(AstoRepository.META_READ, read - start);
+                    final Packages updated = packages.orElse(new JsonPackages())
+                        .addAll(packs);
+                    this.metrics.timer(AstoRepository.META_MERGE, System.nanoTime() - read);
+                    return updated;
+                }
+            );
+        }
+        return res;
+    }
+
     /**
      * Reads packages description from storage.
      *
@@ -105,20 +872,22 @@ public final class AstoRepository implements Repository {
      * @return Packages found by name, might be empty.
      */
     private CompletionStage<Optional<Packages>> packages(final Key key) {
-        return this.storage.exists(key).thenCompose(
-            exists -> {
-                final CompletionStage<Optional<Packages>> packages;
-                if (exists) {
-                    packages = this.storage.value(key)
-                        .thenApply(PublisherAs::new)
-                        .thenCompose(PublisherAs::bytes)
-                        .thenApply(bytes -> new JsonPackages(ByteSource.wrap(bytes)))
-                        .thenApply(Optional::of);
-                } else {
-                    packages = CompletableFuture.completedFuture(Optional.empty());
-                }
-                return packages;
-            }
+        return this.source(key).thenApply(source -> source.map(JsonPackages::new));
+    }
+
+    /**
+     * Reads binary content from storage.
+     *
+     * @param key Content location in storage.
+     * @return Content found by key, might be empty.
+     */
+    private CompletionStage<Optional<ByteSource>> source(final Key key) {
+        return new IndexStorage(this.storage).value(key).thenCompose(
+            content -> content.map(
+                value -> new PublisherAs(value).bytes()
+                    .thenApply(ByteSource::wrap)
+                    .thenApply(Optional::of)
+            ).orElse(CompletableFuture.completedFuture(Optional.empty()))
         );
     }
 }
@@ -0,0 +1,417 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2020 artipie.com
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included
+ * in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NON-INFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package com.artipie.composer;
+
+import com.artipie.asto.Content;
+import com.artipie.asto.Key;
+import com.artipie.asto.ext.PublisherAs;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.io.ByteSource;
+import com.google.common.io.ByteStreams;
+import io.reactivex.Flowable;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Collectors;
+import java.util.zip.GZIPInputStream;
+import javax.json.JsonObject;
+import org.reactivestreams.Publisher;
+
+/**
+ * Repository that keeps recently read metadata in memory.
+ * Metadata is read from origin repository with {@link Repository#content(Key)} and
+ * cached together with its validator, so validator always matches cached content.
+ * Cache is bounded by total size of cached metadata in bytes, least recently used
+ * entries are evicted first. Entries added by this instance are invalidated precisely,
+ * entries changed by other writers are refreshed after time to live expires.
+ * Package archives are not cached, they are streamed from origin repository.
+ * Cache hits serve cached bytes through read-only buffers without copying them.
+ * Gzip compressed variant of metadata is loaded and cached in the same entry as
+ * metadata and its validator, so they always are of the same version and expire together.
+ * Concurrent misses of the same metadata are coalesced with {@link SingleFlight}:
+ * only one read of a key from origin repository is in flight, all other callers
+ * share it. Reads started before invalidation are not
+ * shared with callers coming after it.
+ *
+ * @since 0.4
+ */
+public final class CachedRepository implements Repository {
+
+    /**
+     * Default cache size budget in bytes.
+     */
+    private static final long BUDGET = 64L * 1024 * 1024;
+
+    /**
+     * Default time to live of cached entries.
+     */
+    private static final Duration TTL = Duration.ofMinutes(5);
+
+    /**
+     * Origin repository.
+     */
+    private final Repository origin;
+
+    /**
+     * Cached metadata by storage key.
+     */
+    private final Cache<String, Entry> cache;
+
+    /**
+     * Invalidations counter, metadata read before invalidation is not cached.
+     */
+    private final AtomicLong epoch;
+
+    /**
+     * Metadata reads in flight.
+     */
+    private final SingleFlight<String, Optional<Entry>> reads;
+
+    /**
+     * Ctor.
+     *
+     * @param origin Origin repository.
+     */
+    public CachedRepository(final Repository origin) {
+        this(origin, CachedRepository.BUDGET, CachedRepository.TTL);
+    }
+
+    /**
+     * Ctor.
+     *
+     * @param origin Origin repository.
+     * @param budget Maximum total size of cached metadata in bytes.
+     * @param ttl Time to live of cached entries.
+     */
+    public CachedRepository(final Repository origin, final long budget, final Duration ttl) {
+        this.origin = origin;
+        this.cache = CacheBuilder.newBuilder()
+            .concurrencyLevel(1)
+            .maximumWeight(budget)
+            .<String, Entry>weigher((key, entry) -> key.length() + entry.weight())
+            .expireAfterWrite(ttl.toMillis(), TimeUnit.MILLISECONDS)
+            .recordStats()
+            .build();
+        this.epoch = new AtomicLong();
+        this.reads = new SingleFlight<>();
+    }
+
+    @Override
+    public CompletionStage<Optional<Packages>> packages() {
+        return this.packages(AstoRepository.ALL_PACKAGES);
+    }
+
+    @Override
+    public CompletionStage<Optional<Packages>> packages(final Name name) {
+        return this.packages(name.key());
+    }
+
+    @Override
+    public CompletionStage<Optional<Content>> content(final Key key) {
+        return this.cached(key).thenApply(
+            entry -> entry.map(value -> CachedRepository.content(value.bytes))
+        );
+    }
+
+    @Override
+    public CompletionStage<Optional<Etag>> etag(final Key key) {
+        return this.cached(key).thenApply(entry -> entry.flatMap(value -> value.etag));
+    }
+
+    @Override
+    public CompletionStage<Optional<Content>> gzip(final Key key) {
+        return this.cached(key).thenApply(
+            entry -> entry.flatMap(value -> value.gzip).map(CachedRepository::content)
+        );
+    }
+
+    @Override
+    public CompletionStage<Optional<Content>> archive(final Key key) {
+        return this.origin.archive(key);
+    }
+
+    @Override
+    public CompletionStage<JsonObject> search(
+        final String query, final String type, final int offset, final int limit
+    ) {
+        return this.origin.search(query, type, offset, limit);
+    }
+
+    @Override
+    public CompletableFuture<Name> add(final Content content) {
+        return this.invalidated(this.origin.add(content));
+    }
+
+    @Override
+    public CompletableFuture<Void> addAll(final Publisher<Content> packages) {
+        return this.origin.addAll(packages).whenComplete(
+            (nothing, throwable) -> this.invalidateAll()
+        );
+    }
+
+    @Override
+    public CompletableFuture<Name> addArchive(final Content archive, final String base) {
+        return this.invalidated(this.origin.addArchive(archive, base));
+    }
+
+    /**
+     * Number of metadata reads served from cache.
+     *
+     * @return Cache hits count.
+     */
+    public long hits() {
+        return this.cache.stats().hitCount();
+    }
+
+    /**
+     * Number of metadata reads served by origin repository.
+     *
+     * @return Cache misses count.
+     */
+    public long misses() {
+        return this.cache.stats().missCount();
+    }
+
+    /**
+     * Number of reads of metadata, validators and compressed metadata which shared
+     * read of the same metadata in flight instead of reading it from origin repository.
+     *
+     * @return Coalesced reads count.
+     */
+    public long coalesced() {
+        return this.reads.coalesced();
+    }
+
+    /**
+     * Reads packages registry from cache or from origin repository if it is not cached.
+     *
+     * @param key Metadata location in storage.
+     * @return Packages registry, might be empty.
+     */
+    private CompletionStage<Optional<Packages>> packages(final Key key) {
+        return this.cached(key).thenApply(
+            entry -> entry.map(value -> new JsonPackages(ByteSource.wrap(value.bytes)))
+        );
+    }
+
+    /**
+     * Reads metadata with its validator and compressed variant from cache or from
+     * origin repository if it is not cached.
+     * Entry loaded before invalidation is not cached.
+     *
+     * @param key Metadata location in storage.
+     * @return Metadata entry, might be empty.
+     */
+    private CompletionStage<Optional<Entry>> cached(final Key key) {
+        final String id = key.string();
+        final Entry cached = this.cache.getIfPresent(id);
+        final CompletionStage<Optional<Entry>> res;
+        if (cached == null) {
+            final long before = this.epoch.get();
+            res = this.reads.apply(
+                String.format("%d:%s", before, id),
+                () -> this.load(key).thenApply(
+                    read -> {
+                        if (this.epoch.get() == before) {
+                            read.ifPresent(value -> this.cache.put(id, value));
+                        }
+                        return read;
+                    }
+                )
+            );
+        } else {
+            res = CompletableFuture.completedFuture(Optional.of(cached));
+        }
+        return res;
+    }
+
+    /**
+     * Content of cached bytes.
+     * Cached array is wrapped into read-only buffer, so it is not copied on cache hit.
+     *
+     * @param bytes Cached bytes.
+     * @return Content with known size.
+     */
+    private static Content content(final byte[] bytes) {
+        return new Content.From(
+            (long) bytes.length, Flowable.just(ByteBuffer.wrap(bytes).asReadOnlyBuffer())
+        );
+    }
+
+    /**
+     * Loads metadata with its validator and compressed variant from origin repository.
+     *
+     * @param key Metadata location in storage.
+     * @return Metadata entry, might be empty.
+     */
+    private CompletionStage<Optional<Entry>> load(final Key key) {
+        return this.origin.etag(key).thenCompose(
+            etag -> this.origin.content(key).thenCompose(CachedRepository::bytes).thenCompose(
+                read -> this.origin.gzip(key).thenCompose(CachedRepository::bytes).thenApply(
+                    gzip -> read.map(bytes -> new Entry(bytes, gzip, etag))
+                )
+            )
+        );
+    }
+
+    /**
+     * Reads content bytes.
+     *
+     * @param content Content, might be empty.
+     * @return Content bytes, empty if content is empty.
+     */
+    private static CompletionStage<Optional<byte[]>> bytes(final Optional<Content> content) {
+        return content.map(
+            value -> new PublisherAs(value).bytes().thenApply(Optional::of)
+        ).orElse(CompletableFuture.completedFuture(Optional.empty()));
+    }
+
+    /**
+     * Removes metadata of added package from cache: its Composer v1 and v2 files,
+     * root 'packages.json' and shard of its vendor. All metadata is removed if add failed,
+     * as it might be partially written.
+     *
+     * @param added Completion of add with name of added package.
+     * @return Completion of add.
+     */
+    private CompletableFuture<Name> invalidated(final CompletableFuture<Name> added) {
+        return added.whenComplete(
+            (name, throwable) -> {
+                if (throwable == null) {
+                    this.invalidate(
+                        AstoRepository.ALL_PACKAGES, name.key(), name.p2Key(),
+                        name.p2DevKey(), Shards.key(name)
+                    );
+                } else {
+                    this.invalidateAll();
+                }
+            }
+        );
+    }
+
+    /**
+     * Removes metadata with its compressed variant from cache.
+     *
+     * @param keys Metadata locations in storage.
+     */
+    private void invalidate(final Key... keys) {
+        this.epoch.incrementAndGet();
+        this.cache.invalidateAll(
+            Arrays.stream(keys).map(Key::string).collect(Collectors.toList())
+        );
+    }
+
+    /**
+     * Removes all metadata from cache.
+     */
+    private void invalidateAll() {
+        this.epoch.incrementAndGet();
+        this.cache.invalidateAll();
+    }
+
+    /**
+     * Cached metadata with its validator and compressed variant.
+     * Validator and compressed variant are read separately from metadata, so they are
+     * checked against cached content: validator is computed from content and compressed
+     * variant is dropped if metadata was changed between the reads.
+     *
+     * @since 0.4
+     */
+    private static final class Entry {
+
+        /**
+         * Metadata content.
+         */
+        private final byte[] bytes;
+
+        /**
+         * Gzip compressed metadata content, empty if metadata was written without it.
+         */
+        private final Optional<byte[]> gzip;
+
+        /**
+         * Validator of metadata content, empty if metadata was written without it.
+         */
+        private final Optional<Etag> etag;
+
+        /**
+         * Ctor.
+         *
+         * @param bytes Metadata content.
+         * @param gzip Compressed metadata stored with it, might be empty.
+         * @param stored Validator stored with metadata, might be empty.
+         */
+        Entry(final byte[] bytes, final Optional<byte[]> gzip, final Optional<Etag> stored) {
+            this.bytes = bytes;
+            this.gzip = gzip.filter(compressed -> Entry.compresses(compressed, bytes));
+            this.etag = stored.map(
+                tag -> {
+                    final Etag actual = new Etag(bytes);
+                    final Etag res;
+                    if (actual.value().equals(tag.value())) {
+                        res = tag;
+                    } else {
+                        res = actual;
+                    }
+                    return res;
+                }
+            );
+        }
+
+        /**
+         * Weight of entry in cache.
+         *
+         * @return Size of cached content in bytes.
+         */
+        int weight() {
+            return this.bytes.length + this.gzip.map(compressed -> compressed.length).orElse(0);
+        }
+
+        /**
+         * Checks that compressed content is compressed metadata content.
+         *
+         * @param compressed Gzip compressed content.
+         * @param bytes Metadata content.
+         * @return True if compressed content decompresses to metadata content.
+         */
+        private static boolean compresses(final byte[] compressed, final byte[] bytes) {
+            boolean res;
+            try (InputStream unzip = new GZIPInputStream(new ByteArrayInputStream(compressed))) {
+                res = Arrays.equals(ByteStreams.toByteArray(unzip), bytes);
+            } catch (final IOException ex) {
+                res = false;
+            }
+            return res;
+        }
+    }
+}
@@ -0,0 +1,130 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2020 artipie.com
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included
+ * in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NON-INFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package com.artipie.composer;
+
+import com.google.common.hash.Hashing;
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import javax.json.Json;
+import javax.json.JsonObject;
+
+/**
+ * Validator of metadata file content: strong entity tag and time of last modification.
+ *
+ * @since 0.4
+ */
+public final class Etag {
+
+    /**
+     * Entity tag attribute name.
+     */
+    private static final String ETAG = "etag";
+
+    /**
+     * Last modification time attribute name.
+     */
+    private static final String MODIFIED = "modified";
+
+    /**
+     * Entity tag, quoted.
+     */
+    private final String tag;
+
+    /**
+     * Time of last modification.
+     */
+    private final Instant time;
+
+    /**
+     * Ctor.
+     *
+     * @param content Content of metadata file written right now.
+     */
+    public Etag(final byte[] content) {
+        this(
+            String.format("\"%s\"", Hashing.sha256().hashBytes(content).toString()),
+            Instant.now().truncatedTo(ChronoUnit.SECONDS)
+        );
+    }
+
+    /**
+     * Ctor.
+     *
+     * @param json Validator in JSON format, see {@link #json()}.
+     */
+    public Etag(final JsonObject json) {
+        this(json.getString(Etag.ETAG), Instant.parse(json.getString(Etag.MODIFIED)));
+    }
+
+    /**
+     * Ctor.
+     *
+     * @param tag Entity tag, quoted.
+     * @param time Time of last modification.
+     */
+    public Etag(final String tag, final Instant time) {
+        this.tag = tag;
+        this.time = time;
+    }
+
+    /**
+     * Strong entity tag, quoted as in 'ETag' HTTP header.
+     *
+     * @return Entity tag.
+     */
+    public String value() {
+        return this.tag;
+    }
+
+    /**
+     * Validator of gzip compressed variant of the content.
+     * Strong entity tags of different representations should differ.
+     *
+     * @return Validator of compressed content.
+     */
+    public Etag gzip() {
+        return new Etag(this.tag.replaceFirst("\"$", "-gzip\""), this.time);
+    }
+
+    /**
+     * Time of last modification, precise to seconds.
+     *
+     * @return Modification time.
+     */
+    public Instant modified() {
+        return this.time;
+    }
+
+    /**
+     * Validator in JSON format.
+     *
+     * @return JSON object.
+     */
+    public JsonObject json() {
+        return Json.createObjectBuilder()
+            .add(Etag.ETAG, this.tag)
+            .add(Etag.MODIFIED, this.time.toString())
+            .build();
+    }
+}
@@ -0,0 +1,245 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2020 artipie.com
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included
+ * in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NON-INFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package com.artipie.composer;
+
+import com.artipie.asto.Key;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.BiFunction;
+import java.util.stream.Collectors;
+
+/**
+ * Group commit of packages registry updates.
+ * Packages added to the same key within time window, or until batch size is reached,
+ * are merged into one update of the key. Completion of each add is completed
+ * only when the whole batch is written. Updates of the same key are serialized
+ * with {@link UpdateQueue}, packages added while previous batch is being written
+ * are collected to the next batch.
+ *
+ * @since 0.4
+ */
+public final class GroupCommit {
+
+    /**
+     * Timer to flush batches after time window.
+     */
+    private static final ScheduledExecutorService TIMER =
+        Executors.newSingleThreadScheduledExecutor(
+            new ThreadFactoryBuilder()
+                .setDaemon(true)
+                .setNameFormat("composer-group-commit-%d")
+                .build()
+        );
+
+    /**
+     * Writes batch of packages to registry stored by the key.
+     */
+    private final BiFunction<Key, List<Package>, CompletionStage<Void>> write;
+
+    /**
+     * Time window to collect batch.
+     */
+    private final Duration window;
+
+    /**
+     * Maximum batch size.
+     */
+    private final int size;
+
+    /**
+     * Queue of updates.
+     */
+    private final UpdateQueue queue;
+
+    /**
+     * Pending packages by key.
+     */
+    private final ConcurrentMap<String, List<Pending>> pending;
+
+    /**
+     * Ctor.
+     *
+     * @param write Writes batch of packages to registry stored by the key.
+     * @param window Time window to collect batch.
+     * @param size Maximum batch size.
+     */
+    public GroupCommit(
+        final BiFunction<Key, List<Package>, CompletionStage<Void>> write,
+        final Duration window,
+        final int size
+    ) {
+        if (size < 1) {
+            throw new IllegalArgumentException(
+                String.format("Batch size should be positive: %d", size)
+            );
+        }
+        this.write = write;
+        this.window = window;
+        this.size = size;
+        this.queue = new UpdateQueue();
+        this.pending = new ConcurrentHashMap<>();
+    }
+
+    /**
+     * Add package to registry stored by the key.
+     *
+     * @param key Packages registry location in storage.
+     * @param pack Package.
+     * @return Completion of writing batch containing the package.
+     */
+    public CompletableFuture<Void> add(final Key key, final Package pack) {
+        final Pending entry = new Pending(pack);
+        final AtomicInteger count = new AtomicInteger();
+        this.pending.compute(
+            key.string(),
+            (str, list) -> {
+                final List<Pending> batch;
+                if (list == null) {
+                    batch = new ArrayList<>(1);
+                } else {
+                    batch = list;
+                }
+                batch.add(entry);
+                count.set(batch.size());
+                return batch;
+            }
+        );
+        if (count.get() >= this.size || this.window.isZero()) {
+            this.flush(key);
+        } else if (count.get() == 1) {
+            GroupCommit.TIMER.schedule(
+                () -> this.flush(key), this.window.toNanos(), TimeUnit.NANOSECONDS
+            );
+        }
+        return entry.done;
+    }
+
+    /**
+     * Add packages to registry stored by the key with one write.
+     * Packages are not merged with pending batch and are not split by batch size,
+     * write is still serialized with other updates of the key.
+     *
+     * @param key Packages registry location in storage.
+     * @param packs Packages.
+     * @return Completion of write.
+     */
+    public CompletableFuture<Void> addAll(final Key key, final List<Package> packs) {
+        return this.queue.submit(key, () -> this.write.apply(key, packs));
+    }
+
+    /**
+     * Submit batch write of the key to update queue.
+     *
+     * @param key Packages registry location in storage.
+     */
+    private void flush(final Key key) {
+        this.queue.submit(key, () -> this.commit(key));
+    }
+
+    /**
+     * Take next batch of the key and write it.
+     *
+     * @param key Packages registry location in storage.
+     * @return Completion of write.
+     */
+    private CompletionStage<Void> commit(final Key key) {
+        final List<Pending> batch = new ArrayList<>(0);
+        this.pending.computeIfPresent(
+            key.string(),
+            (str, list) -> {
+                final List<Pending> head = list.subList(0, Math.min(this.size, list.size()));
+                batch.addAll(head);
+                head.clear();
+                final List<Pending> rest;
+                if (list.isEmpty()) {
+                    rest = null;
+                } else {
+                    rest = list;
+                }
+                return rest;
+            }
+        );
+        final CompletionStage<Void> res;
+        if (batch.isEmpty()) {
+            res = CompletableFuture.completedFuture(null);
+        } else {
+            res = CompletableFuture.<Void>completedFuture(null).thenCompose(
+                nothing -> this.write.apply(
+                    key,
+                    batch.stream().map(item -> item.pack).collect(Collectors.toList())
+                )
+            ).handle(
+                (nothing, err) -> {
+                    for (final Pending item : batch) {
+                        if (err == null) {
+                            item.done.complete(null);
+                        } else {
+                            item.done.completeExceptionally(err);
+                        }
+                    }
+                    return null;
+                }
+            );
+        }
+        return res;
+    }
+
+    /**
+     * Package waiting to be written.
+     *
+     * @since 0.4
+     */
+    private static final class Pending {
+
+        /**
+         * Package.
+         */
+        private final Package pack;
+
+        /**
+         * Completion of write.
+         */
+        private final CompletableFuture<Void> done;
+
+        /**
+         * Ctor.
+         *
+         * @param pack Package.
+         */
+        Pending(final Package pack) {
+            this.pack = pack;
+            this.done = new CompletableFuture<>();
+        }
+    }
+}
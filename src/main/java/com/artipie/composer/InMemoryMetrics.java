@@ -0,0 +1,215 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2020 artipie.com
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included
+ * in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NON-INFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package com.artipie.composer;
+
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import javax.json.Json;
+import javax.json.JsonObject;
+import javax.json.JsonObjectBuilder;
+
+/**
+ * Metrics registry kept in memory.
+ * For each timer number of records, total and maximum durations are kept.
+ *
+ * @since 0.4
+ */
+public final class InMemoryMetrics implements Metrics {
+
+    /**
+     * Timers.
+     */
+    private final ConcurrentMap<String, Timer> timers;
+
+    /**
+     * Counters.
+     */
+    private final ConcurrentMap<String, LongAdder> counters;
+
+    /**
+     * Gauges.
+     */
+    private final ConcurrentMap<String, AtomicLong> gauges;
+
+    /**
+     * Ctor.
+     */
+    public InMemoryMetrics() {
+        this.timers = new ConcurrentHashMap<>();
+        this.counters = new ConcurrentHashMap<>();
+        this.gauges = new ConcurrentHashMap<>();
+    }
+
+    @Override
+    public void timer(final String name, final long nanos) {
+        this.timers.computeIfAbsent(name, key -> new Timer()).record(nanos);
+    }
+
+    @Override
+    public void counter(final String name, final long delta) {
+        this.counters.computeIfAbsent(name, key -> new LongAdder()).add(delta);
+    }
+
+    @Override
+    public void gauge(final String name, final long value) {
+        this.gauges.computeIfAbsent(name, key -> new AtomicLong()).set(value);
+    }
+
+    /**
+     * Number of records of timer.
+     *
+     * @param name Timer name.
+     * @return Number of records, zero if timer was never recorded.
+     */
+    public long records(final String name) {
+        final Timer timer = this.timers.get(name);
+        final long res;
+        if (timer == null) {
+            res = 0;
+        } else {
+            res = timer.count.sum();
+        }
+        return res;
+    }
+
+    /**
+     * Current value of counter.
+     *
+     * @param name Counter name.
+     * @return Value, zero if counter was never incremented.
+     */
+    public long count(final String name) {
+        return InMemoryMetrics.sum(this.counters, name);
+    }
+
+    /**
+     * Current value of gauge.
+     *
+     * @param name Gauge name.
+     * @return Value, zero if gauge was never set.
+     */
+    public long value(final String name) {
+        final AtomicLong gauge = this.gauges.get(name);
+        final long res;
+        if (gauge == null) {
+            res = 0;
+        } else {
+            res = gauge.get();
+        }
+        return res;
+    }
+
+    /**
+     * Snapshot of all metrics as JSON, metrics are sorted by name.
+     *
+     * @return JSON with 'timers', 'counters' and 'gauges' objects.
+     */
+    public JsonObject json() {
+        final JsonObjectBuilder timers = Json.createObjectBuilder();
+        new TreeMap<>(this.timers).forEach(
+            (name, timer) -> timers.add(
+                name,
+                Json.createObjectBuilder()
+                    .add("count", timer.count.sum())
+                    .add("total", timer.total.sum())
+                    .add("max", timer.max.get())
+            )
+        );
+        final JsonObjectBuilder counters = Json.createObjectBuilder();
+        new TreeMap<>(this.counters).forEach((name, value) -> counters.add(name, value.sum()));
+        final JsonObjectBuilder gauges = Json.createObjectBuilder();
+        new TreeMap<>(this.gauges).forEach((name, value) -> gauges.add(name, value.get()));
+        return Json.createObjectBuilder()
+            .add("timers", timers)
+            .add("counters", counters)
+            .add("gauges", gauges)
+            .build();
+    }
+
+    /**
+     * Sum of adder by name.
+     *
+     * @param adders Adders.
+     * @param name Name.
+     * @return Sum, zero if there is no adder with such name.
+     */
+    private static long sum(final Map<String, LongAdder> adders, final String name) {
+        final LongAdder adder = adders.get(name);
+        final long res;
+        if (adder == null) {
+            res = 0;
+        } else {
+            res = adder.sum();
+        }
+        return res;
+    }
+
+    /**
+     * Timer records: number of records, total and maximum durations.
+     * All of them are created at once, so timer is never seen partially registered.
+     *
+     * @since 0.4
+     */
+    private static final class Timer {
+
+        /**
+         * Number of records.
+         */
+        private final LongAdder count;
+
+        /**
+         * Total duration in nanoseconds.
+         */
+        private final LongAdder total;
+
+        /**
+         * Maximum duration in nanoseconds.
+         */
+        private final AtomicLong max;
+
+        /**
+         * Ctor.
+         */
+        Timer() {
+            this.count = new LongAdder();
+            this.total = new LongAdder();
+            this.max = new AtomicLong();
+        }
+
+        /**
+         * Records duration.
+         *
+         * @param nanos Duration in nanoseconds.
+         */
+        void record(final long nanos) {
+            this.count.increment();
+            this.total.add(nanos);
+            this.max.accumulateAndGet(nanos, Math::max);
+        }
+    }
+}
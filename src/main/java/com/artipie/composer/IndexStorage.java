@@ -0,0 +1,234 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2020 artipie.com
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included
+ * in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NON-INFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package com.artipie.composer;
+
+import com.artipie.asto.Content;
+import com.artipie.asto.Key;
+import com.artipie.asto.Storage;
+import com.artipie.asto.ValueNotFoundException;
+import com.artipie.asto.ext.PublisherAs;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.CompletionStage;
+import java.util.function.Function;
+import java.util.zip.GZIPOutputStream;
+import javax.json.Json;
+import javax.json.JsonReader;
+
+/**
+ * Storage of repository metadata files.
+ * Every file is written together with its gzip compressed variant and its {@link Etag}
+ * in a sidecar file, so compression and validators are computed once on write
+ * and never on read.
+ *
+ * @since 0.4
+ */
+public final class IndexStorage {
+
+    /**
+     * The storage.
+     */
+    private final Storage storage;
+
+    /**
+     * Ctor.
+     *
+     * @param storage Storage.
+     */
+    public IndexStorage(final Storage storage) {
+        this.storage = storage;
+    }
+
+    /**
+     * Saves metadata file, its compressed variant and its validator.
+     * Validator and compressed variant of previous content are removed first and
+     * validator is written last, so if saving fails halfway validator never describes
+     * content it was not computed for and stale compressed variant is not served.
+     * Rewriting file takes five storage calls: two deletions and three writes.
+     *
+     * @param key Metadata file location.
+     * @param content Metadata file content.
+     * @return Completion of saving.
+     */
+    public CompletableFuture<Void> save(final Key key, final byte[] content) {
+        final byte[] etag = new Etag(content).json().toString()
+            .getBytes(StandardCharsets.UTF_8);
+        return CompletableFuture.allOf(
+            this.drop(IndexStorage.sidecar(key)), this.drop(IndexStorage.compressed(key))
+        ).thenCompose(
+            nothing -> this.storage.save(key, new Content.From(content))
+        ).thenCompose(
+            nothing -> this.storage.save(
+                IndexStorage.compressed(key), new Content.From(IndexStorage.gzip(content))
+            )
+        ).thenCompose(
+            nothing -> this.storage.save(IndexStorage.sidecar(key), new Content.From(etag))
+        );
+    }
+
+    /**
+     * Deletes file together with its compressed variant and its validator,
+     * missing files are skipped.
+     *
+     * @param key File location.
+     * @return Completion of deletion.
+     */
+    public CompletableFuture<Void> delete(final Key key) {
+        return CompletableFuture.allOf(
+            this.drop(key), this.drop(IndexStorage.sidecar(key)),
+            this.drop(IndexStorage.compressed(key))
+        );
+    }
+
+    /**
+     * Reads metadata file content as is, without buffering it.
+     * Content is requested from storage once, missing value is reported as empty
+     * instead of checking existence first.
+     *
+     * @param key Metadata file location.
+     * @return Content, empty if file not found.
+     */
+    public CompletionStage<Optional<Content>> value(final Key key) {
+        return this.storage.value(key).<Optional<Content>>thenApply(Optional::of).exceptionally(
+            err -> {
+                final Throwable cause;
+                if (err instanceof CompletionException && err.getCause() != null) {
+                    cause = err.getCause();
+                } else {
+                    cause = err;
+                }
+                if (!(cause instanceof ValueNotFoundException)) {
+                    throw new CompletionException(cause);
+                }
+                return Optional.empty();
+            }
+        );
+    }
+
+    /**
+     * Reads gzip compressed variant of metadata file.
+     *
+     * @param key Metadata file location.
+     * @return Compressed content, empty if file was written without it.
+     */
+    public CompletionStage<Optional<Content>> gzip(final Key key) {
+        return this.value(IndexStorage.compressed(key));
+    }
+
+    /**
+     * Reads validator of metadata file.
+     *
+     * @param key Metadata file location.
+     * @return Validator, empty if file was written without it.
+     */
+    public CompletionStage<Optional<Etag>> etag(final Key key) {
+        return this.value(IndexStorage.sidecar(key)).thenCompose(
+            sidecar -> sidecar.map(
+                content -> new PublisherAs(content).bytes().thenApply(
+                    bytes -> {
+                        try (JsonReader reader = Json.createReader(
+                            new ByteArrayInputStream(bytes)
+                        )) {
+                            return Optional.of(new Etag(reader.readObject()));
+                        }
+                    }
+                )
+            ).orElse(CompletableFuture.completedFuture(Optional.empty()))
+        );
+    }
+
+    /**
+     * Deletes file if it exists.
+     * File is deleted without checking existence first, existence is checked only
+     * if deletion fails, so deleting existing file takes one storage call.
+     *
+     * @param key File location.
+     * @return Completion of deletion.
+     */
+    private CompletableFuture<Void> drop(final Key key) {
+        return this.storage.delete(key).handle(
+            (nothing, err) -> {
+                final CompletableFuture<Void> res;
+                if (err == null) {
+                    res = CompletableFuture.completedFuture(null);
+                } else {
+                    res = this.storage.exists(key).thenCompose(
+                        exists -> {
+                            final CompletableFuture<Void> deleted = new CompletableFuture<>();
+                            if (exists) {
+                                deleted.completeExceptionally(err);
+                            } else {
+                                deleted.complete(null);
+                            }
+                            return deleted;
+                        }
+                    );
+                }
+                return res;
+            }
+        ).thenCompose(Function.identity());
+    }
+
+    /**
+     * Location of gzip compressed metadata file.
+     *
+     * @param key Metadata file location.
+     * @return Compressed file location.
+     */
+    private static Key compressed(final Key key) {
+        return new Key.From(String.format("%s.gz", key.string()));
+    }
+
+    /**
+     * Compresses content with gzip.
+     *
+     * @param content Content.
+     * @return Compressed content.
+     */
+    private static byte[] gzip(final byte[] content) {
+        final ByteArrayOutputStream out = new ByteArrayOutputStream(content.length / 4 + 64);
+        try (GZIPOutputStream gzip = new GZIPOutputStream(out)) {
+            gzip.write(content);
+        } catch (final IOException ex) {
+            throw new UncheckedIOException("Failed to compress content", ex);
+        }
+        return out.toByteArray();
+    }
+
+    /**
+     * Location of metadata file validator.
+     *
+     * @param key Metadata file location.
+     * @return Validator location.
+     */
+    private static Key sidecar(final Key key) {
+        return new Key.From(String.format("%s.etag", key.string()));
+    }
+}
@@ -24,9 +24,11 @@
 
 package com.artipie.composer;
 
+import com.google.common.base.Suppliers;
 import com.google.common.io.ByteSource;
 import java.io.IOException;
 import java.io.UncheckedIOException;
+import java.util.function.Supplier;
 import javax.json.Json;
 import javax.json.JsonObject;
 import javax.json.JsonReader;
@@ -34,15 +36,22 @@ import javax.json.JsonString;
 
 /**
  * PHP Composer package built from JSON.
+ * Content is parsed once on first access, parsed JSON object is shared
+ * by all subsequent calls. Version is normalized once on first access as well.
  *
  * @since 0.1
  */
 public final class JsonPackage implements Package {
 
     /**
-     * Package binary content.
+     * Package JSON object.
      */
-    private final ByteSource content;
+    private final Supplier<JsonObject> source;
+
+    /**
+     * Normalized version.
+     */
+    private final Supplier<Version> key;
 
     /**
      * Ctor.
@@ -50,7 +59,26 @@ public final class JsonPackage implements Package {
      * @param content Package binary content.
      */
     public JsonPackage(final ByteSource content) {
-        this.content = content;
+        this(Suppliers.memoize(() -> JsonPackage.parse(content)));
+    }
+
+    /**
+     * Ctor.
+     *
+     * @param json Package JSON object.
+     */
+    public JsonPackage(final JsonObject json) {
+        this(() -> json);
+    }
+
+    /**
+     * Primary ctor.
+     *
+     * @param source Package JSON object source.
+     */
+    private JsonPackage(final Supplier<JsonObject> source) {
+        this.source = source;
+        this.key = Suppliers.memoize(() -> new Version(this.version()));
     }
 
     @Override
@@ -63,13 +91,14 @@ public final class JsonPackage implements Package {
         return this.mandatoryString("version");
     }
 
+    @Override
+    public Version versionKey() {
+        return this.key.get();
+    }
+
     @Override
     public JsonObject json() {
-        try (JsonReader reader = Json.createReader(this.content.openStream())) {
-            return reader.readObject();
-        } catch (final IOException ex) {
-            throw new UncheckedIOException(ex);
-        }
+        return this.source.get();
     }
 
     /**
@@ -85,4 +114,18 @@ public final class JsonPackage implements Package {
         }
         return string.getString();
     }
+
+    /**
+     * Parses package binary content as JSON object.
+     *
+     * @param content Package binary content.
+     * @return JSON object.
+     */
+    private static JsonObject parse(final ByteSource content) {
+        try (JsonReader reader = Json.createReader(content.openStream())) {
+            return reader.readObject();
+        } catch (final IOException ex) {
+            throw new UncheckedIOException(ex);
+        }
+    }
 }
@@ -30,16 +30,23 @@ import com.artipie.asto.Storage;
 import com.google.common.io.ByteSource;
 import java.io.ByteArrayOutputStream;
 import java.io.IOException;
+import java.io.InputStream;
 import java.io.UncheckedIOException;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.TreeMap;
 import java.util.concurrent.CompletableFuture;
 import javax.json.Json;
 import javax.json.JsonObject;
-import javax.json.JsonObjectBuilder;
-import javax.json.JsonReader;
+import javax.json.JsonValue;
 import javax.json.JsonWriter;
 
 /**
  * PHP Composer packages registry built from JSON.
+ * Registry is updated with {@link JsonSplice}, without building it in memory as a tree.
+ * Versions of updated packages are written in ascending order of {@link Version}.
  *
  * @since 0.1
  */
@@ -55,6 +62,11 @@ public final class JsonPackages implements Packages {
      */
     private final ByteSource source;
 
+    /**
+     * Attributes set to registry root on update.
+     */
+    private final JsonObject root;
+
     /**
      * Ctor.
      */
@@ -74,63 +86,73 @@ public final class JsonPackages implements Packages {
      * @param source Packages registry content.
      */
     public JsonPackages(final ByteSource source) {
+        this(source, JsonValue.EMPTY_JSON_OBJECT);
+    }
+
+    /**
+     * Ctor.
+     *
+     * @param source Packages registry content.
+     * @param root Attributes set to registry root on update.
+     */
+    public JsonPackages(final ByteSource source, final JsonObject root) {
         this.source = source;
+        this.root = root;
     }
 
     @Override
     public Packages add(final Package pack) {
-        final JsonObject json = this.json();
-        if (json.isNull(JsonPackages.ATTRIBUTE)) {
-            throw new IllegalStateException("Bad content, no 'packages' object found");
+        return this.addAll(Collections.singletonList(pack));
+    }
+
+    @Override
+    public Packages addAll(final Collection<? extends Package> packs) {
+        final Map<String, Map<Version, JsonValue>> versions = new LinkedHashMap<>();
+        for (final Package pack : packs) {
+            versions.computeIfAbsent(pack.name().string(), pname -> new TreeMap<>())
+                .put(pack.versionKey(), pack.json());
         }
-        final JsonObject packages = json.getJsonObject(JsonPackages.ATTRIBUTE);
-        final String pname = pack.name().string();
-        final JsonObjectBuilder builder;
-        if (packages.isEmpty() || packages.isNull(pname)) {
-            builder = Json.createObjectBuilder();
-        } else {
-            builder = Json.createObjectBuilder(packages.getJsonObject(pname));
+        final byte[] updated;
+        try (InputStream input = this.source.openStream()) {
+            updated = new JsonSplice(this.root, versions).apply(input);
+        } catch (final IOException ex) {
+            throw new UncheckedIOException(ex);
         }
-        builder.add(pack.version(), pack.json());
-        return new JsonPackages(
-            bytes(
-                Json.createObjectBuilder(json)
-                    .add(
-                        JsonPackages.ATTRIBUTE,
-                        Json.createObjectBuilder(packages).add(pname, builder)
-                    )
-                    .build()
-            )
-        );
+        return new JsonPackages(ByteSource.wrap(updated), this.root);
     }
 
     @Override
     public CompletableFuture<Void> save(final Storage storage, final Key key) {
-        return storage.save(key, this.content());
+        return new IndexStorage(storage).save(key, this.read());
     }
 
     @Override
     public Content content() {
-        final byte[] bytes;
+        return new Content.From(this.read());
+    }
+
+    @Override
+    public long size() {
         try {
-            bytes = this.source.read();
+            return this.source.size();
         } catch (final IOException ex) {
-            throw new UncheckedIOException("Failed to read content", ex);
+            throw new UncheckedIOException("Failed to read content size", ex);
         }
-        return new Content.From(bytes);
     }
 
     /**
-     * Reads content as JSON object.
+     * Reads binary content.
      *
-     * @return JSON object.
+     * @return Content bytes.
      */
-    private JsonObject json() {
-        try (JsonReader reader = Json.createReader(this.source.openStream())) {
-            return reader.readObject();
+    private byte[] read() {
+        final byte[] bytes;
+        try {
+            bytes = this.source.read();
         } catch (final IOException ex) {
-            throw new UncheckedIOException(ex);
+            throw new UncheckedIOException("Failed to read content", ex);
         }
+        return bytes;
     }
 
     /**
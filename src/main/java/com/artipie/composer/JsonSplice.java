@@ -0,0 +1,325 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2020 artipie.com
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included
+ * in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NON-INFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package com.artipie.composer;
+
+import java.io.ByteArrayOutputStream;
+import java.io.InputStream;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.Set;
+import javax.json.Json;
+import javax.json.JsonObject;
+import javax.json.JsonValue;
+import javax.json.stream.JsonGenerator;
+import javax.json.stream.JsonParser;
+
+/**
+ * Streaming update of packages registry JSON.
+ * Registry is copied from parser to generator event by event, only updated packages
+ * and root attributes are rewritten, so neither source nor result is built in memory
+ * as a tree. Order of keys is the same as in tree based update: existing keys keep
+ * their positions, new keys are appended. Versions of updated package are the only
+ * exception: they are read and written in ascending order of {@link Version}.
+ *
+ * @since 0.4
+ */
+final class JsonSplice {
+
+    /**
+     * Root attribute value for packages registry in JSON.
+     */
+    private static final String ATTRIBUTE = "packages";
+
+    /**
+     * Attributes set to registry root.
+     */
+    private final JsonObject root;
+
+    /**
+     * Added versions by package name.
+     */
+    private final Map<String, Map<Version, JsonValue>> versions;
+
+    /**
+     * Ctor.
+     *
+     * @param root Attributes set to registry root.
+     * @param versions Added versions by package name, sorted by version.
+     */
+    JsonSplice(final JsonObject root, final Map<String, Map<Version, JsonValue>> versions) {
+        this.root = root;
+        this.versions = versions;
+    }
+
+    /**
+     * Writes updated registry.
+     *
+     * @param source Registry content.
+     * @return Updated registry content.
+     */
+    byte[] apply(final InputStream source) {
+        final ByteArrayOutputStream out = new ByteArrayOutputStream();
+        try (JsonParser parser = Json.createParser(source);
+            JsonGenerator gen = Json.createGenerator(out)) {
+            if (parser.next() != JsonParser.Event.START_OBJECT) {
+                throw new IllegalStateException("Bad content, JSON object expected");
+            }
+            gen.writeStartObject();
+            final Set<String> attributes = new HashSet<>(this.root.keySet());
+            boolean found = false;
+            JsonParser.Event event = parser.next();
+            while (event == JsonParser.Event.KEY_NAME) {
+                final String name = parser.getString();
+                event = parser.next();
+                if (JsonSplice.ATTRIBUTE.equals(name)) {
+                    if (event != JsonParser.Event.START_OBJECT) {
+                        throw new IllegalStateException(
+                            "Bad content, no 'packages' object found"
+                        );
+                    }
+                    found = true;
+                    gen.writeStartObject(name);
+                    this.packages(parser, gen);
+                } else if (attributes.remove(name)) {
+                    JsonSplice.skip(parser, event);
+                    gen.write(name, this.root.get(name));
+                } else {
+                    JsonSplice.copy(parser, gen, name, event);
+                }
+                event = parser.next();
+            }
+            if (!found) {
+                throw new IllegalStateException("Bad content, no 'packages' object found");
+            }
+            this.root.forEach(
+                (name, value) -> {
+                    if (attributes.contains(name)) {
+                        gen.write(name, value);
+                    }
+                }
+            );
+            gen.writeEnd();
+        }
+        return out.toByteArray();
+    }
+
+    /**
+     * Copies packages object, rewriting updated packages and appending new ones.
+     * Parser is positioned right after start of packages object.
+     *
+     * @param parser Source parser.
+     * @param gen Target generator.
+     */
+    private void packages(final JsonParser parser, final JsonGenerator gen) {
+        final Map<String, Map<Version, JsonValue>> remaining = new LinkedHashMap<>(this.versions);
+        JsonParser.Event event = parser.next();
+        while (event == JsonParser.Event.KEY_NAME) {
+            final String pname = parser.getString();
+            event = parser.next();
+            final Map<Version, JsonValue> added = remaining.remove(pname);
+            if (added == null) {
+                JsonSplice.copy(parser, gen, pname, event);
+            } else {
+                gen.writeStartObject(pname);
+                if (event == JsonParser.Event.START_OBJECT) {
+                    JsonSplice.versions(parser, gen, added);
+                } else if (event == JsonParser.Event.VALUE_NULL) {
+                    JsonSplice.write(gen, added);
+                } else {
+                    throw new IllegalStateException(
+                        String.format("Bad content, '%s' is not an object", pname)
+                    );
+                }
+                gen.writeEnd();
+            }
+            event = parser.next();
+        }
+        remaining.forEach(
+            (pname, added) -> {
+                gen.writeStartObject(pname);
+                JsonSplice.write(gen, added);
+                gen.writeEnd();
+            }
+        );
+        gen.writeEnd();
+    }
+
+    /**
+     * Writes versions of package merged with added versions in ascending order,
+     * added versions replace existing ones.
+     * Parser is positioned right after start of package object.
+     *
+     * @param parser Source parser.
+     * @param gen Target generator.
+     * @param added Added versions.
+     */
+    private static void versions(
+        final JsonParser parser, final JsonGenerator gen, final Map<Version, JsonValue> added
+    ) {
+        final Map<Version, JsonValue> merged = new TreeMap<>();
+        JsonParser.Event event = parser.next();
+        while (event == JsonParser.Event.KEY_NAME) {
+            final Version version = new Version(parser.getString());
+            parser.next();
+            merged.put(version, parser.getValue());
+            event = parser.next();
+        }
+        merged.putAll(added);
+        JsonSplice.write(gen, merged);
+    }
+
+    /**
+     * Writes versions of package.
+     *
+     * @param gen Target generator.
+     * @param versions Versions.
+     */
+    private static void write(final JsonGenerator gen, final Map<Version, JsonValue> versions) {
+        versions.forEach((version, value) -> gen.write(version.string(), value));
+    }
+
+    /**
+     * Copies value from parser to generator event by event.
+     *
+     * @param parser Source parser positioned at the first event of the value.
+     * @param gen Target generator.
+     * @param key Name of the value in enclosing object.
+     * @param first First event of the value.
+     */
+    private static void copy(
+        final JsonParser parser, final JsonGenerator gen, final String key,
+        final JsonParser.Event first
+    ) {
+        int depth = 0;
+        String name = key;
+        JsonParser.Event event = first;
+        while (true) {
+            if (event == JsonParser.Event.KEY_NAME) {
+                name = parser.getString();
+            } else {
+                if (event == JsonParser.Event.START_OBJECT) {
+                    JsonSplice.start(gen, name, true);
+                    depth += 1;
+                } else if (event == JsonParser.Event.START_ARRAY) {
+                    JsonSplice.start(gen, name, false);
+                    depth += 1;
+                } else if (event == JsonParser.Event.END_OBJECT
+                    || event == JsonParser.Event.END_ARRAY) {
+                    gen.writeEnd();
+                    depth -= 1;
+                } else {
+                    JsonSplice.write(gen, name, JsonSplice.value(parser, event));
+                }
+                name = null;
+                if (depth == 0) {
+                    break;
+                }
+            }
+            event = parser.next();
+        }
+    }
+
+    /**
+     * Skips value in parser.
+     *
+     * @param parser Source parser positioned at the first event of the value.
+     * @param first First event of the value.
+     */
+    private static void skip(final JsonParser parser, final JsonParser.Event first) {
+        if (first == JsonParser.Event.START_OBJECT || first == JsonParser.Event.START_ARRAY) {
+            int depth = 1;
+            while (depth > 0) {
+                final JsonParser.Event event = parser.next();
+                if (event == JsonParser.Event.START_OBJECT
+                    || event == JsonParser.Event.START_ARRAY) {
+                    depth += 1;
+                } else if (event == JsonParser.Event.END_OBJECT
+                    || event == JsonParser.Event.END_ARRAY) {
+                    depth -= 1;
+                }
+            }
+        }
+    }
+
+    /**
+     * Writes start of object or array.
+     *
+     * @param gen Target generator.
+     * @param name Name in enclosing object, null inside array or at top level.
+     * @param object Whether object or array is started.
+     */
+    private static void start(final JsonGenerator gen, final String name, final boolean object) {
+        if (name == null && object) {
+            gen.writeStartObject();
+        } else if (name == null) {
+            gen.writeStartArray();
+        } else if (object) {
+            gen.writeStartObject(name);
+        } else {
+            gen.writeStartArray(name);
+        }
+    }
+
+    /**
+     * Writes scalar value.
+     *
+     * @param gen Target generator.
+     * @param name Name in enclosing object, null inside array.
+     * @param value Value.
+     */
+    private static void write(final JsonGenerator gen, final String name, final JsonValue value) {
+        if (name == null) {
+            gen.write(value);
+        } else {
+            gen.write(name, value);
+        }
+    }
+
+    /**
+     * Reads scalar value parser is positioned at.
+     * Numbers are read as decimals, so they are written back exactly as tree
+     * based writer does.
+     *
+     * @param parser Source parser.
+     * @param event Current event.
+     * @return Scalar value.
+     */
+    private static JsonValue value(final JsonParser parser, final JsonParser.Event event) {
+        final JsonValue value;
+        if (event == JsonParser.Event.VALUE_STRING) {
+            value = Json.createValue(parser.getString());
+        } else if (event == JsonParser.Event.VALUE_NUMBER) {
+            value = Json.createValue(parser.getBigDecimal());
+        } else if (event == JsonParser.Event.VALUE_TRUE) {
+            value = JsonValue.TRUE;
+        } else if (event == JsonParser.Event.VALUE_FALSE) {
+            value = JsonValue.FALSE;
+        } else {
+            value = JsonValue.NULL;
+        }
+        return value;
+    }
+}
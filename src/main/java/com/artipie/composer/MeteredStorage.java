@@ -0,0 +1,154 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2020 artipie.com
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included
+ * in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NON-INFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package com.artipie.composer;
+
+import com.artipie.asto.Content;
+import com.artipie.asto.Key;
+import com.artipie.asto.Storage;
+import java.util.Collection;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionStage;
+import java.util.function.Function;
+
+/**
+ * Storage that counts calls of each storage operation in {@link Metrics}.
+ * Counters are named 'composer.storage.[operation]', like 'composer.storage.value'.
+ *
+ * @since 0.4
+ */
+public final class MeteredStorage implements Storage {
+
+    /**
+     * Counter of exists calls.
+     */
+    private static final String EXISTS = "composer.storage.exists";
+
+    /**
+     * Counter of list calls.
+     */
+    private static final String LIST = "composer.storage.list";
+
+    /**
+     * Counter of save calls.
+     */
+    private static final String SAVE = "composer.storage.save";
+
+    /**
+     * Counter of move calls.
+     */
+    private static final String MOVE = "composer.storage.move";
+
+    /**
+     * Counter of size calls.
+     */
+    private static final String SIZE = "composer.storage.size";
+
+    /**
+     * Counter of value calls.
+     */
+    private static final String VALUE = "composer.storage.value";
+
+    /**
+     * Counter of delete calls.
+     */
+    private static final String DELETE = "composer.storage.delete";
+
+    /**
+     * Counter of exclusively calls.
+     */
+    private static final String EXCLUSIVELY = "composer.storage.exclusively";
+
+    /**
+     * Origin storage.
+     */
+    private final Storage origin;
+
+    /**
+     * Metrics.
+     */
+    private final Metrics metrics;
+
+    /**
+     * Ctor.
+     *
+     * @param origin Origin storage.
+     * @param metrics Metrics to count calls in.
+     */
+    public MeteredStorage(final Storage origin, final Metrics metrics) {
+        this.origin = origin;
+        this.metrics = metrics;
+    }
+
+    @Override
+    public CompletableFuture<Boolean> exists(final Key key) {
+        this.metrics.counter(MeteredStorage.EXISTS, 1);
+        return this.origin.exists(key);
+    }
+
+    @Override
+    public CompletableFuture<Collection<Key>> list(final Key prefix) {
+        this.metrics.counter(MeteredStorage.LIST, 1);
+        return this.origin.list(prefix);
+    }
+
+    @Override
+    public CompletableFuture<Void> save(final Key key, final Content content) {
+        this.metrics.counter(MeteredStorage.SAVE, 1);
+        return this.origin.save(key, content);
+    }
+
+    @Override
+    public CompletableFuture<Void> move(final Key source, final Key destination) {
+        this.metrics.counter(MeteredStorage.MOVE, 1);
+        return this.origin.move(source, destination);
+    }
+
+    @Override
+    public CompletableFuture<Long> size(final Key key) {
+        this.metrics.counter(MeteredStorage.SIZE, 1);
+        return this.origin.size(key);
+    }
+
+    @Override
+    public CompletableFuture<Content> value(final Key key) {
+        this.metrics.counter(MeteredStorage.VALUE, 1);
+        return this.origin.value(key);
+    }
+
+    @Override
+    public CompletableFuture<Void> delete(final Key key) {
+        this.metrics.counter(MeteredStorage.DELETE, 1);
+        return this.origin.delete(key);
+    }
+
+    @Override
+    public <T> CompletionStage<T> exclusively(
+        final Key key, final Function<Storage, CompletionStage<T>> operation
+    ) {
+        this.metrics.counter(MeteredStorage.EXCLUSIVELY, 1);
+        return this.origin.exclusively(
+            key, storage -> operation.apply(new MeteredStorage(storage, this.metrics))
+        );
+    }
+}
@@ -0,0 +1,86 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2020 artipie.com
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included
+ * in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NON-INFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package com.artipie.composer;
+
+/**
+ * Repository metrics.
+ * Metrics are reported with constant names and primitive values, so that
+ * {@link Metrics#NOP} adds no allocations to reporting code.
+ *
+ * @since 0.4
+ */
+public interface Metrics {
+
+    /**
+     * Metrics that are not recorded.
+     */
+    Metrics NOP = new Nop();
+
+    /**
+     * Records duration of operation.
+     *
+     * @param name Timer name.
+     * @param nanos Duration in nanoseconds.
+     */
+    void timer(String name, long nanos);
+
+    /**
+     * Increments counter.
+     *
+     * @param name Counter name.
+     * @param delta Increment.
+     */
+    void counter(String name, long delta);
+
+    /**
+     * Sets current value of gauge.
+     *
+     * @param name Gauge name.
+     * @param value Value.
+     */
+    void gauge(String name, long value);
+
+    /**
+     * Metrics that are not recorded.
+     *
+     * @since 0.4
+     */
+    final class Nop implements Metrics {
+
+        @Override
+        public void timer(final String name, final long nanos) {
+            // metrics are not recorded
+        }
+
+        @Override
+        public void counter(final String name, final long delta) {
+            // metrics are not recorded
+        }
+
+        @Override
+        public void gauge(final String name, final long value) {
+            // metrics are not recorded
+        }
+    }
+}
@@ -25,14 +25,27 @@
 package com.artipie.composer;
 
 import com.artipie.asto.Key;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Set;
 
 /**
  * Name of package consisting of vendor name and package name "[vendor]/[package]".
+ * Vendors which are names of repository directories are reserved, so package files
+ * never clash with provider files, shards, archives or index.
  *
  * @since 0.1
  */
 public final class Name {
 
+    /**
+     * Reserved vendors.
+     */
+    private static final Set<String> RESERVED = Collections.unmodifiableSet(
+        new HashSet<>(Arrays.asList("p", "p2", "dist", ".upload", ".index"))
+    );
+
     /**
      * Name string.
      */
@@ -56,6 +69,26 @@ public final class Name {
         return new Key.From(this.vendorPart(), String.format("%s.json", this.packagePart()));
     }
 
+    /**
+     * Generates key for package Composer v2 metadata in store.
+     *
+     * @return Key for package Composer v2 metadata in store.
+     */
+    public Key p2Key() {
+        return new Key.From(new Key.From("p2"), this.key());
+    }
+
+    /**
+     * Generates key for package Composer v2 metadata of dev versions in store.
+     *
+     * @return Key for package Composer v2 metadata of dev versions in store.
+     */
+    public Key p2DevKey() {
+        return new Key.From(
+            "p2", this.vendorPart(), String.format("%s~dev.json", this.packagePart())
+        );
+    }
+
     /**
      * Generates name string value.
      *
@@ -71,7 +104,13 @@ public final class Name {
      * @return Vendor part of name.
      */
     private String vendorPart() {
-        return this.part(0);
+        final String vendor = this.part(0);
+        if (Name.RESERVED.contains(vendor)) {
+            throw new IllegalStateException(
+                String.format("Invalid name. Vendor '%s' is reserved: '%s'", vendor, this.value)
+            );
+        }
+        return vendor;
     }
 
     /**
@@ -0,0 +1,232 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2020 artipie.com
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included
+ * in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NON-INFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package com.artipie.composer;
+
+import com.artipie.asto.Storage;
+import com.artipie.asto.ext.PublisherAs;
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import javax.json.Json;
+import javax.json.JsonArrayBuilder;
+import javax.json.JsonObject;
+import javax.json.JsonObjectBuilder;
+import javax.json.JsonReader;
+import javax.json.JsonValue;
+
+/**
+ * Package metadata in Composer v2 format ('p2/' files), built from package registry.
+ * Composer v2 lists versions of the package as an array instead of an object
+ * with versions as keys. Minified metadata lists for each version only attributes
+ * changed since the previous version and marks removed attributes with '__unset',
+ * so that unchanged 'require', 'autoload' or 'license' are written once.
+ *
+ * @since 0.4
+ */
+public final class P2Metadata {
+
+    /**
+     * Root attribute value for packages in JSON.
+     */
+    private static final String ATTRIBUTE = "packages";
+
+    /**
+     * Value of attribute removed since previous version in minified metadata.
+     */
+    private static final String UNSET = "__unset";
+
+    /**
+     * Package name.
+     */
+    private final Name name;
+
+    /**
+     * Package registry.
+     */
+    private final Packages packages;
+
+    /**
+     * Minify metadata.
+     */
+    private final boolean minified;
+
+    /**
+     * Ctor.
+     *
+     * @param name Package name.
+     * @param packages Package registry.
+     */
+    public P2Metadata(final Name name, final Packages packages) {
+        this(name, packages, false);
+    }
+
+    /**
+     * Ctor.
+     *
+     * @param name Package name.
+     * @param packages Package registry.
+     * @param minified Minify metadata.
+     */
+    public P2Metadata(final Name name, final Packages packages, final boolean minified) {
+        this.name = name;
+        this.packages = packages;
+        this.minified = minified;
+    }
+
+    /**
+     * Saves package metadata to storage.
+     * Stable versions are saved to 'p2/[vendor]/[package].json' and dev versions
+     * to 'p2/[vendor]/[package]~dev.json', so that clients requiring stable versions
+     * do not download dev versions. Dev versions file is saved only if there are
+     * dev versions.
+     *
+     * @param storage Storage to use for saving.
+     * @return Completion of saving.
+     */
+    public CompletableFuture<Void> save(final Storage storage) {
+        return new PublisherAs(this.packages.content()).bytes().thenCompose(
+            bytes -> {
+                final JsonObjectBuilder stable = Json.createObjectBuilder();
+                final JsonObjectBuilder dev = Json.createObjectBuilder();
+                this.versions(bytes).forEach(
+                    (version, value) -> {
+                        if (P2Metadata.dev(version)) {
+                            dev.add(version, value);
+                        } else {
+                            stable.add(version, value);
+                        }
+                    }
+                );
+                final JsonObject devs = dev.build();
+                final IndexStorage index = new IndexStorage(storage);
+                final CompletableFuture<Void> res = index.save(
+                    this.name.p2Key(), this.metadata(stable.build())
+                );
+                final CompletableFuture<Void> combined;
+                if (devs.isEmpty()) {
+                    combined = res;
+                } else {
+                    combined = res.thenCombine(
+                        index.save(this.name.p2DevKey(), this.metadata(devs)),
+                        (first, second) -> first
+                    );
+                }
+                return combined;
+            }
+        ).toCompletableFuture();
+    }
+
+    /**
+     * Reads versions of package from package registry.
+     *
+     * @param registry Package registry content.
+     * @return Versions of package by version, empty if package is not listed.
+     */
+    private JsonObject versions(final byte[] registry) {
+        final JsonObject json;
+        try (JsonReader reader = Json.createReader(new ByteArrayInputStream(registry))) {
+            json = reader.readObject();
+        }
+        final String pname = this.name.string();
+        final JsonObject packages = json.getJsonObject(P2Metadata.ATTRIBUTE);
+        final JsonObject res;
+        if (packages != null && packages.containsKey(pname) && !packages.isNull(pname)) {
+            res = packages.getJsonObject(pname);
+        } else {
+            res = JsonValue.EMPTY_JSON_OBJECT;
+        }
+        return res;
+    }
+
+    /**
+     * Converts versions of package to Composer v2 metadata.
+     *
+     * @param source Versions of package by version.
+     * @return Metadata content.
+     */
+    private byte[] metadata(final JsonObject source) {
+        final JsonArrayBuilder versions = Json.createArrayBuilder();
+        final JsonObjectBuilder res = Json.createObjectBuilder();
+        if (this.minified) {
+            P2Metadata.minify(source, versions);
+            res.add("minified", "composer/2.0");
+        } else {
+            source.values().forEach(versions::add);
+        }
+        return res
+            .add(
+                P2Metadata.ATTRIBUTE,
+                Json.createObjectBuilder().add(this.name.string(), versions)
+            )
+            .build()
+            .toString()
+            .getBytes(StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Checks whether version is dev version, like branch 'dev-master' or '1.x-dev'.
+     *
+     * @param version Version.
+     * @return True if version is dev version.
+     */
+    private static boolean dev(final String version) {
+        return "dev".equals(new Version(version).stability());
+    }
+
+    /**
+     * Adds versions minified the way Composer expands them back: each version
+     * inherits attributes of the previous expanded version.
+     *
+     * @param source Versions of package by version.
+     * @param versions Versions array to add minified versions to.
+     */
+    private static void minify(final JsonObject source, final JsonArrayBuilder versions) {
+        final Map<String, JsonValue> known = new HashMap<>();
+        for (final JsonValue value : source.values()) {
+            if (value.getValueType() == JsonValue.ValueType.OBJECT) {
+                final JsonObject version = value.asJsonObject();
+                final JsonObjectBuilder dumped = Json.createObjectBuilder();
+                for (final Map.Entry<String, JsonValue> attr : version.entrySet()) {
+                    if (!attr.getValue().equals(known.put(attr.getKey(), attr.getValue()))) {
+                        dumped.add(attr.getKey(), attr.getValue());
+                    }
+                }
+                final Iterator<String> keys = known.keySet().iterator();
+                while (keys.hasNext()) {
+                    final String key = keys.next();
+                    if (!version.containsKey(key)) {
+                        dumped.add(key, P2Metadata.UNSET);
+                        keys.remove();
+                    }
+                }
+                versions.add(dumped);
+            } else {
+                versions.add(value);
+            }
+        }
+    }
+}
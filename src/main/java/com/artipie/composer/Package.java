@@ -46,6 +46,15 @@ public interface Package {
      */
     String version();
 
+    /**
+     * Version of package normalized and comparable by Composer rules.
+     *
+     * @return Package version.
+     */
+    default Version versionKey() {
+        return new Version(this.version());
+    }
+
     /**
      * Reads package content as JSON object.
      *
@@ -0,0 +1,839 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2020 artipie.com
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included
+ * in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NON-INFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package com.artipie.composer;
+
+import com.artipie.asto.Content;
+import com.artipie.asto.Key;
+import com.artipie.asto.Storage;
+import com.artipie.asto.ext.PublisherAs;
+import com.google.common.hash.Hashing;
+import com.google.common.io.ByteSource;
+import hu.akarnokd.rxjava2.interop.CompletableInterop;
+import hu.akarnokd.rxjava2.interop.SingleInterop;
+import io.reactivex.Flowable;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.util.AbstractMap;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionStage;
+import java.util.function.BiConsumer;
+import java.util.regex.Pattern;
+import javax.json.Json;
+import javax.json.JsonObject;
+import javax.json.JsonReader;
+import javax.json.JsonValue;
+
+/**
+ * In-memory index of package versions.
+ * Names and versions are interned, documents of all versions of a package are kept
+ * serialized in a single byte array addressed by offsets, so that index takes
+ * about the size of package metadata files. Metadata files are rendered from index
+ * without reading storage.
+ * Index is persisted as binary snapshot tagged with {@link Etag} of root
+ * 'packages.json' it was taken with, followed by chain of small deltas: after each
+ * root update only added versions are written, tagged with root validators before and
+ * after the update. Snapshot is rewritten and deltas are removed once chain reaches
+ * {@link #COMPACTION} deltas. Snapshot and deltas are loaded instead of scanning
+ * metadata files if chain leads to current root, i.e. index is not diverged
+ * from repository.
+ *
+ * @since 0.4
+ */
+final class PackageIndex {
+
+    /**
+     * Binary snapshot location.
+     */
+    static final Key SNAPSHOT = new Key.From(".index", "packages.idx");
+
+    /**
+     * Snapshot format marker.
+     */
+    private static final int MAGIC = 0x43504932;
+
+    /**
+     * Delta format marker.
+     */
+    private static final int DELTA = 0x43504444;
+
+    /**
+     * Maximum number of deltas written after snapshot.
+     */
+    private static final int COMPACTION = 64;
+
+    /**
+     * Delta location prefix, delta is named by hash of root validator it follows.
+     */
+    private static final String DELTAS = ".index/delta-";
+
+    /**
+     * Maximum number of metadata files read at once while scanning storage.
+     */
+    private static final int CONCURRENCY = 16;
+
+    /**
+     * Pattern of per-package metadata key.
+     */
+    private static final Pattern METADATA = Pattern.compile(
+        "^(?!p/|p2/|dist/|\\.upload/)[^/]+/[^/$]+\\.json$"
+    );
+
+    /**
+     * Versions by package name.
+     */
+    private final Map<String, Versions> packages;
+
+    /**
+     * Validator of root 'packages.json' persisted index is consistent with,
+     * empty if index is not persisted.
+     */
+    private String persisted;
+
+    /**
+     * Number of deltas persisted after snapshot.
+     */
+    private int deltas;
+
+    /**
+     * Ctor.
+     */
+    PackageIndex() {
+        this.packages = new LinkedHashMap<>();
+        this.persisted = "";
+    }
+
+    /**
+     * Loads index from snapshot and deltas if they lead to current root 'packages.json',
+     * otherwise from package metadata files in storage.
+     *
+     * @param storage Storage.
+     * @return Loaded index.
+     */
+    static CompletionStage<PackageIndex> load(final Storage storage) {
+        final IndexStorage index = new IndexStorage(storage);
+        return index.etag(AstoRepository.ALL_PACKAGES).thenCompose(
+            etag -> etag.map(
+                tag -> PackageIndex.bytes(index, PackageIndex.SNAPSHOT).thenCompose(
+                    snapshot -> snapshot.flatMap(PackageIndex::restore).map(
+                        restored -> PackageIndex.follow(index, restored, tag.value())
+                    ).orElseGet(() -> CompletableFuture.completedFuture(Optional.empty()))
+                )
+            ).orElseGet(() -> CompletableFuture.completedFuture(Optional.empty()))
+        ).thenCompose(
+            restored -> restored.<CompletionStage<PackageIndex>>map(
+                CompletableFuture::completedFuture
+            ).orElseGet(() -> PackageIndex.scan(storage))
+        );
+    }
+
+    /**
+     * Restores index from binary snapshot.
+     *
+     * @param snapshot Snapshot content.
+     * @param tag Current validator of root 'packages.json'.
+     * @return Index, empty if snapshot is broken or was taken with other root.
+     */
+    static Optional<PackageIndex> restore(final byte[] snapshot, final String tag) {
+        return PackageIndex.restore(snapshot).filter(index -> index.persisted.equals(tag));
+    }
+
+    /**
+     * Persists index after update of root 'packages.json': writes delta with added
+     * packages, or rewrites snapshot and removes deltas if index was not persisted yet
+     * or chain of deltas is too long.
+     * Should be called after each root update, in order of updates.
+     *
+     * @param storage Storage.
+     * @param tag Validator of updated root 'packages.json'.
+     * @param packs Packages added with the update.
+     * @return Completion of persisting.
+     */
+    CompletionStage<Void> persist(
+        final Storage storage, final String tag, final Collection<? extends Package> packs
+    ) {
+        final Map.Entry<Key, byte[]> next = this.next(tag, packs);
+        final CompletionStage<Void> saved = storage.save(
+            next.getKey(), new Content.From(next.getValue())
+        );
+        final CompletionStage<Void> res;
+        if (next.getKey().equals(PackageIndex.SNAPSHOT)) {
+            res = saved.thenCompose(nothing -> PackageIndex.prune(storage));
+        } else {
+            res = saved;
+        }
+        return res.whenComplete(
+            (nothing, err) -> {
+                if (err != null) {
+                    this.diverged();
+                }
+            }
+        );
+    }
+
+    /**
+     * Restores index from binary snapshot taken with any root.
+     *
+     * @param snapshot Snapshot content.
+     * @return Index, empty if snapshot is broken.
+     */
+    private static Optional<PackageIndex> restore(final byte[] snapshot) {
+        Optional<PackageIndex> res = Optional.empty();
+        try (DataInputStream in = new DataInputStream(new ByteArrayInputStream(snapshot))) {
+            if (in.readInt() == PackageIndex.MAGIC) {
+                final PackageIndex index = new PackageIndex();
+                index.persisted = in.readUTF();
+                final int count = in.readInt();
+                for (int pkg = 0; pkg < count; pkg += 1) {
+                    final String name = in.readUTF().intern();
+                    final int size = in.readInt();
+                    final Version[] versions = new Version[Math.max(size, 1)];
+                    final int[] ends = new int[versions.length];
+                    for (int ver = 0; ver < size; ver += 1) {
+                        versions[ver] = new Version(in.readUTF().intern());
+                        ends[ver] = in.readInt();
+                    }
+                    final byte[] docs = new byte[in.readInt()];
+                    in.readFully(docs);
+                    index.packages.put(name, new Versions(versions, ends, docs, size));
+                }
+                res = Optional.of(index);
+            }
+        } catch (final IOException ex) {
+            res = Optional.empty();
+        }
+        return res;
+    }
+
+    /**
+     * Takes binary snapshot of index.
+     *
+     * @param tag Validator of root 'packages.json' index is consistent with.
+     * @return Snapshot content.
+     */
+    synchronized byte[] snapshot(final String tag) {
+        final ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (DataOutputStream out = new DataOutputStream(bytes)) {
+            out.writeInt(PackageIndex.MAGIC);
+            out.writeUTF(tag);
+            out.writeInt(this.packages.size());
+            for (final Map.Entry<String, Versions> entry : this.packages.entrySet()) {
+                out.writeUTF(entry.getKey());
+                entry.getValue().snapshot(out);
+            }
+        } catch (final IOException ex) {
+            throw new UncheckedIOException(ex);
+        }
+        return bytes.toByteArray();
+    }
+
+    /**
+     * Next persisted state of index: snapshot or delta with added packages.
+     *
+     * @param tag Validator of updated root 'packages.json'.
+     * @param packs Packages added with the update.
+     * @return Location and content of snapshot or delta.
+     */
+    private synchronized Map.Entry<Key, byte[]> next(
+        final String tag, final Collection<? extends Package> packs
+    ) {
+        final Map.Entry<Key, byte[]> res;
+        if (this.persisted.isEmpty() || this.deltas >= PackageIndex.COMPACTION) {
+            res = new AbstractMap.SimpleImmutableEntry<>(
+                PackageIndex.SNAPSHOT, this.snapshot(tag)
+            );
+            this.deltas = 0;
+        } else {
+            final ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+            try (DataOutputStream out = new DataOutputStream(bytes)) {
+                out.writeInt(PackageIndex.DELTA);
+                out.writeUTF(this.persisted);
+                out.writeUTF(tag);
+                out.writeInt(packs.size());
+                for (final Package pack : packs) {
+                    out.writeUTF(pack.name().string());
+                    out.writeUTF(pack.versionKey().string());
+                    final byte[] doc = pack.json().toString().getBytes(StandardCharsets.UTF_8);
+                    out.writeInt(doc.length);
+                    out.write(doc);
+                }
+            } catch (final IOException ex) {
+                throw new UncheckedIOException(ex);
+            }
+            res = new AbstractMap.SimpleImmutableEntry<>(
+                PackageIndex.delta(this.persisted), bytes.toByteArray()
+            );
+            this.deltas += 1;
+        }
+        this.persisted = tag;
+        return res;
+    }
+
+    /**
+     * Applies delta to index restored from snapshot and previous deltas.
+     *
+     * @param delta Delta content.
+     * @return True if delta follows current state of index and is applied.
+     */
+    private synchronized boolean apply(final byte[] delta) {
+        boolean res;
+        try (DataInputStream in = new DataInputStream(new ByteArrayInputStream(delta))) {
+            if (in.readInt() == PackageIndex.DELTA && in.readUTF().equals(this.persisted)) {
+                final String tag = in.readUTF();
+                final int count = in.readInt();
+                for (int pkg = 0; pkg < count; pkg += 1) {
+                    final String name = in.readUTF();
+                    final Version version = new Version(in.readUTF().intern());
+                    final byte[] doc = new byte[in.readInt()];
+                    in.readFully(doc);
+                    this.put(name, version, doc);
+                }
+                this.persisted = tag;
+                this.deltas += 1;
+                res = true;
+            } else {
+                res = false;
+            }
+        } catch (final IOException ex) {
+            res = false;
+        }
+        return res;
+    }
+
+    /**
+     * Marks index as not persisted, so snapshot is rewritten on next update.
+     */
+    private synchronized void diverged() {
+        this.persisted = "";
+    }
+
+    /**
+     * Applies chain of deltas to index until it is consistent with root 'packages.json'.
+     *
+     * @param storage Storage.
+     * @param index Index restored from snapshot and previous deltas.
+     * @param tag Current validator of root 'packages.json'.
+     * @return Index, empty if chain does not lead to current root.
+     */
+    private static CompletionStage<Optional<PackageIndex>> follow(
+        final IndexStorage storage, final PackageIndex index, final String tag
+    ) {
+        final CompletionStage<Optional<PackageIndex>> res;
+        if (index.persisted.equals(tag)) {
+            res = CompletableFuture.completedFuture(Optional.of(index));
+        } else if (index.deltas >= PackageIndex.COMPACTION) {
+            res = CompletableFuture.completedFuture(Optional.empty());
+        } else {
+            res = PackageIndex.bytes(storage, PackageIndex.delta(index.persisted)).thenCompose(
+                delta -> {
+                    final CompletionStage<Optional<PackageIndex>> next;
+                    if (delta.isPresent() && index.apply(delta.get())) {
+                        next = PackageIndex.follow(storage, index, tag);
+                    } else {
+                        next = CompletableFuture.completedFuture(Optional.empty());
+                    }
+                    return next;
+                }
+            );
+        }
+        return res;
+    }
+
+    /**
+     * Removes all deltas, they are included in rewritten snapshot.
+     *
+     * @param storage Storage.
+     * @return Completion of removal.
+     */
+    private static CompletionStage<Void> prune(final Storage storage) {
+        return storage.list(new Key.From(".index")).thenCompose(
+            keys -> CompletableFuture.allOf(
+                keys.stream()
+                    .filter(key -> key.string().startsWith(PackageIndex.DELTAS))
+                    .map(storage::delete)
+                    .toArray(CompletableFuture<?>[]::new)
+            )
+        );
+    }
+
+    /**
+     * Location of delta following root 'packages.json' state.
+     *
+     * @param tag Validator of root 'packages.json' delta follows.
+     * @return Delta location.
+     */
+    private static Key delta(final String tag) {
+        return new Key.From(
+            String.format(
+                "%s%s.idx", PackageIndex.DELTAS,
+                Hashing.sha1().hashString(tag, StandardCharsets.UTF_8).toString()
+            )
+        );
+    }
+
+    /**
+     * Loads index from package metadata files in storage.
+     * At most {@link #CONCURRENCY} files are read at once, files are loaded
+     * in the order they are listed, as soon as they are read.
+     *
+     * @param storage Storage.
+     * @return Loaded index.
+     */
+    private static CompletionStage<PackageIndex> scan(final Storage storage) {
+        final IndexStorage index = new IndexStorage(storage);
+        return storage.list(Key.ROOT).thenCompose(
+            keys -> {
+                final PackageIndex res = new PackageIndex();
+                return Flowable.fromIterable(keys)
+                    .filter(key -> PackageIndex.METADATA.matcher(key.string()).matches())
+                    .concatMapEager(
+                        key -> SingleInterop.fromFuture(PackageIndex.bytes(index, key))
+                            .toFlowable(),
+                        PackageIndex.CONCURRENCY, 1
+                    )
+                    .doOnNext(file -> file.ifPresent(res::load))
+                    .ignoreElements()
+                    .to(CompletableInterop.<Void>await())
+                    .thenApply(nothing -> res);
+            }
+        );
+    }
+
+    /**
+     * Reads file content from storage.
+     *
+     * @param storage Storage.
+     * @param key File location.
+     * @return File content, empty if not found.
+     */
+    private static CompletionStage<Optional<byte[]>> bytes(
+        final IndexStorage storage, final Key key
+    ) {
+        return storage.value(key).thenCompose(
+            opt -> opt.map(
+                content -> new PublisherAs(content).bytes().thenApply(Optional::of)
+            ).orElseGet(() -> CompletableFuture.completedFuture(Optional.empty()))
+        );
+    }
+
+    /**
+     * Adds packages to index, existing versions are replaced.
+     * All packages are read before index is changed, so index is not changed
+     * if any package is invalid.
+     *
+     * @param packs Packages.
+     * @return Rollback of the addition: it removes added versions and restores replaced
+     *  documents, versions replaced again after the addition are kept.
+     */
+    synchronized Runnable addAll(final Collection<? extends Package> packs) {
+        final List<String> names = new ArrayList<>(packs.size());
+        final List<Version> versions = new ArrayList<>(packs.size());
+        final List<byte[]> docs = new ArrayList<>(packs.size());
+        for (final Package pack : packs) {
+            names.add(pack.name().string());
+            versions.add(pack.versionKey());
+            docs.add(pack.json().toString().getBytes(StandardCharsets.UTF_8));
+        }
+        final List<Runnable> undo = new ArrayList<>(packs.size());
+        for (int idx = 0; idx < names.size(); idx += 1) {
+            final String name = names.get(idx);
+            final Version version = versions.get(idx);
+            final byte[] doc = docs.get(idx);
+            final Optional<byte[]> previous = Optional.ofNullable(this.packages.get(name))
+                .flatMap(existing -> existing.doc(version));
+            this.put(name, version, doc);
+            undo.add(() -> this.revert(name, version, doc, previous));
+        }
+        Collections.reverse(undo);
+        return () -> this.rollback(undo);
+    }
+
+    /**
+     * Renders packages registry with all versions of package.
+     *
+     * @param name Package name.
+     * @return Packages registry.
+     */
+    synchronized ByteSource render(final Name name) {
+        final ByteArrayOutputStream out = new ByteArrayOutputStream();
+        PackageIndex.write(out, "{\"packages\":{");
+        final Versions versions = this.packages.get(name.string());
+        if (versions != null) {
+            versions.write(out, name.string());
+        }
+        PackageIndex.write(out, "}}");
+        return ByteSource.wrap(out.toByteArray());
+    }
+
+    /**
+     * Renders packages registry with all versions of all packages.
+     *
+     * @return Packages registry.
+     */
+    ByteSource render() {
+        return this.render("");
+    }
+
+    /**
+     * Renders packages registry with all versions of all packages of the same vendor
+     * as package.
+     *
+     * @param name Package name.
+     * @return Packages registry.
+     */
+    ByteSource vendor(final Name name) {
+        final String value = name.string();
+        return this.render(value.substring(0, value.indexOf('/') + 1));
+    }
+
+    /**
+     * Renders packages registry with all versions of packages starting with prefix.
+     *
+     * @param prefix Package name prefix.
+     * @return Packages registry.
+     */
+    private synchronized ByteSource render(final String prefix) {
+        final ByteArrayOutputStream out = new ByteArrayOutputStream();
+        PackageIndex.write(out, "{\"packages\":{");
+        boolean first = true;
+        for (final Map.Entry<String, Versions> entry : this.packages.entrySet()) {
+            if (entry.getKey().startsWith(prefix)) {
+                if (!first) {
+                    out.write(',');
+                }
+                first = false;
+                entry.getValue().write(out, entry.getKey());
+            }
+        }
+        PackageIndex.write(out, "}}");
+        return ByteSource.wrap(out.toByteArray());
+    }
+
+    /**
+     * Passes latest version document of each package to consumer.
+     *
+     * @param consumer Consumer of package name and version document.
+     */
+    synchronized void latest(final BiConsumer<String, byte[]> consumer) {
+        this.packages.forEach((name, versions) -> consumer.accept(name, versions.last()));
+    }
+
+    /**
+     * Adds versions from package metadata file.
+     *
+     * @param bytes Metadata file content.
+     */
+    private synchronized void load(final byte[] bytes) {
+        final JsonObject json;
+        try (JsonReader reader = Json.createReader(new ByteArrayInputStream(bytes))) {
+            json = reader.readObject();
+        }
+        final JsonObject packs = json.getJsonObject("packages");
+        if (packs != null) {
+            packs.forEach(
+                (name, versions) -> {
+                    if (versions.getValueType() == JsonValue.ValueType.OBJECT) {
+                        versions.asJsonObject().forEach(
+                            (version, doc) -> this.put(
+                                name, new Version(version.intern()),
+                                doc.toString().getBytes(StandardCharsets.UTF_8)
+                            )
+                        );
+                    }
+                }
+            );
+        }
+    }
+
+    /**
+     * Puts version document to index.
+     *
+     * @param name Package name.
+     * @param version Version.
+     * @param doc Version document.
+     */
+    private void put(final String name, final Version version, final byte[] doc) {
+        this.packages.computeIfAbsent(name.intern(), key -> new Versions())
+            .put(version, doc);
+    }
+
+    /**
+     * Rolls back addition of packages.
+     *
+     * @param undo Reverts of added versions in reverse order of addition.
+     */
+    private synchronized void rollback(final List<Runnable> undo) {
+        undo.forEach(Runnable::run);
+    }
+
+    /**
+     * Reverts added version document if it was not replaced since it was added.
+     *
+     * @param name Package name.
+     * @param version Version.
+     * @param doc Added document.
+     * @param previous Replaced document, empty if version was added.
+     */
+    private void revert(
+        final String name, final Version version, final byte[] doc,
+        final Optional<byte[]> previous
+    ) {
+        final Versions versions = this.packages.get(name);
+        if (versions != null
+            && versions.doc(version).map(current -> Arrays.equals(current, doc)).orElse(false)) {
+            if (previous.isPresent()) {
+                versions.put(version, previous.get());
+            } else {
+                versions.remove(version);
+                if (versions.empty()) {
+                    this.packages.remove(name);
+                }
+            }
+        }
+    }
+
+    /**
+     * Writes ASCII text to stream.
+     *
+     * @param out Output stream.
+     * @param text Text.
+     */
+    private static void write(final ByteArrayOutputStream out, final String text) {
+        final byte[] bytes = text.getBytes(StandardCharsets.UTF_8);
+        out.write(bytes, 0, bytes.length);
+    }
+
+    /**
+     * Versions of a package, documents are stored one after another in single array.
+     *
+     * @since 0.4
+     */
+    private static final class Versions {
+
+        /**
+         * Versions in ascending order.
+         */
+        private Version[] names;
+
+        /**
+         * End offsets of version documents.
+         */
+        private int[] ends;
+
+        /**
+         * Version documents, array might have spare capacity at the end.
+         */
+        private byte[] docs;
+
+        /**
+         * Number of versions.
+         */
+        private int size;
+
+        /**
+         * Ctor.
+         */
+        Versions() {
+            this(new Version[1], new int[1], new byte[0], 0);
+        }
+
+        /**
+         * Ctor.
+         *
+         * @param names Versions in ascending order.
+         * @param ends End offsets of version documents.
+         * @param docs Version documents.
+         * @param size Number of versions.
+         * @checkstyle ParameterNumberCheck (5 lines)
+         */
+        Versions(final Version[] names, final int[] ends, final byte[] docs, final int size) {
+            this.names = names;
+            this.ends = ends;
+            this.docs = docs;
+            this.size = size;
+        }
+
+        /**
+         * Puts version document keeping versions in ascending order, existing document
+         * of version is replaced.
+         *
+         * @param version Version.
+         * @param doc Version document.
+         */
+        void put(final Version version, final byte[] doc) {
+            int pos = Arrays.binarySearch(this.names, 0, this.size, version);
+            if (pos < 0) {
+                pos = -pos - 1;
+                if (this.size == this.names.length) {
+                    this.names = Arrays.copyOf(this.names, this.size * 2);
+                    this.ends = Arrays.copyOf(this.ends, this.size * 2);
+                }
+                System.arraycopy(this.names, pos, this.names, pos + 1, this.size - pos);
+                System.arraycopy(this.ends, pos, this.ends, pos + 1, this.size - pos);
+                this.names[pos] = version;
+                this.ends[pos] = this.end(pos - 1);
+                this.size += 1;
+            }
+            final int start = this.end(pos - 1);
+            final int old = this.ends[pos];
+            final int length = this.end(this.size - 1);
+            final int delta = doc.length - (old - start);
+            if (length + delta > this.docs.length) {
+                this.docs = Arrays.copyOf(
+                    this.docs, Math.max(this.docs.length * 2, length + delta)
+                );
+            }
+            System.arraycopy(this.docs, old, this.docs, old + delta, length - old);
+            System.arraycopy(doc, 0, this.docs, start, doc.length);
+            for (int idx = pos; idx < this.size; idx += 1) {
+                this.ends[idx] += delta;
+            }
+        }
+
+        /**
+         * Document of version.
+         *
+         * @param version Version.
+         * @return Version document, empty if there is no such version.
+         */
+        Optional<byte[]> doc(final Version version) {
+            final int pos = Arrays.binarySearch(this.names, 0, this.size, version);
+            final Optional<byte[]> res;
+            if (pos < 0) {
+                res = Optional.empty();
+            } else {
+                res = Optional.of(Arrays.copyOfRange(this.docs, this.end(pos - 1), this.ends[pos]));
+            }
+            return res;
+        }
+
+        /**
+         * Removes version with its document.
+         *
+         * @param version Version.
+         */
+        void remove(final Version version) {
+            final int pos = Arrays.binarySearch(this.names, 0, this.size, version);
+            if (pos >= 0) {
+                final int start = this.end(pos - 1);
+                final int old = this.ends[pos];
+                final int length = this.end(this.size - 1);
+                System.arraycopy(this.docs, old, this.docs, start, length - old);
+                for (int idx = pos + 1; idx < this.size; idx += 1) {
+                    this.names[idx - 1] = this.names[idx];
+                    this.ends[idx - 1] = this.ends[idx] - (old - start);
+                }
+                this.size -= 1;
+                this.names[this.size] = null;
+            }
+        }
+
+        /**
+         * Whether there are no versions.
+         *
+         * @return True if there are no versions.
+         */
+        boolean empty() {
+            return this.size == 0;
+        }
+
+        /**
+         * Writes package with all its versions as JSON object member.
+         *
+         * @param out Output stream.
+         * @param name Package name.
+         */
+        void write(final ByteArrayOutputStream out, final String name) {
+            PackageIndex.write(out, Json.createValue(name).toString());
+            out.write(':');
+            out.write('{');
+            for (int idx = 0; idx < this.size; idx += 1) {
+                if (idx > 0) {
+                    out.write(',');
+                }
+                PackageIndex.write(
+                    out, Json.createValue(this.names[idx].string()).toString()
+                );
+                out.write(':');
+                final int start = this.end(idx - 1);
+                out.write(this.docs, start, this.ends[idx] - start);
+            }
+            out.write('}');
+        }
+
+        /**
+         * Latest version document.
+         *
+         * @return Version document.
+         */
+        byte[] last() {
+            return Arrays.copyOfRange(this.docs, this.end(this.size - 2), this.end(this.size - 1));
+        }
+
+        /**
+         * Writes versions to binary snapshot.
+         *
+         * @param out Snapshot output.
+         * @throws IOException If failed to write.
+         */
+        void snapshot(final DataOutputStream out) throws IOException {
+            out.writeInt(this.size);
+            for (int idx = 0; idx < this.size; idx += 1) {
+                out.writeUTF(this.names[idx].string());
+                out.writeInt(this.ends[idx]);
+            }
+            final int length = this.end(this.size - 1);
+            out.writeInt(length);
+            out.write(this.docs, 0, length);
+        }
+
+        /**
+         * End offset of version document.
+         *
+         * @param pos Version position, -1 for start of documents.
+         * @return End offset.
+         */
+        private int end(final int pos) {
+            final int res;
+            if (pos < 0) {
+                res = 0;
+            } else {
+                res = this.ends[pos];
+            }
+            return res;
+        }
+    }
+}
@@ -27,6 +27,7 @@ package com.artipie.composer;
 import com.artipie.asto.Content;
 import com.artipie.asto.Key;
 import com.artipie.asto.Storage;
+import java.util.Collection;
 import java.util.concurrent.CompletableFuture;
 
 /**
@@ -43,6 +44,14 @@ public interface Packages {
      */
     Packages add(Package pack);
 
+    /**
+     * Add several packages at once.
+     *
+     * @param packs Packages.
+     * @return Updated packages.
+     */
+    Packages addAll(Collection<? extends Package> packs);
+
     /**
      * Saves packages registry binary content to storage.
      *
@@ -58,4 +67,11 @@ public interface Packages {
      * @return Content.
      */
     Content content();
+
+    /**
+     * Size of packages registry binary content.
+     *
+     * @return Size in bytes.
+     */
+    long size();
 }
@@ -0,0 +1,402 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2020 artipie.com
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included
+ * in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NON-INFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package com.artipie.composer;
+
+import com.artipie.asto.Content;
+import com.artipie.asto.Key;
+import com.artipie.asto.Storage;
+import com.artipie.asto.ext.PublisherAs;
+import com.google.common.hash.Hashing;
+import com.google.common.io.ByteSource;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.util.AbstractMap;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionStage;
+import java.util.stream.Collectors;
+import javax.json.Json;
+import javax.json.JsonObject;
+import javax.json.JsonObjectBuilder;
+import javax.json.JsonReader;
+import javax.json.JsonValue;
+import javax.json.stream.JsonParser;
+
+/**
+ * Composer v1 provider metadata. Each package version set is stored in immutable file
+ * named by SHA-256 of its content, packages are listed in provider files split into
+ * buckets, each provider file is also named by SHA-256 of its content. Root 'packages.json'
+ * refers to provider files with 'provider-includes' attribute, so adding a package
+ * rewrites only provider file of the bucket containing the package.
+ * Copies root no longer refers to are removed with {@link #prune(Optional, JsonObject)}.
+ *
+ * @since 0.4
+ */
+public final class Providers {
+
+    /**
+     * Root attribute for URL of package files.
+     */
+    private static final String URL = "providers-url";
+
+    /**
+     * Root attribute for provider files.
+     */
+    private static final String INCLUDES = "provider-includes";
+
+    /**
+     * Provider file attribute for packages.
+     */
+    private static final String PROVIDERS = "providers";
+
+    /**
+     * Hash attribute.
+     */
+    private static final String SHA = "sha256";
+
+    /**
+     * Hash placeholder.
+     */
+    private static final String HASH = "%hash%";
+
+    /**
+     * Number of provider files packages are split into.
+     */
+    private static final int BUCKETS = 16;
+
+    /**
+     * Storage.
+     */
+    private final Storage storage;
+
+    /**
+     * Ctor.
+     *
+     * @param storage Storage.
+     */
+    public Providers(final Storage storage) {
+        this.storage = storage;
+    }
+
+    /**
+     * Writes provider files for updated packages.
+     *
+     * @param root Current root 'packages.json' content, might be empty.
+     * @param names Names of updated packages.
+     * @return Root attributes referring to provider files.
+     */
+    public CompletionStage<JsonObject> update(
+        final Optional<ByteSource> root, final Collection<Name> names
+    ) {
+        final JsonObject includes = root.map(Providers::includes)
+            .orElse(JsonValue.EMPTY_JSON_OBJECT);
+        return Stages.all(
+            names.stream().map(Name::string).distinct().map(Name::new)
+                .map(this::hashed)
+                .collect(Collectors.toList())
+        ).thenCompose(
+            hashes -> Stages.all(
+                hashes.stream()
+                    .filter(Optional::isPresent)
+                    .map(Optional::get)
+                    .collect(Collectors.groupingBy(entry -> Providers.bucket(entry.getKey())))
+                    .entrySet().stream()
+                    .map(bucket -> this.bucket(includes, bucket.getKey(), bucket.getValue()))
+                    .collect(Collectors.toList())
+            )
+        ).thenApply(
+            buckets -> {
+                final JsonObjectBuilder updated = Json.createObjectBuilder(includes);
+                buckets.forEach(
+                    bucket -> updated.add(
+                        bucket.getKey(),
+                        Json.createObjectBuilder().add(Providers.SHA, bucket.getValue())
+                    )
+                );
+                return Json.createObjectBuilder()
+                    .add(Providers.URL, String.format("/p/%%package%%$%s.json", Providers.HASH))
+                    .add(Providers.INCLUDES, updated)
+                    .build();
+            }
+        );
+    }
+
+    /**
+     * Deletes provider files and package files previous root refers to and updated root
+     * does not. Should be called after updated root is saved, clients which read previous
+     * root should read it again if these files are not found.
+     *
+     * @param previous Previous root 'packages.json' content, might be empty.
+     * @param updated Root attributes returned by {@link #update(Optional, Collection)}.
+     * @return Completion of deletion.
+     */
+    public CompletionStage<Void> prune(
+        final Optional<ByteSource> previous, final JsonObject updated
+    ) {
+        final JsonObject before = previous.map(Providers::includes)
+            .orElse(JsonValue.EMPTY_JSON_OBJECT);
+        final JsonObject after = updated.getJsonObject(Providers.INCLUDES);
+        return Stages.all(
+            before.keySet().stream()
+                .filter(
+                    bucket -> after.containsKey(bucket)
+                        && !Providers.sha(before, bucket).equals(Providers.sha(after, bucket))
+                ).map(
+                    bucket -> this.stale(
+                        bucket, Providers.sha(before, bucket), Providers.sha(after, bucket)
+                    )
+                ).collect(Collectors.toList())
+        ).thenCompose(
+            stale -> Stages.all(
+                stale.stream()
+                    .flatMap(List::stream)
+                    .map(key -> new IndexStorage(this.storage).delete(key))
+                    .collect(Collectors.toList())
+            )
+        ).thenApply(nothing -> null);
+    }
+
+    /**
+     * Writes immutable copy of package file named by hash of its content.
+     *
+     * @param name Package name.
+     * @return Package name and hash of its file, empty if package file not found.
+     */
+    private CompletionStage<Optional<Map.Entry<String, String>>> hashed(final Name name) {
+        return this.storage.exists(name.key()).thenCompose(
+            exists -> {
+                final CompletionStage<Optional<Map.Entry<String, String>>> res;
+                if (exists) {
+                    res = this.storage.value(name.key())
+                        .thenApply(PublisherAs::new)
+                        .thenCompose(PublisherAs::bytes)
+                        .thenCompose(
+                            bytes -> {
+                                final String sha = Providers.sha(bytes);
+                                return new IndexStorage(this.storage).save(
+                                    new Name(String.format("%s$%s", name.string(), sha)).key(),
+                                    bytes
+                                ).thenApply(
+                                    nothing -> Optional.of(
+                                        new AbstractMap.SimpleImmutableEntry<>(name.string(), sha)
+                                    )
+                                );
+                            }
+                        );
+                } else {
+                    res = CompletableFuture.completedFuture(Optional.empty());
+                }
+                return res;
+            }
+        );
+    }
+
+    /**
+     * Writes new provider file of the bucket.
+     *
+     * @param includes Current provider files.
+     * @param bucket Provider file name with hash placeholder.
+     * @param packages Updated packages and hashes of their files.
+     * @return Provider file name and hash of its new content.
+     */
+    private CompletionStage<Map.Entry<String, String>> bucket(
+        final JsonObject includes,
+        final String bucket,
+        final List<Map.Entry<String, String>> packages
+    ) {
+        final CompletionStage<JsonObject> current;
+        if (includes.containsKey(bucket)) {
+            current = this.storage.value(
+                Providers.key(bucket, includes.getJsonObject(bucket).getString(Providers.SHA))
+            ).thenApply(PublisherAs::new)
+                .thenCompose(PublisherAs::bytes)
+                .thenApply(bytes -> Providers.json(bytes).getJsonObject(Providers.PROVIDERS));
+        } else {
+            current = CompletableFuture.completedFuture(JsonValue.EMPTY_JSON_OBJECT);
+        }
+        return current.thenCompose(
+            providers -> {
+                final JsonObjectBuilder updated = Json.createObjectBuilder(providers);
+                packages.forEach(
+                    pack -> updated.add(
+                        pack.getKey(),
+                        Json.createObjectBuilder().add(Providers.SHA, pack.getValue())
+                    )
+                );
+                final byte[] bytes = Json.createObjectBuilder()
+                    .add(Providers.PROVIDERS, updated)
+                    .build().toString()
+                    .getBytes(StandardCharsets.UTF_8);
+                final String sha = Providers.sha(bytes);
+                return new IndexStorage(this.storage).save(Providers.key(bucket, sha), bytes)
+                    .thenApply(nothing -> new AbstractMap.SimpleImmutableEntry<>(bucket, sha));
+            }
+        );
+    }
+
+    /**
+     * Lists files replaced by new provider file of the bucket: previous provider file
+     * and package files it refers to with other hash than new one.
+     *
+     * @param bucket Provider file name with hash placeholder.
+     * @param previous Hash of previous provider file.
+     * @param current Hash of new provider file.
+     * @return Keys of replaced files.
+     */
+    private CompletionStage<List<Key>> stale(
+        final String bucket, final String previous, final String current
+    ) {
+        return this.providers(Providers.key(bucket, previous)).thenCombine(
+            this.providers(Providers.key(bucket, current)),
+            (before, after) -> {
+                final List<Key> res = new ArrayList<>(before.size() + 1);
+                res.add(Providers.key(bucket, previous));
+                before.keySet().forEach(
+                    name -> {
+                        final String sha = Providers.sha(before, name);
+                        if (after.containsKey(name)
+                            && !sha.equals(Providers.sha(after, name))) {
+                            res.add(new Name(String.format("%s$%s", name, sha)).key());
+                        }
+                    }
+                );
+                return res;
+            }
+        );
+    }
+
+    /**
+     * Reads packages listed in provider file.
+     *
+     * @param key Provider file location.
+     * @return Packages and hashes of their files, empty if provider file not found.
+     */
+    private CompletionStage<JsonObject> providers(final Key key) {
+        return new IndexStorage(this.storage).value(key).thenCompose(
+            opt -> opt.map(
+                content -> new PublisherAs(content).bytes().thenApply(
+                    bytes -> Providers.json(bytes).getJsonObject(Providers.PROVIDERS)
+                )
+            ).orElseGet(() -> CompletableFuture.completedFuture(JsonValue.EMPTY_JSON_OBJECT))
+        );
+    }
+
+    /**
+     * Reads provider files listed in root 'packages.json'.
+     * Root is read with streaming parser, other attributes are skipped.
+     *
+     * @param root Root content.
+     * @return Provider files.
+     */
+    private static JsonObject includes(final ByteSource root) {
+        JsonObject includes = JsonValue.EMPTY_JSON_OBJECT;
+        try (JsonParser parser = Json.createParser(root.openStream())) {
+            parser.next();
+            while (parser.hasNext()) {
+                final JsonParser.Event event = parser.next();
+                if (event == JsonParser.Event.END_OBJECT) {
+                    break;
+                }
+                final String name = parser.getString();
+                final JsonParser.Event value = parser.next();
+                if (value == JsonParser.Event.START_OBJECT) {
+                    if (Providers.INCLUDES.equals(name)) {
+                        includes = parser.getObject();
+                    } else {
+                        parser.skipObject();
+                    }
+                } else if (value == JsonParser.Event.START_ARRAY) {
+                    parser.skipArray();
+                }
+            }
+        } catch (final IOException ex) {
+            throw new UncheckedIOException(ex);
+        }
+        return includes;
+    }
+
+    /**
+     * Parses JSON object.
+     *
+     * @param bytes Content.
+     * @return JSON object.
+     */
+    private static JsonObject json(final byte[] bytes) {
+        try (JsonReader reader = Json.createReader(new ByteArrayInputStream(bytes))) {
+            return reader.readObject();
+        }
+    }
+
+    /**
+     * Provider file name of the package.
+     *
+     * @param name Package name.
+     * @return Provider file name with hash placeholder.
+     */
+    private static String bucket(final String name) {
+        return String.format(
+            "p/provider-%02d$%s.json",
+            Math.floorMod(name.hashCode(), Providers.BUCKETS),
+            Providers.HASH
+        );
+    }
+
+    /**
+     * Key of provider file.
+     *
+     * @param bucket Provider file name with hash placeholder.
+     * @param sha Hash of provider file content.
+     * @return Key.
+     */
+    private static Key key(final String bucket, final String sha) {
+        return new Key.From(bucket.replace(Providers.HASH, sha));
+    }
+
+    /**
+     * Reads hash of listed file.
+     *
+     * @param files Listed files.
+     * @param name File or package name.
+     * @return Hash.
+     */
+    private static String sha(final JsonObject files, final String name) {
+        return files.getJsonObject(name).getString(Providers.SHA);
+    }
+
+    /**
+     * Calculates SHA-256 of content.
+     *
+     * @param bytes Content.
+     * @return Hex encoded hash.
+     */
+    private static String sha(final byte[] bytes) {
+        return Hashing.sha256().hashBytes(bytes).toString();
+    }
+}
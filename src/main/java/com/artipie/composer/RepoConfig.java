@@ -0,0 +1,284 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2020 artipie.com
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included
+ * in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NON-INFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package com.artipie.composer;
+
+import java.time.Duration;
+
+/**
+ * Repository configuration.
+ *
+ * @since 0.4
+ */
+public interface RepoConfig {
+
+    /**
+     * Time window to collect packages added to the same index into one write.
+     *
+     * @return Time window.
+     */
+    Duration window();
+
+    /**
+     * Maximum number of packages written to index at once.
+     *
+     * @return Batch size.
+     */
+    int batch();
+
+    /**
+     * Whether root 'packages.json' lists all packages inline. When disabled, root refers
+     * Composer v2 clients to per-package metadata only and does not grow with repository.
+     *
+     * @return True if all packages are listed in root.
+     */
+    boolean inline();
+
+    /**
+     * Whether to maintain Composer v1 provider files ('providers-url' and
+     * 'provider-includes'), so Composer v1 clients fetch only required packages.
+     *
+     * @return True if provider files are maintained.
+     */
+    boolean providers();
+
+    /**
+     * Whether package versions are kept in memory index, so that package metadata
+     * and root 'packages.json' are rendered from it and are not read on update.
+     * Index is rebuilt from storage on first update.
+     *
+     * @return True if in-memory index is used.
+     */
+    boolean indexed();
+
+    /**
+     * Whether packages are listed in per-vendor shards referred from root
+     * 'packages.json' with 'includes', so that adding a package rewrites only shard
+     * of its vendor. Takes precedence over {@link #inline()}.
+     *
+     * @return True if packages are listed in shards.
+     */
+    boolean sharded();
+
+    /**
+     * Whether per-package Composer v2 metadata ('p2/' files) is written minified,
+     * so that each version lists only attributes changed since the previous version
+     * and removed attributes are marked with '__unset'.
+     *
+     * @return True if Composer v2 metadata is minified.
+     */
+    boolean minified();
+
+    /**
+     * Simple repository configuration.
+     *
+     * @since 0.4
+     */
+    final class Simple implements RepoConfig {
+
+        /**
+         * Default maximum number of packages written to index at once.
+         */
+        private static final int BATCH = 100;
+
+        /**
+         * Time window.
+         */
+        private final Duration window;
+
+        /**
+         * Batch size.
+         */
+        private final int batch;
+
+        /**
+         * Inline packages in root.
+         */
+        private final boolean inline;
+
+        /**
+         * Maintain provider files.
+         */
+        private final boolean providers;
+
+        /**
+         * Use in-memory index.
+         */
+        private final boolean indexed;
+
+        /**
+         * List packages in per-vendor shards.
+         */
+        private final boolean sharded;
+
+        /**
+         * Minify Composer v2 metadata.
+         */
+        private final boolean minified;
+
+        /**
+         * Ctor.
+         */
+        public Simple() {
+            this(Duration.ZERO, Simple.BATCH);
+        }
+
+        /**
+         * Ctor.
+         * Packages are listed in root inline, other features are disabled,
+         * use {@code with*} methods to change them.
+         *
+         * @param window Time window.
+         * @param batch Batch size.
+         */
+        public Simple(final Duration window, final int batch) {
+            this(window, batch, true, false, false, false, false);
+        }
+
+        /**
+         * Ctor.
+         *
+         * @param window Time window.
+         * @param batch Batch size.
+         * @param inline Inline packages in root.
+         * @param providers Maintain provider files.
+         * @param indexed Use in-memory index.
+         * @param sharded List packages in per-vendor shards.
+         * @param minified Minify Composer v2 metadata.
+         * @checkstyle ParameterNumberCheck (6 lines)
+         */
+        private Simple(
+            final Duration window, final int batch,
+            final boolean inline, final boolean providers,
+            final boolean indexed, final boolean sharded, final boolean minified
+        ) {
+            this.window = window;
+            this.batch = batch;
+            this.inline = inline;
+            this.providers = providers;
+            this.indexed = indexed;
+            this.sharded = sharded;
+            this.minified = minified;
+        }
+
+        /**
+         * Configuration with packages listed in root inline or not.
+         *
+         * @param enabled Inline packages in root.
+         * @return Updated configuration.
+         */
+        public Simple withInline(final boolean enabled) {
+            return new Simple(
+                this.window, this.batch,
+                enabled, this.providers, this.indexed, this.sharded, this.minified
+            );
+        }
+
+        /**
+         * Configuration with provider files maintained or not.
+         *
+         * @param enabled Maintain provider files.
+         * @return Updated configuration.
+         */
+        public Simple withProviders(final boolean enabled) {
+            return new Simple(
+                this.window, this.batch,
+                this.inline, enabled, this.indexed, this.sharded, this.minified
+            );
+        }
+
+        /**
+         * Configuration with in-memory index used or not.
+         *
+         * @param enabled Use in-memory index.
+         * @return Updated configuration.
+         */
+        public Simple withIndex(final boolean enabled) {
+            return new Simple(
+                this.window, this.batch,
+                this.inline, this.providers, enabled, this.sharded, this.minified
+            );
+        }
+
+        /**
+         * Configuration with packages listed in per-vendor shards or not.
+         *
+         * @param enabled List packages in per-vendor shards.
+         * @return Updated configuration.
+         */
+        public Simple withShards(final boolean enabled) {
+            return new Simple(
+                this.window, this.batch,
+                this.inline, this.providers, this.indexed, enabled, this.minified
+            );
+        }
+
+        /**
+         * Configuration with Composer v2 metadata minified or not.
+         *
+         * @param enabled Minify Composer v2 metadata.
+         * @return Updated configuration.
+         */
+        public Simple withMinified(final boolean enabled) {
+            return new Simple(
+                this.window, this.batch,
+                this.inline, this.providers, this.indexed, this.sharded, enabled
+            );
+        }
+
+        @Override
+        public Duration window() {
+            return this.window;
+        }
+
+        @Override
+        public int batch() {
+            return this.batch;
+        }
+
+        @Override
+        public boolean inline() {
+            return this.inline;
+        }
+
+        @Override
+        public boolean providers() {
+            return this.providers;
+        }
+
+        @Override
+        public boolean indexed() {
+            return this.indexed;
+        }
+
+        @Override
+        public boolean sharded() {
+            return this.sharded;
+        }
+
+        @Override
+        public boolean minified() {
+            return this.minified;
+        }
+    }
+}
@@ -25,9 +25,12 @@
 package com.artipie.composer;
 
 import com.artipie.asto.Content;
+import com.artipie.asto.Key;
 import java.util.Optional;
 import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.CompletionStage;
+import javax.json.JsonObject;
+import org.reactivestreams.Publisher;
 
 /**
  * PHP Composer repository.
@@ -51,11 +54,77 @@ public interface Repository {
      */
     CompletionStage<Optional<Packages>> packages(Name name);
 
+    /**
+     * Reads metadata file content as is, streaming it from storage without buffering.
+     *
+     * @param key Metadata file location in storage.
+     * @return Content, might be empty.
+     */
+    CompletionStage<Optional<Content>> content(Key key);
+
+    /**
+     * Reads validator of metadata file without reading the file itself.
+     *
+     * @param key Metadata file location in storage.
+     * @return Validator, might be empty.
+     */
+    CompletionStage<Optional<Etag>> etag(Key key);
+
+    /**
+     * Reads gzip compressed variant of metadata file.
+     *
+     * @param key Metadata file location in storage.
+     * @return Compressed content, might be empty.
+     */
+    CompletionStage<Optional<Content>> gzip(Key key);
+
+    /**
+     * Reads package archive uploaded to repository, streaming it from storage
+     * without buffering.
+     *
+     * @param key Archive location in storage.
+     * @return Archive content, might be empty.
+     */
+    CompletionStage<Optional<Content>> archive(Key key);
+
+    /**
+     * Searches packages by name, description and keywords.
+     *
+     * @param query Search query, each word of query should start some word of package.
+     * @param type Package type, empty to search packages of any type.
+     * @param offset Number of results to skip.
+     * @param limit Maximum number of results.
+     * @return Results sorted by package name in Composer search format with 'results'
+     *  and total number of found packages in 'total'.
+     */
+    CompletionStage<JsonObject> search(String query, String type, int offset, int limit);
+
     /**
      * Adds package described in JSON format from storage.
      *
      * @param content Package content.
-     * @return Completion of adding package to repository.
+     * @return Name of added package.
+     */
+    CompletableFuture<Name> add(Content content);
+
+    /**
+     * Adds many packages described in JSON format at once.
+     * Each affected packages registry is updated once for all added packages.
+     * Packages are written only after all of them are read, so nothing is added
+     * if reading of any package fails.
+     *
+     * @param packages Packages content, one package per item.
+     * @return Completion of adding packages to repository.
+     */
+    CompletableFuture<Void> addAll(Publisher<Content> packages);
+
+    /**
+     * Adds package distributed as ZIP archive with 'composer.json' inside.
+     * Archive is stored in repository, 'dist' of added package refers to it.
+     *
+     * @param archive Archive content.
+     * @param base Base URL of repository to build archive URL, might be empty.
+     * @return Name of added package.
      */
-    CompletableFuture<Void> add(Content content);
+    CompletableFuture<Name> addArchive(Content archive, String base);
 }
@@ -0,0 +1,264 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2020 artipie.com
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included
+ * in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NON-INFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package com.artipie.composer;
+
+import java.io.ByteArrayInputStream;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.NavigableMap;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.regex.Pattern;
+import javax.json.Json;
+import javax.json.JsonArrayBuilder;
+import javax.json.JsonObject;
+import javax.json.JsonReader;
+import javax.json.JsonString;
+import javax.json.JsonValue;
+
+/**
+ * In-memory inverted index for package search.
+ * Name, description and keywords of the last added version of each package are split
+ * into lower case words, sorted map from word to package names allows to find packages
+ * by word prefix without scanning all packages. Packages are kept sorted by name,
+ * so results are paged in one ordered pass without sorting matched packages.
+ *
+ * @since 0.4
+ */
+final class SearchIndex {
+
+    /**
+     * Words delimiter.
+     */
+    private static final Pattern DELIMITER = Pattern.compile("[^\\p{L}\\p{N}]+");
+
+    /**
+     * Character greater than any character of word.
+     */
+    private static final String LAST = String.valueOf(Character.MAX_VALUE);
+
+    /**
+     * Indexed packages sorted by name.
+     */
+    private final NavigableMap<String, Entry> packages;
+
+    /**
+     * Package names by word.
+     */
+    private final NavigableMap<String, Set<String>> words;
+
+    /**
+     * Ctor.
+     */
+    SearchIndex() {
+        this.packages = new TreeMap<>();
+        this.words = new TreeMap<>();
+    }
+
+    /**
+     * Builds search index from package index.
+     *
+     * @param index Package index.
+     * @return Search index.
+     */
+    static SearchIndex from(final PackageIndex index) {
+        final SearchIndex res = new SearchIndex();
+        index.latest(
+            (name, doc) -> {
+                if (doc.length > 0 && doc[0] == '{') {
+                    try (JsonReader reader = Json.createReader(new ByteArrayInputStream(doc))) {
+                        res.add(name, reader.readObject());
+                    }
+                }
+            }
+        );
+        return res;
+    }
+
+    /**
+     * Adds packages to index, previously indexed versions of packages are replaced.
+     *
+     * @param packs Packages.
+     */
+    void addAll(final List<? extends Package> packs) {
+        for (final Package pack : packs) {
+            this.add(pack.name().string(), pack.json());
+        }
+    }
+
+    /**
+     * Adds package to index, previously indexed version of package is replaced.
+     *
+     * @param name Package name.
+     * @param json Package version document.
+     */
+    synchronized void add(final String name, final JsonObject json) {
+        final Entry previous = this.packages.get(name);
+        if (previous != null) {
+            for (final String word : previous.words) {
+                final Set<String> names = this.words.get(word);
+                names.remove(name);
+                if (names.isEmpty()) {
+                    this.words.remove(word);
+                }
+            }
+        }
+        final Entry entry = new Entry(name, json);
+        this.packages.put(entry.name, entry);
+        for (final String word : entry.words) {
+            this.words.computeIfAbsent(word, key -> new HashSet<>()).add(entry.name);
+        }
+    }
+
+    /**
+     * Searches packages with words starting with each word of query.
+     * Results are sorted by package name, only requested page of them is collected.
+     *
+     * @param query Query.
+     * @param type Package type, empty to search packages of any type.
+     * @param offset Number of results to skip.
+     * @param limit Maximum number of results.
+     * @return Results in Composer search format with total number of results.
+     */
+    synchronized JsonObject search(
+        final String query, final String type, final int offset, final int limit
+    ) {
+        final Iterator<String> words = SearchIndex.words(query).iterator();
+        final Set<String> found;
+        if (words.hasNext()) {
+            found = this.prefixed(words.next());
+            while (words.hasNext() && !found.isEmpty()) {
+                found.retainAll(this.prefixed(words.next()));
+            }
+        } else {
+            found = this.packages.keySet();
+        }
+        final JsonArrayBuilder results = Json.createArrayBuilder();
+        final long from = Math.max(offset, 0);
+        final long until = from + Math.max(limit, 0);
+        int total = 0;
+        if (!found.isEmpty()) {
+            for (final Entry entry : this.packages.values()) {
+                if (found.contains(entry.name)
+                    && (type.isEmpty() || type.equals(entry.type))) {
+                    if (total >= from && total < until) {
+                        results.add(
+                            Json.createObjectBuilder()
+                                .add("name", entry.name)
+                                .add("description", entry.description)
+                        );
+                    }
+                    total += 1;
+                }
+            }
+        }
+        return Json.createObjectBuilder()
+            .add("results", results)
+            .add("total", total)
+            .build();
+    }
+
+    /**
+     * Finds packages with word starting with prefix.
+     *
+     * @param prefix Word prefix.
+     * @return Package names.
+     */
+    private Set<String> prefixed(final String prefix) {
+        final Set<String> res = new HashSet<>();
+        this.words.subMap(prefix, true, prefix.concat(SearchIndex.LAST), false)
+            .values().forEach(res::addAll);
+        return res;
+    }
+
+    /**
+     * Splits text into distinct lower case words.
+     *
+     * @param text Text.
+     * @return Words.
+     */
+    private static Set<String> words(final String text) {
+        final Set<String> res = new LinkedHashSet<>();
+        for (final String word : SearchIndex.DELIMITER.split(text.toLowerCase(Locale.ROOT))) {
+            if (!word.isEmpty()) {
+                res.add(word);
+            }
+        }
+        return res;
+    }
+
+    /**
+     * Indexed package.
+     *
+     * @since 0.4
+     */
+    private static final class Entry {
+
+        /**
+         * Package name.
+         */
+        private final String name;
+
+        /**
+         * Package description.
+         */
+        private final String description;
+
+        /**
+         * Package type.
+         */
+        private final String type;
+
+        /**
+         * Words of name, description and keywords.
+         */
+        private final String[] words;
+
+        /**
+         * Ctor.
+         *
+         * @param name Package name.
+         * @param json Package version document.
+         */
+        Entry(final String name, final JsonObject json) {
+            this.name = name.intern();
+            this.description = json.getString("description", "");
+            this.type = json.getString("type", "library").intern();
+            final Set<String> all = new LinkedHashSet<>();
+            all.addAll(SearchIndex.words(name));
+            all.addAll(SearchIndex.words(this.description));
+            final JsonValue keywords = json.get("keywords");
+            if (keywords != null && keywords.getValueType() == JsonValue.ValueType.ARRAY) {
+                keywords.asJsonArray().getValuesAs(JsonValue.class).stream()
+                    .filter(word -> word.getValueType() == JsonValue.ValueType.STRING)
+                    .map(word -> ((JsonString) word).getString())
+                    .forEach(word -> all.addAll(SearchIndex.words(word)));
+            }
+            this.words = all.stream().map(String::intern).toArray(String[]::new);
+        }
+    }
+}
@@ -0,0 +1,399 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2020 artipie.com
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included
+ * in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NON-INFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package com.artipie.composer;
+
+import com.artipie.asto.Key;
+import com.artipie.asto.Storage;
+import com.artipie.asto.ext.PublisherAs;
+import com.google.common.hash.Hashing;
+import com.google.common.io.ByteSource;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.util.AbstractMap;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionStage;
+import java.util.stream.Collectors;
+import javax.json.Json;
+import javax.json.JsonObject;
+import javax.json.JsonObjectBuilder;
+import javax.json.JsonReader;
+import javax.json.JsonValue;
+
+/**
+ * Per-vendor shards of packages registry. Packages of each vendor are listed in its own
+ * shard file 'p/include-[vendor].json', root 'packages.json' refers to immutable copies of
+ * shards named by SHA-1 of their content with Composer 'includes' attribute, so adding
+ * a package rewrites only shard of its vendor and small root.
+ * Packages listed in root itself are moved to shards on first update.
+ * Copies root no longer refers to are removed with {@link #prune(Optional, JsonObject)}.
+ *
+ * @since 0.4
+ */
+public final class Shards {
+
+    /**
+     * Root attribute for shard files.
+     */
+    private static final String INCLUDES = "includes";
+
+    /**
+     * Root attribute for packages.
+     */
+    private static final String PACKAGES = "packages";
+
+    /**
+     * Hash attribute.
+     */
+    private static final String SHA = "sha1";
+
+    /**
+     * Shard file name prefix.
+     */
+    private static final String PREFIX = "p/include-";
+
+    /**
+     * Empty packages registry.
+     */
+    private static final ByteSource EMPTY = ByteSource.wrap(
+        "{\"packages\":{}}".getBytes(StandardCharsets.UTF_8)
+    );
+
+    /**
+     * Storage.
+     */
+    private final Storage storage;
+
+    /**
+     * Ctor.
+     *
+     * @param storage Storage.
+     */
+    public Shards(final Storage storage) {
+        this.storage = storage;
+    }
+
+    /**
+     * Key of shard file listing packages of the vendor of package.
+     *
+     * @param name Package name.
+     * @return Shard key.
+     */
+    public static Key key(final Name name) {
+        return Shards.key(Shards.vendor(name.string()));
+    }
+
+    /**
+     * Moves packages listed in root 'packages.json' to shards and rewrites root
+     * to refer to them. Other root attributes are kept.
+     * Should not be run concurrently with repository updates.
+     *
+     * @return Completion of migration.
+     */
+    public CompletionStage<Void> migrate() {
+        final IndexStorage index = new IndexStorage(this.storage);
+        return index.value(AstoRepository.ALL_PACKAGES).thenCompose(
+            opt -> opt.map(
+                content -> new PublisherAs(content).bytes().thenCompose(
+                    bytes -> this.update(
+                        Optional.of(ByteSource.wrap(bytes)), Collections.emptyList()
+                    ).thenCompose(
+                        includes -> {
+                            final JsonObjectBuilder attrs = Json.createObjectBuilder();
+                            Shards.json(ByteSource.wrap(bytes)).forEach(
+                                (name, value) -> {
+                                    if (!Shards.PACKAGES.equals(name)) {
+                                        attrs.add(name, value);
+                                    }
+                                }
+                            );
+                            includes.forEach(attrs::add);
+                            return new JsonPackages(Shards.EMPTY, attrs.build())
+                                .addAll(Collections.emptyList())
+                                .save(this.storage, AstoRepository.ALL_PACKAGES)
+                                .thenCompose(
+                                    nothing -> this.prune(
+                                        Optional.of(ByteSource.wrap(bytes)), includes
+                                    )
+                                );
+                        }
+                    )
+                )
+            ).orElseGet(() -> CompletableFuture.completedFuture(null))
+        );
+    }
+
+    /**
+     * Writes immutable copies of updated shards, packages listed in root are moved
+     * to shards before.
+     *
+     * @param root Current root 'packages.json' content, might be empty.
+     * @param names Names of updated packages.
+     * @return Root attributes referring to shard files.
+     */
+    public CompletionStage<JsonObject> update(
+        final Optional<ByteSource> root, final Collection<Name> names
+    ) {
+        final JsonObject current = root.map(Shards::json).orElse(JsonValue.EMPTY_JSON_OBJECT);
+        final JsonObject includes = Shards.object(current, Shards.INCLUDES);
+        final Map<String, Map<String, Map<Version, JsonValue>>> legacy = Shards.legacy(
+            Shards.object(current, Shards.PACKAGES)
+        );
+        final Set<String> vendors = new LinkedHashSet<>(legacy.keySet());
+        names.forEach(name -> vendors.add(Shards.vendor(name.string())));
+        return Stages.all(
+            legacy.entrySet().stream()
+                .map(entry -> this.merge(entry.getKey(), entry.getValue()))
+                .collect(Collectors.toList())
+        ).thenCompose(
+            merged -> Stages.all(
+                vendors.stream().map(this::hashed).collect(Collectors.toList())
+            )
+        ).thenApply(
+            hashes -> {
+                final Set<String> updated = hashes.stream()
+                    .filter(Optional::isPresent)
+                    .map(hash -> hash.get().getKey())
+                    .collect(Collectors.toSet());
+                final JsonObjectBuilder result = Json.createObjectBuilder();
+                includes.forEach(
+                    (file, value) -> {
+                        final boolean replaced = file.startsWith(Shards.PREFIX)
+                            && updated.contains(
+                                Shards.vendor(file.substring(Shards.PREFIX.length()))
+                            );
+                        if (!replaced) {
+                            result.add(file, value);
+                        }
+                    }
+                );
+                hashes.stream().filter(Optional::isPresent).map(Optional::get).forEach(
+                    hash -> result.add(
+                        Shards.file(hash.getKey(), hash.getValue()),
+                        Json.createObjectBuilder().add(Shards.SHA, hash.getValue())
+                    )
+                );
+                return Json.createObjectBuilder().add(Shards.INCLUDES, result).build();
+            }
+        );
+    }
+
+    /**
+     * Deletes shard copies previous root refers to and updated root does not.
+     * Should be called after updated root is saved, clients which read previous
+     * root should read it again if these files are not found.
+     *
+     * @param previous Previous root 'packages.json' content, might be empty.
+     * @param updated Root attributes referring to shard files.
+     * @return Completion of deletion.
+     */
+    public CompletionStage<Void> prune(
+        final Optional<ByteSource> previous, final JsonObject updated
+    ) {
+        final JsonObject after = Shards.object(updated, Shards.INCLUDES);
+        return Stages.all(
+            Shards.object(
+                previous.map(Shards::json).orElse(JsonValue.EMPTY_JSON_OBJECT), Shards.INCLUDES
+            ).keySet().stream()
+                .filter(
+                    file -> file.startsWith(Shards.PREFIX) && file.indexOf('$') >= 0
+                        && !after.containsKey(file)
+                ).map(file -> new IndexStorage(this.storage).delete(new Key.From(file)))
+                .collect(Collectors.toList())
+        ).thenApply(nothing -> null);
+    }
+
+    /**
+     * Merges packages listed in root into shard of vendor.
+     *
+     * @param vendor Vendor.
+     * @param packages Versions by package name.
+     * @return Completion of merge.
+     */
+    private CompletionStage<Void> merge(
+        final String vendor, final Map<String, Map<Version, JsonValue>> packages
+    ) {
+        final Key key = Shards.key(vendor);
+        return this.bytes(key).thenCompose(
+            current -> {
+                final byte[] updated;
+                try (InputStream input = current.map(ByteSource::wrap)
+                    .orElse(Shards.EMPTY).openStream()) {
+                    updated = new JsonSplice(JsonValue.EMPTY_JSON_OBJECT, packages)
+                        .apply(input);
+                } catch (final IOException ex) {
+                    throw new UncheckedIOException(ex);
+                }
+                return new IndexStorage(this.storage).save(key, updated);
+            }
+        );
+    }
+
+    /**
+     * Writes immutable copy of vendor shard named by hash of its content.
+     *
+     * @param vendor Vendor.
+     * @return Vendor and hash of its shard, empty if shard not found.
+     */
+    private CompletionStage<Optional<Map.Entry<String, String>>> hashed(final String vendor) {
+        return this.bytes(Shards.key(vendor))
+            .thenCompose(
+                opt -> opt.<CompletionStage<Optional<Map.Entry<String, String>>>>map(
+                    bytes -> {
+                        final String sha = Hashing.sha1().hashBytes(bytes).toString();
+                        return new IndexStorage(this.storage).save(
+                            new Key.From(Shards.file(vendor, sha)), bytes
+                        ).thenApply(
+                            nothing -> Optional.of(
+                                new AbstractMap.SimpleImmutableEntry<>(vendor, sha)
+                            )
+                        );
+                    }
+                ).orElseGet(() -> CompletableFuture.completedFuture(Optional.empty()))
+            );
+    }
+
+    /**
+     * Reads file content.
+     *
+     * @param key File location.
+     * @return Content, empty if file not found.
+     */
+    private CompletionStage<Optional<byte[]>> bytes(final Key key) {
+        return new IndexStorage(this.storage).value(key).thenCompose(
+            opt -> opt.map(
+                content -> new PublisherAs(content).bytes().thenApply(Optional::of)
+            ).orElseGet(() -> CompletableFuture.completedFuture(Optional.empty()))
+        );
+    }
+
+    /**
+     * Groups packages listed in root by vendor.
+     *
+     * @param packages Packages attribute of root.
+     * @return Versions by package name by vendor.
+     */
+    private static Map<String, Map<String, Map<Version, JsonValue>>> legacy(
+        final JsonObject packages
+    ) {
+        final Map<String, Map<String, Map<Version, JsonValue>>> res = new LinkedHashMap<>();
+        packages.forEach(
+            (name, versions) -> {
+                final Map<Version, JsonValue> copy = new TreeMap<>();
+                if (versions.getValueType() == JsonValue.ValueType.OBJECT) {
+                    versions.asJsonObject().forEach(
+                        (version, value) -> copy.put(new Version(version), value)
+                    );
+                }
+                res.computeIfAbsent(Shards.vendor(name), vendor -> new LinkedHashMap<>())
+                    .put(name, copy);
+            }
+        );
+        return res;
+    }
+
+    /**
+     * Reads object attribute.
+     *
+     * @param json JSON object.
+     * @param name Attribute name.
+     * @return Attribute value, empty object if absent or not an object.
+     */
+    private static JsonObject object(final JsonObject json, final String name) {
+        final JsonObject res;
+        if (json.containsKey(name)
+            && json.get(name).getValueType() == JsonValue.ValueType.OBJECT) {
+            res = json.getJsonObject(name);
+        } else {
+            res = JsonValue.EMPTY_JSON_OBJECT;
+        }
+        return res;
+    }
+
+    /**
+     * Parses JSON object.
+     *
+     * @param content Content.
+     * @return JSON object.
+     */
+    private static JsonObject json(final ByteSource content) {
+        try (JsonReader reader = Json.createReader(content.openStream())) {
+            return reader.readObject();
+        } catch (final IOException ex) {
+            throw new UncheckedIOException(ex);
+        }
+    }
+
+    /**
+     * Vendor part of package name or shard file name.
+     *
+     * @param name Package name or shard file name.
+     * @return Vendor.
+     */
+    private static String vendor(final String name) {
+        return name.split("[/$]", 2)[0];
+    }
+
+    /**
+     * Checks whether key is shard key.
+     *
+     * @param key Key.
+     * @return True if key is key of mutable shard file.
+     */
+    static boolean isShard(final Key key) {
+        final String name = key.string();
+        return name.startsWith(Shards.PREFIX) && name.indexOf('$') < 0;
+    }
+
+    /**
+     * Key of mutable shard file.
+     *
+     * @param vendor Vendor.
+     * @return Shard key.
+     */
+    private static Key key(final String vendor) {
+        return new Key.From(String.format("%s%s.json", Shards.PREFIX, vendor));
+    }
+
+    /**
+     * Immutable shard file name.
+     *
+     * @param vendor Vendor.
+     * @param sha Hash of shard content.
+     * @return File name.
+     */
+    private static String file(final String vendor, final String sha) {
+        return String.format("%s%s$%s.json", Shards.PREFIX, vendor, sha);
+    }
+}
@@ -0,0 +1,102 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2020 artipie.com
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included
+ * in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NON-INFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package com.artipie.composer;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+/**
+ * Coalesces concurrent loads of the same key: while load of a key is in flight,
+ * other callers asking for the same key do not start new load and share result
+ * of the load in flight. Load is forgotten as soon as it completes, so results
+ * are never cached and the next call after completion starts new load.
+ *
+ * @param <K> Key type.
+ * @param <V> Loaded value type.
+ * @since 0.4
+ */
+public final class SingleFlight<K, V> {
+
+    /**
+     * Loads in flight by key.
+     */
+    private final ConcurrentMap<K, CompletableFuture<V>> flights;
+
+    /**
+     * Number of calls which shared load in flight.
+     */
+    private final AtomicLong shared;
+
+    /**
+     * Ctor.
+     */
+    public SingleFlight() {
+        this.flights = new ConcurrentHashMap<>();
+        this.shared = new AtomicLong();
+    }
+
+    /**
+     * Loads value of key or joins load of the key in flight.
+     * Failure of load is reported to all callers sharing it.
+     *
+     * @param key Key.
+     * @param load Load of value, invoked only if no load of the key is in flight.
+     * @return Loaded value.
+     */
+    public CompletionStage<V> apply(final K key, final Supplier<CompletionStage<V>> load) {
+        final CompletableFuture<V> flight = new CompletableFuture<>();
+        final CompletableFuture<V> running = this.flights.putIfAbsent(key, flight);
+        final CompletionStage<V> res;
+        if (running == null) {
+            CompletableFuture.allOf().thenCompose(nothing -> load.get()).whenComplete(
+                (value, err) -> {
+                    this.flights.remove(key, flight);
+                    if (err == null) {
+                        flight.complete(value);
+                    } else {
+                        flight.completeExceptionally(err);
+                    }
+                }
+            );
+            res = flight;
+        } else {
+            this.shared.incrementAndGet();
+            res = running;
+        }
+        return res;
+    }
+
+    /**
+     * Number of calls which did not start load and shared load in flight.
+     *
+     * @return Coalesced calls count.
+     */
+    public long coalesced() {
+        return this.shared.get();
+    }
+}
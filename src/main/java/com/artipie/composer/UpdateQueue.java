@@ -0,0 +1,86 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2020 artipie.com
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included
+ * in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NON-INFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package com.artipie.composer;
+
+import com.artipie.asto.Key;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.function.Supplier;
+
+/**
+ * Queue of updates for storage keys.
+ * Updates of the same key are performed one after another, in order of submission,
+ * updates of different keys are performed in parallel. Waiting update is chained
+ * to completion of the previous one, so no thread is blocked while waiting.
+ *
+ * @since 0.4
+ */
+public final class UpdateQueue {
+
+    /**
+     * Completion of last submitted update by key.
+     */
+    private final ConcurrentMap<String, CompletableFuture<Void>> tails;
+
+    /**
+     * Ctor.
+     */
+    public UpdateQueue() {
+        this.tails = new ConcurrentHashMap<>();
+    }
+
+    /**
+     * Submit update of the key. Update starts after all previously submitted updates
+     * of the same key are completed, successfully or not.
+     *
+     * @param key Key to update.
+     * @param update Update operation.
+     * @param <T> Update result type.
+     * @return Completion of the update.
+     */
+    public <T> CompletableFuture<T> submit(
+        final Key key, final Supplier<? extends CompletionStage<T>> update
+    ) {
+        final String name = key.string();
+        final CompletableFuture<Void> done = new CompletableFuture<>();
+        final CompletableFuture<Void> prev = this.tails.put(name, done);
+        final CompletableFuture<T> result;
+        if (prev == null) {
+            result = CompletableFuture.<Void>completedFuture(null)
+                .thenCompose(nothing -> update.get());
+        } else {
+            result = prev.thenComposeAsync(nothing -> update.get());
+        }
+        result.handle(
+            (res, err) -> {
+                this.tails.remove(name, done);
+                done.complete(null);
+                return null;
+            }
+        );
+        return result;
+    }
+}
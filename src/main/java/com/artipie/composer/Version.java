@@ -0,0 +1,492 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2020 artipie.com
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included
+ * in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NON-INFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package com.artipie.composer;
+
+import java.util.Arrays;
+import java.util.Locale;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Package version normalized and compared by Composer rules.
+ * Version is parsed once on creation, so that sorting and looking up latest version
+ * do not parse version strings again. Versions like 'v1.2', '1.2.0' or '1.2.0.0' are
+ * normalized to four numeric parts '1.2.0.0', stability modifiers are expanded
+ * ('1.0-b2' is '1.0.0.0-beta2'), branches like '1.x-dev' are normalized to
+ * '1.9999999.9999999.9999999-dev' and named branches keep 'dev-' prefix.
+ * Versions are ordered as Composer orders them: named branches and versions which
+ * can not be parsed go first, then numeric versions with 'dev' &lt; 'alpha' &lt; 'beta'
+ * &lt; 'RC' &lt; stable &lt; 'patch' stability. Equal normalized versions are ordered
+ * by version string.
+ *
+ * @since 0.4
+ */
+public final class Version implements Comparable<Version> {
+
+    /**
+     * Stabilities in ascending order.
+     */
+    private static final String[] STABILITIES = {
+        "dev", "alpha", "beta", "RC", "stable", "patch",
+    };
+
+    /**
+     * Rank of stable stability.
+     */
+    private static final int STABLE = 4;
+
+    /**
+     * Number branch parts like 'x' are normalized to.
+     */
+    private static final String BRANCH = "9999999";
+
+    /**
+     * Stability modifier pattern.
+     */
+    private static final String MODIFIER = String.join(
+        "",
+        "[._-]?(?:(stable|beta|b|RC|alpha|a|patch|pl|p)((?:[.-]?\\d+)*+)?)?",
+        "([.-]?dev)?"
+    );
+
+    /**
+     * Classical version pattern.
+     */
+    private static final Pattern CLASSICAL = Pattern.compile(
+        String.format("^v?(\\d{1,5}+)(\\.\\d++)?(\\.\\d++)?(\\.\\d++)?%s$", Version.MODIFIER),
+        Pattern.CASE_INSENSITIVE
+    );
+
+    /**
+     * Date version pattern.
+     */
+    private static final Pattern DATE = Pattern.compile(
+        String.format(
+            "^v?(\\d{4}(?:[.:-]?\\d{2}){1,6}(?:[.:-]?\\d{1,3}){0,2})%s$", Version.MODIFIER
+        ),
+        Pattern.CASE_INSENSITIVE
+    );
+
+    /**
+     * Numeric branch pattern, like '1.x' or '2.1.*'.
+     */
+    private static final Pattern NUMERIC_BRANCH = Pattern.compile(
+        "^v?(\\d++)(\\.(?:\\d++|[xX*]))?(\\.(?:\\d++|[xX*]))?(\\.(?:\\d++|[xX*]))?$"
+    );
+
+    /**
+     * Dev suffix pattern.
+     */
+    private static final Pattern DEV_SUFFIX = Pattern.compile(
+        "^(.*?)[.-]?dev$", Pattern.CASE_INSENSITIVE
+    );
+
+    /**
+     * Alias pattern, like '1.0.x-dev as 1.0.0'.
+     */
+    private static final Pattern ALIAS = Pattern.compile("^([^,\\s]++) ++as ++[^,\\s]++$");
+
+    /**
+     * Stability flag pattern, like '1.0.0@beta'.
+     */
+    private static final Pattern FLAG = Pattern.compile("^([^,\\s@]++) *+@[a-zA-Z]++$");
+
+    /**
+     * Build metadata pattern, like '1.0.0+20200101'.
+     */
+    private static final Pattern BUILD = Pattern.compile("^([^,\\s+]++)\\+\\S++$");
+
+    /**
+     * Default branch names.
+     */
+    private static final Pattern DEFAULT = Pattern.compile(
+        "^(?:master|trunk|default)$", Pattern.CASE_INSENSITIVE
+    );
+
+    /**
+     * Version string.
+     */
+    private final String value;
+
+    /**
+     * Normalized version.
+     */
+    private final String norm;
+
+    /**
+     * Numeric parts, null for named branch or version which can not be parsed.
+     */
+    private final long[] parts;
+
+    /**
+     * Stability rank, index in {@link #STABILITIES}.
+     */
+    private final int rank;
+
+    /**
+     * Stability number, like 2 in 'beta2'.
+     */
+    private final long number;
+
+    /**
+     * Whether pre-release like 'beta2' has dev suffix.
+     */
+    private final boolean dev;
+
+    /**
+     * Ctor.
+     *
+     * @param value Version string.
+     */
+    public Version(final String value) {
+        this(value, Version.parse(value));
+    }
+
+    /**
+     * Ctor.
+     *
+     * @param value Version string.
+     * @param parsed Parsed version.
+     */
+    private Version(final String value, final Version parsed) {
+        this(value, parsed.norm, parsed.parts, parsed.rank, parsed.number, parsed.dev);
+    }
+
+    /**
+     * Primary ctor.
+     *
+     * @param value Version string.
+     * @param norm Normalized version.
+     * @param parts Numeric parts, null for named branch.
+     * @param rank Stability rank.
+     * @param number Stability number.
+     * @param dev Whether pre-release has dev suffix.
+     * @checkstyle ParameterNumberCheck (5 lines)
+     */
+    private Version(final String value, final String norm, final long[] parts,
+        final int rank, final long number, final boolean dev) {
+        this.value = value;
+        this.norm = norm;
+        this.parts = parts;
+        this.rank = rank;
+        this.number = number;
+        this.dev = dev;
+    }
+
+    /**
+     * Version string.
+     *
+     * @return Version string as is.
+     */
+    public String string() {
+        return this.value;
+    }
+
+    /**
+     * Normalized version.
+     *
+     * @return Normalized version, like '1.2.0.0-beta2', or version string if it
+     *  can not be parsed.
+     */
+    public String normalized() {
+        return this.norm;
+    }
+
+    /**
+     * Stability of version.
+     *
+     * @return One of 'dev', 'alpha', 'beta', 'RC' or 'stable'.
+     */
+    public String stability() {
+        final String res;
+        if (this.dev) {
+            res = Version.STABILITIES[0];
+        } else if (this.rank >= Version.STABLE) {
+            res = Version.STABILITIES[Version.STABLE];
+        } else {
+            res = Version.STABILITIES[this.rank];
+        }
+        return res;
+    }
+
+    @Override
+    @SuppressWarnings("PMD.CyclomaticComplexity")
+    public int compareTo(final Version other) {
+        int res;
+        if (this.parts == null || other.parts == null) {
+            res = Boolean.compare(this.parts != null, other.parts != null);
+            if (res == 0) {
+                res = this.norm.compareTo(other.norm);
+            }
+        } else {
+            res = Version.compare(this.parts, other.parts);
+            if (res == 0) {
+                res = Integer.compare(this.rank, other.rank);
+            }
+            if (res == 0) {
+                res = Long.compare(this.number, other.number);
+            }
+            if (res == 0) {
+                res = Boolean.compare(!this.dev, !other.dev);
+            }
+        }
+        if (res == 0) {
+            res = this.value.compareTo(other.value);
+        }
+        return res;
+    }
+
+    @Override
+    public boolean equals(final Object other) {
+        return this == other
+            || other instanceof Version && this.value.equals(((Version) other).value);
+    }
+
+    @Override
+    public int hashCode() {
+        return this.value.hashCode();
+    }
+
+    @Override
+    public String toString() {
+        return this.value;
+    }
+
+    /**
+     * Parses version string.
+     *
+     * @param value Version string.
+     * @return Parsed version without version string.
+     */
+    private static Version parse(final String value) {
+        final String version = Version.strip(
+            Version.strip(value.trim(), Version.ALIAS), Version.FLAG
+        );
+        final Version res;
+        if (Version.DEFAULT.matcher(version).matches()) {
+            res = Version.branch(String.format("dev-%s", version));
+        } else if (version.regionMatches(true, 0, "dev-", 0, 4)) {
+            res = Version.branch(String.format("dev-%s", version.substring(4)));
+        } else {
+            final String bare = Version.strip(version, Version.BUILD);
+            final Matcher classical = Version.CLASSICAL.matcher(bare);
+            final Matcher date = Version.DATE.matcher(bare);
+            final Matcher suffix = Version.DEV_SUFFIX.matcher(bare);
+            if (classical.matches()) {
+                res = Version.modified(classical, 4);
+            } else if (date.matches()) {
+                res = Version.modified(date, 1);
+            } else if (suffix.matches()
+                && Version.NUMERIC_BRANCH.matcher(suffix.group(1)).matches()) {
+                res = Version.numericBranch(suffix.group(1));
+            } else {
+                res = Version.branch(value);
+            }
+        }
+        return res;
+    }
+
+    /**
+     * Parses version with numeric parts and stability modifier.
+     *
+     * @param matcher Matched version, numeric groups go first, then modifier groups.
+     * @param groups Number of numeric groups.
+     * @return Parsed version.
+     */
+    private static Version modified(final Matcher matcher, final int groups) {
+        final StringBuilder numbers = new StringBuilder();
+        for (int idx = 1; idx <= groups; idx += 1) {
+            final String group = matcher.group(idx);
+            if (group == null) {
+                numbers.append(".0");
+            } else if (group.charAt(0) == '.') {
+                numbers.append(group);
+            } else {
+                numbers.append('.').append(group.replaceAll("\\D", "."));
+            }
+        }
+        final String base = numbers.substring(1);
+        final String modifier = matcher.group(groups + 1);
+        final String digits = matcher.group(groups + 2);
+        final boolean suffix = matcher.group(groups + 3) != null;
+        final StringBuilder norm = new StringBuilder(base);
+        int rank = Version.STABLE;
+        long number = 0;
+        boolean dev = false;
+        if (modifier == null || !"stable".equalsIgnoreCase(modifier)) {
+            if (modifier != null) {
+                rank = Version.rank(modifier);
+                norm.append('-').append(Version.STABILITIES[rank]);
+                if (digits != null && !digits.isEmpty()) {
+                    final String trimmed = digits.replaceFirst("^[.-]+", "");
+                    norm.append(trimmed);
+                    number = Version.number(trimmed.split("[.-]")[0]);
+                }
+            }
+            if (suffix) {
+                norm.append("-dev");
+                if (modifier == null) {
+                    rank = 0;
+                }
+                dev = true;
+            }
+        }
+        return new Version(
+            "", norm.toString(), Version.numbers(base), rank, number, dev
+        );
+    }
+
+    /**
+     * Parses numeric branch, like '1.x'.
+     *
+     * @param branch Branch without dev suffix.
+     * @return Parsed version.
+     */
+    private static Version numericBranch(final String branch) {
+        final Matcher matcher = Version.NUMERIC_BRANCH.matcher(branch);
+        if (!matcher.matches()) {
+            throw new IllegalStateException(String.format("Not a branch: %s", branch));
+        }
+        final StringBuilder numbers = new StringBuilder(matcher.group(1));
+        for (int idx = 2; idx <= 4; idx += 1) {
+            final String group = matcher.group(idx);
+            if (group == null) {
+                numbers.append(".x");
+            } else {
+                numbers.append(group);
+            }
+        }
+        final String base = numbers.toString().replaceAll("[xX*]", Version.BRANCH);
+        return new Version(
+            "", String.format("%s-dev", base), Version.numbers(base), 0, 0, true
+        );
+    }
+
+    /**
+     * Named branch or version which can not be parsed.
+     *
+     * @param norm Normalized version.
+     * @return Parsed version.
+     */
+    private static Version branch(final String norm) {
+        return new Version("", norm, null, 0, 0, true);
+    }
+
+    /**
+     * Strips part of version not matched by first group of pattern.
+     *
+     * @param version Version.
+     * @param pattern Pattern.
+     * @return Stripped version or version as is if it does not match pattern.
+     */
+    private static String strip(final String version, final Pattern pattern) {
+        final Matcher matcher = pattern.matcher(version);
+        final String res;
+        if (matcher.matches()) {
+            res = matcher.group(1);
+        } else {
+            res = version;
+        }
+        return res;
+    }
+
+    /**
+     * Rank of stability modifier.
+     *
+     * @param modifier Stability modifier.
+     * @return Rank.
+     */
+    private static int rank(final String modifier) {
+        final String lower = modifier.toLowerCase(Locale.US);
+        final int res;
+        if (lower.charAt(0) == 'a') {
+            res = 1;
+        } else if (lower.charAt(0) == 'b') {
+            res = 2;
+        } else if ("rc".equals(lower)) {
+            res = 3;
+        } else {
+            res = Version.STABILITIES.length - 1;
+        }
+        return res;
+    }
+
+    /**
+     * Parses numeric parts of normalized version.
+     *
+     * @param base Numeric parts separated with dot.
+     * @return Numeric parts.
+     */
+    private static long[] numbers(final String base) {
+        return Arrays.stream(base.split("\\.")).mapToLong(Version::number).toArray();
+    }
+
+    /**
+     * Parses number, too big numbers are capped.
+     *
+     * @param digits Digits.
+     * @return Number.
+     */
+    private static long number(final String digits) {
+        long res;
+        try {
+            res = Long.parseLong(digits);
+        } catch (final NumberFormatException ex) {
+            res = Long.MAX_VALUE;
+        }
+        return res;
+    }
+
+    /**
+     * Compares numeric parts, missing parts are zeros.
+     *
+     * @param first First numeric parts.
+     * @param second Second numeric parts.
+     * @return Comparison result.
+     */
+    private static int compare(final long[] first, final long[] second) {
+        int res = 0;
+        for (int idx = 0; res == 0 && idx < Math.max(first.length, second.length); idx += 1) {
+            res = Long.compare(Version.part(first, idx), Version.part(second, idx));
+        }
+        return res;
+    }
+
+    /**
+     * Numeric part by index.
+     *
+     * @param parts Numeric parts.
+     * @param idx Index.
+     * @return Numeric part, zero if missing.
+     */
+    private static long part(final long[] parts, final int idx) {
+        final long res;
+        if (idx < parts.length) {
+            res = parts[idx];
+        } else {
+            res = 0;
+        }
+        return res;
+    }
+}
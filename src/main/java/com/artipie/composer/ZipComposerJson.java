@@ -0,0 +1,399 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2020 artipie.com
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included
+ * in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NON-INFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package com.artipie.composer;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Optional;
+import java.util.zip.DataFormatException;
+import java.util.zip.Inflater;
+
+/**
+ * Finds 'composer.json' in ZIP archive while archive is streamed.
+ * Archive is fed chunk by chunk, local file headers are read one after another,
+ * entries other than 'composer.json' are skipped without buffering. Only
+ * 'composer.json' in archive root or in single top level directory is accepted,
+ * as Composer does.
+ *
+ * @since 0.4
+ * @checkstyle CyclomaticComplexityCheck (500 lines)
+ */
+@SuppressWarnings({"PMD.AvoidFieldNameMatchingMethodName", "PMD.TooManyFields"})
+final class ZipComposerJson {
+
+    /**
+     * Local file header signature.
+     */
+    private static final int LOCAL = 0x04034b50;
+
+    /**
+     * Data descriptor signature.
+     */
+    private static final int DESCRIPTOR = 0x08074b50;
+
+    /**
+     * Local file header size without names.
+     */
+    private static final int HEADER = 30;
+
+    /**
+     * Maximum size of 'composer.json'.
+     */
+    private static final int LIMIT = 1024 * 1024;
+
+    /**
+     * Stored entry compression method.
+     */
+    private static final int STORED = 0;
+
+    /**
+     * Deflated entry compression method.
+     */
+    private static final int DEFLATED = 8;
+
+    /**
+     * Scanner states.
+     */
+    private enum State {
+        /**
+         * Reading local file header.
+         */
+        HEADER,
+
+        /**
+         * Reading file name and extra field.
+         */
+        NAME,
+
+        /**
+         * Reading entry data.
+         */
+        DATA,
+
+        /**
+         * Reading data descriptor signature or checksum.
+         */
+        DESCRIPTOR,
+
+        /**
+         * Reading rest of data descriptor.
+         */
+        SIZES,
+
+        /**
+         * Scanning finished.
+         */
+        DONE
+    }
+
+    /**
+     * Current state.
+     */
+    private State state;
+
+    /**
+     * Header part being read.
+     */
+    private byte[] part;
+
+    /**
+     * Number of bytes of header part read.
+     */
+    private int filled;
+
+    /**
+     * General purpose flags of current entry.
+     */
+    private int flags;
+
+    /**
+     * Compression method of current entry.
+     */
+    private int method;
+
+    /**
+     * Compressed size of current entry.
+     */
+    private long size;
+
+    /**
+     * Length of current entry name.
+     */
+    private int length;
+
+    /**
+     * Whether current entry is 'composer.json'.
+     */
+    private boolean target;
+
+    /**
+     * Compressed bytes of current entry left to read.
+     */
+    private long remaining;
+
+    /**
+     * Inflater for deflated entries.
+     */
+    private final Inflater inflater;
+
+    /**
+     * Content of 'composer.json'.
+     */
+    private final ByteArrayOutputStream json;
+
+    /**
+     * Whether 'composer.json' was found and read.
+     */
+    private boolean found;
+
+    /**
+     * Ctor.
+     */
+    ZipComposerJson() {
+        this.inflater = new Inflater(true);
+        this.json = new ByteArrayOutputStream();
+        this.expect(State.HEADER, ZipComposerJson.HEADER);
+    }
+
+    /**
+     * Feeds next chunk of archive.
+     *
+     * @param chunk Archive chunk, it is not modified.
+     */
+    void accept(final ByteBuffer chunk) {
+        final ByteBuffer src = chunk.duplicate();
+        while (src.hasRemaining() && this.state != State.DONE) {
+            if (this.state == State.DATA) {
+                this.data(src);
+            } else if (this.fill(src)) {
+                this.parsed();
+            }
+        }
+    }
+
+    /**
+     * Content of 'composer.json' found in archive.
+     *
+     * @return Content, empty if not found.
+     */
+    Optional<byte[]> content() {
+        final Optional<byte[]> res;
+        if (this.found) {
+            res = Optional.of(this.json.toByteArray());
+        } else {
+            res = Optional.empty();
+        }
+        return res;
+    }
+
+    /**
+     * Handles completely read header part.
+     */
+    private void parsed() {
+        if (this.state == State.HEADER) {
+            if (ZipComposerJson.int32(this.part, 0) == ZipComposerJson.LOCAL) {
+                this.flags = ZipComposerJson.int16(this.part, 6);
+                this.method = ZipComposerJson.int16(this.part, 8);
+                this.size = ZipComposerJson.int32(this.part, 18) & 0xFFFF_FFFFL;
+                this.length = ZipComposerJson.int16(this.part, 26);
+                this.expect(
+                    State.NAME, this.length + ZipComposerJson.int16(this.part, 28)
+                );
+            } else {
+                this.done();
+            }
+        } else if (this.state == State.NAME) {
+            this.entry(new String(this.part, 0, this.length, StandardCharsets.UTF_8));
+        } else if (this.state == State.DESCRIPTOR) {
+            if (ZipComposerJson.int32(this.part, 0) == ZipComposerJson.DESCRIPTOR) {
+                this.expect(State.SIZES, 12);
+            } else {
+                this.expect(State.SIZES, 8);
+            }
+        } else {
+            this.expect(State.HEADER, ZipComposerJson.HEADER);
+        }
+    }
+
+    /**
+     * Starts reading entry data.
+     *
+     * @param name Entry name.
+     */
+    private void entry(final String name) {
+        this.target = !name.endsWith("/")
+            && ("composer.json".equals(name) || name.matches("[^/]+/composer\\.json"));
+        final boolean unsized = (this.flags & 8) != 0;
+        if (this.method != ZipComposerJson.STORED && this.method != ZipComposerJson.DEFLATED
+            || unsized && this.method != ZipComposerJson.DEFLATED) {
+            if (this.target || unsized) {
+                this.done();
+            } else {
+                this.remaining = this.size;
+                this.state = State.DATA;
+            }
+        } else {
+            this.inflater.reset();
+            this.remaining = this.size;
+            this.state = State.DATA;
+        }
+        if (this.state == State.DATA && !unsized && this.remaining == 0) {
+            this.end();
+        }
+    }
+
+    /**
+     * Reads entry data from chunk.
+     *
+     * @param src Archive chunk.
+     */
+    private void data(final ByteBuffer src) {
+        if ((this.flags & 8) == 0) {
+            final int count = (int) Math.min(this.remaining, src.remaining());
+            if (this.target) {
+                final byte[] bytes = new byte[count];
+                src.get(bytes);
+                this.consume(bytes);
+            } else {
+                src.position(src.position() + count);
+            }
+            this.remaining -= count;
+            if (this.remaining == 0) {
+                this.end();
+            }
+        } else {
+            final byte[] bytes = new byte[src.remaining()];
+            src.get(bytes);
+            this.consume(bytes);
+            if (this.state == State.DATA && this.inflater.finished()) {
+                src.position(src.limit() - this.inflater.getRemaining());
+                this.end();
+            }
+        }
+    }
+
+    /**
+     * Consumes compressed bytes of entry.
+     *
+     * @param bytes Compressed bytes.
+     */
+    private void consume(final byte[] bytes) {
+        if (this.method == ZipComposerJson.STORED) {
+            this.json.write(bytes, 0, bytes.length);
+        } else {
+            this.inflater.setInput(bytes);
+            final byte[] out = new byte[8192];
+            try {
+                while (!this.inflater.finished() && !this.inflater.needsInput()) {
+                    final int count = this.inflater.inflate(out);
+                    if (this.target) {
+                        this.json.write(out, 0, count);
+                    }
+                    if (count == 0 && this.inflater.needsDictionary()) {
+                        throw new DataFormatException("Preset dictionary is not supported");
+                    }
+                }
+            } catch (final DataFormatException ex) {
+                this.target = false;
+                this.done();
+            }
+        }
+        if (this.json.size() > ZipComposerJson.LIMIT) {
+            this.target = false;
+            this.done();
+        }
+    }
+
+    /**
+     * Finishes entry.
+     */
+    private void end() {
+        if (this.state == State.DONE) {
+            this.target = false;
+        } else if (this.target) {
+            this.found = true;
+            this.done();
+        } else if ((this.flags & 8) == 0) {
+            this.expect(State.HEADER, ZipComposerJson.HEADER);
+        } else {
+            this.expect(State.DESCRIPTOR, 4);
+        }
+    }
+
+    /**
+     * Finishes scanning, releases inflater.
+     */
+    private void done() {
+        this.state = State.DONE;
+        this.inflater.end();
+    }
+
+    /**
+     * Starts reading header part.
+     *
+     * @param next State of reading.
+     * @param bytes Size of the part.
+     */
+    private void expect(final State next, final int bytes) {
+        this.state = next;
+        this.part = new byte[bytes];
+        this.filled = 0;
+    }
+
+    /**
+     * Reads header part from chunk.
+     *
+     * @param src Archive chunk.
+     * @return True if header part is completely read.
+     */
+    private boolean fill(final ByteBuffer src) {
+        final int count = Math.min(this.part.length - this.filled, src.remaining());
+        src.get(this.part, this.filled, count);
+        this.filled += count;
+        return this.filled == this.part.length;
+    }
+
+    /**
+     * Reads little endian 16-bit number.
+     *
+     * @param bytes Bytes.
+     * @param pos Position of number.
+     * @return Number.
+     */
+    private static int int16(final byte[] bytes, final int pos) {
+        return bytes[pos] & 0xFF | (bytes[pos + 1] & 0xFF) << 8;
+    }
+
+    /**
+     * Reads little endian 32-bit number.
+     *
+     * @param bytes Bytes.
+     * @param pos Position of number.
+     * @return Number.
+     */
+    private static int int32(final byte[] bytes, final int pos) {
+        return ZipComposerJson.int16(bytes, pos) | ZipComposerJson.int16(bytes, pos + 2) << 16;
+    }
+}
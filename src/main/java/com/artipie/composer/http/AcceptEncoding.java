@@ -0,0 +1,80 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2020 artipie.com
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included
+ * in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NON-INFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package com.artipie.composer.http;
+
+import java.util.Arrays;
+import java.util.Map;
+import java.util.stream.StreamSupport;
+
+/**
+ * Content codings accepted by client, 'Accept-Encoding' request header.
+ *
+ * @since 0.4
+ */
+final class AcceptEncoding {
+
+    /**
+     * Request headers.
+     */
+    private final Iterable<Map.Entry<String, String>> headers;
+
+    /**
+     * Ctor.
+     *
+     * @param headers Request headers.
+     */
+    AcceptEncoding(final Iterable<Map.Entry<String, String>> headers) {
+        this.headers = headers;
+    }
+
+    /**
+     * Checks whether client accepts gzip coding.
+     *
+     * @return True if gzip is accepted.
+     */
+    boolean gzip() {
+        return StreamSupport.stream(this.headers.spliterator(), false)
+            .filter(header -> "Accept-Encoding".equalsIgnoreCase(header.getKey()))
+            .flatMap(header -> Arrays.stream(header.getValue().split(",")))
+            .map(coding -> coding.trim().split(";"))
+            .filter(
+                coding -> "gzip".equalsIgnoreCase(coding[0].trim())
+                    || "*".equals(coding[0].trim())
+            )
+            .anyMatch(coding -> !AcceptEncoding.rejected(coding));
+    }
+
+    /**
+     * Checks whether coding is explicitly rejected with zero quality value.
+     *
+     * @param coding Coding name followed by its parameters.
+     * @return True if coding has zero quality value.
+     */
+    private static boolean rejected(final String... coding) {
+        return Arrays.stream(coding).skip(1)
+            .map(String::trim)
+            .filter(param -> param.startsWith("q="))
+            .anyMatch(param -> param.matches("q=0(\\.0{0,3})?"));
+    }
+}
@@ -24,6 +24,8 @@
 package com.artipie.composer.http;
 
 import com.artipie.asto.Content;
+import com.artipie.composer.Metrics;
+import com.artipie.composer.Name;
 import com.artipie.composer.Repository;
 import com.artipie.http.Response;
 import com.artipie.http.Slice;
@@ -32,11 +34,18 @@ import com.artipie.http.rs.RsStatus;
 import com.artipie.http.rs.RsWithStatus;
 import java.nio.ByteBuffer;
 import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
 import java.util.regex.Pattern;
+import java.util.stream.StreamSupport;
 import org.reactivestreams.Publisher;
 
 /**
  * Slice for adding a package to the repository.
+ * Package is added either as 'composer.json' or as ZIP archive with 'composer.json' inside,
+ * archive is expected with 'application/zip' content type. Archive URL is built with
+ * configured base URL of repository or with scheme and host of request.
+ * Durations of successful adds are reported to {@link Metrics}.
  *
  * @since 0.3
  */
@@ -47,18 +56,61 @@ public final class AddSlice implements Slice {
      */
     public static final Pattern PATH_PATTERN = Pattern.compile("^/$");
 
+    /**
+     * Timer of adding package.
+     */
+    private static final String ADD = "composer.http.add";
+
+    /**
+     * Timer of adding package archive.
+     */
+    private static final String ADD_ARCHIVE = "composer.http.add.archive";
+
     /**
      * Repository.
      */
     private final Repository repository;
 
+    /**
+     * Metrics.
+     */
+    private final Metrics metrics;
+
+    /**
+     * Base URL of repository for archive URLs.
+     */
+    private final BaseUrl base;
+
     /**
      * Ctor.
      *
      * @param repository Repository.
      */
     public AddSlice(final Repository repository) {
+        this(repository, Metrics.NOP);
+    }
+
+    /**
+     * Ctor.
+     *
+     * @param repository Repository.
+     * @param metrics Metrics to report to.
+     */
+    public AddSlice(final Repository repository, final Metrics metrics) {
+        this(repository, metrics, "");
+    }
+
+    /**
+     * Ctor.
+     *
+     * @param repository Repository.
+     * @param metrics Metrics to report to.
+     * @param base Base URL of repository for archive URLs, empty to build it from request.
+     */
+    public AddSlice(final Repository repository, final Metrics metrics, final String base) {
         this.repository = repository;
+        this.metrics = metrics;
+        this.base = new BaseUrl(base);
     }
 
     @Override
@@ -67,10 +119,51 @@ public final class AddSlice implements Slice {
         final Iterable<Map.Entry<String, String>> headers,
         final Publisher<ByteBuffer> body
     ) {
+        final long start = System.nanoTime();
+        final CompletableFuture<Name> added;
+        final String timer;
+        if (AddSlice.header(headers, "Content-Type").filter(AddSlice::zip).isPresent()) {
+            timer = AddSlice.ADD_ARCHIVE;
+            added = this.repository.addArchive(new Content.From(body), this.base.value(headers));
+        } else {
+            timer = AddSlice.ADD;
+            added = this.repository.add(new Content.From(body));
+        }
         return new AsyncResponse(
-            this.repository.add(new Content.From(body)).thenApply(
-                nothing -> new RsWithStatus(RsStatus.CREATED)
+            added.thenApply(
+                nothing -> {
+                    this.metrics.timer(timer, System.nanoTime() - start);
+                    return new RsWithStatus(RsStatus.CREATED);
+                }
             )
         );
     }
+
+    /**
+     * Finds request header value by name.
+     *
+     * @param headers Request headers.
+     * @param name Header name.
+     * @return Header value, empty if not found.
+     */
+    private static Optional<String> header(
+        final Iterable<Map.Entry<String, String>> headers, final String name
+    ) {
+        return StreamSupport.stream(headers.spliterator(), false)
+            .filter(header -> header.getKey().equalsIgnoreCase(name))
+            .map(Map.Entry::getValue)
+            .findFirst();
+    }
+
+    /**
+     * Checks whether content type is ZIP archive.
+     *
+     * @param type Content type.
+     * @return True if content is ZIP archive.
+     */
+    private static boolean zip(final String type) {
+        final String mime = type.split(";")[0].trim();
+        return "application/zip".equalsIgnoreCase(mime)
+            || "application/x-zip-compressed".equalsIgnoreCase(mime);
+    }
 }
@@ -0,0 +1,96 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2020 artipie.com
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included
+ * in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NON-INFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package com.artipie.composer.http;
+
+import java.util.Map;
+import java.util.Optional;
+import java.util.stream.StreamSupport;
+
+/**
+ * Base URL of repository used to build absolute URLs of archives and search pages.
+ * Configured base URL is used as is. If it is not configured, base URL is built from
+ * request: scheme is taken from 'X-Forwarded-Proto' header and host from
+ * 'X-Forwarded-Host' or 'Host' headers, so URLs are valid behind TLS terminating proxy.
+ *
+ * @since 0.4
+ */
+final class BaseUrl {
+
+    /**
+     * Configured base URL, empty to build it from request.
+     */
+    private final String configured;
+
+    /**
+     * Ctor.
+     *
+     * @param configured Configured base URL, empty to build it from request.
+     */
+    BaseUrl(final String configured) {
+        this.configured = configured.replaceAll("/+$", "");
+    }
+
+    /**
+     * Base URL without trailing slash.
+     *
+     * @param headers Request headers.
+     * @return Base URL, empty if it is not configured and request has no host.
+     */
+    String value(final Iterable<Map.Entry<String, String>> headers) {
+        final String res;
+        if (this.configured.isEmpty()) {
+            res = BaseUrl.header(headers, "X-Forwarded-Host")
+                .map(Optional::of)
+                .orElseGet(() -> BaseUrl.header(headers, "Host"))
+                .map(
+                    host -> String.format(
+                        "%s://%s",
+                        BaseUrl.header(headers, "X-Forwarded-Proto").orElse("http"),
+                        host
+                    )
+                ).orElse("");
+        } else {
+            res = this.configured;
+        }
+        return res;
+    }
+
+    /**
+     * Finds first value of request header by name, proxies append values of
+     * forwarded headers separated by comma.
+     *
+     * @param headers Request headers.
+     * @param name Header name.
+     * @return Header value, empty if not found.
+     */
+    private static Optional<String> header(
+        final Iterable<Map.Entry<String, String>> headers, final String name
+    ) {
+        return StreamSupport.stream(headers.spliterator(), false)
+            .filter(header -> header.getKey().equalsIgnoreCase(name))
+            .map(header -> header.getValue().split(",")[0].trim())
+            .filter(value -> !value.isEmpty())
+            .findFirst();
+    }
+}
@@ -0,0 +1,488 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2020 artipie.com
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included
+ * in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NON-INFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package com.artipie.composer.http;
+
+import com.artipie.asto.Content;
+import com.artipie.asto.Key;
+import com.artipie.asto.Storage;
+import com.artipie.asto.ext.PublisherAs;
+import com.artipie.composer.IndexStorage;
+import com.artipie.composer.SingleFlight;
+import com.artipie.http.Response;
+import com.artipie.http.Slice;
+import com.artipie.http.async.AsyncResponse;
+import com.artipie.http.headers.Header;
+import com.artipie.http.rq.RequestLine;
+import com.artipie.http.rq.RequestLineFrom;
+import com.artipie.http.rq.RqMethod;
+import com.artipie.http.rs.RsStatus;
+import com.artipie.http.rs.RsWithBody;
+import com.artipie.http.rs.RsWithHeaders;
+import com.artipie.http.rs.RsWithStatus;
+import com.artipie.http.rs.StandardRs;
+import java.io.ByteArrayInputStream;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionStage;
+import java.util.stream.StreamSupport;
+import javax.json.Json;
+import javax.json.JsonException;
+import javax.json.JsonObject;
+import javax.json.JsonObjectBuilder;
+import javax.json.JsonReader;
+import javax.json.JsonString;
+import org.reactivestreams.Publisher;
+
+/**
+ * Slice that serves files of upstream Composer repository and caches them in storage.
+ * Files are streamed from upstream to storage and served from storage. Upstream
+ * 'Content-Type' and validators ('ETag' and 'Last-Modified') are kept in a sidecar
+ * file next to cached file, 'Content-Type' is sent to clients with cached file.
+ * Metadata files are revalidated with upstream once time to live since they were
+ * fetched or revalidated last time has passed: upstream is asked with 'If-None-Match'
+ * and 'If-Modified-Since' conditions built from stored validators, and if upstream
+ * answers it is not modified, only sidecar is renewed. Archives and files named by hash
+ * of content never change, so they are fetched once and never revalidated.
+ * If upstream fails or is not reachable, cached copy is served even if it is expired.
+ * Concurrent misses of the same file are coalesced, so that upstream is requested
+ * and cached copy is written once per file, not once per client.
+ * Storage locations are built from matched parts of the path only, other paths
+ * are not found.
+ * Metadata is served as upstream provides it: 'dist' URLs are not rewritten and refer
+ * to archives at upstream, archives are cached only when clients request them with
+ * '/dist/' path of this slice.
+ *
+ * @since 0.4
+ */
+public final class CachedProxySlice implements Slice {
+
+    /**
+     * Default time to live of cached metadata.
+     */
+    private static final Duration TTL = Duration.ofMinutes(10);
+
+    /**
+     * Upstream response headers kept in sidecar.
+     */
+    private static final List<String> KEPT = Collections.unmodifiableList(
+        Arrays.asList("Content-Type", "ETag", "Last-Modified")
+    );
+
+    /**
+     * Sidecar attribute with time of last fetch or revalidation.
+     */
+    private static final String FETCHED = "fetched";
+
+    /**
+     * Sidecar attribute with kept upstream headers.
+     */
+    private static final String HEADERS = "headers";
+
+    /**
+     * Upstream repository.
+     */
+    private final Slice remote;
+
+    /**
+     * Storage for cached files.
+     */
+    private final Storage storage;
+
+    /**
+     * Time to live of cached metadata.
+     */
+    private final Duration ttl;
+
+    /**
+     * Upstream fetches in flight by cached file location.
+     */
+    private final SingleFlight<String, RsStatus> flights;
+
+    /**
+     * Ctor.
+     *
+     * @param remote Upstream repository.
+     * @param storage Storage for cached files.
+     */
+    public CachedProxySlice(final Slice remote, final Storage storage) {
+        this(remote, storage, CachedProxySlice.TTL);
+    }
+
+    /**
+     * Ctor.
+     *
+     * @param remote Upstream repository.
+     * @param storage Storage for cached files.
+     * @param ttl Time to live of cached metadata.
+     */
+    public CachedProxySlice(final Slice remote, final Storage storage, final Duration ttl) {
+        this.remote = remote;
+        this.storage = storage;
+        this.ttl = ttl;
+        this.flights = new SingleFlight<>();
+    }
+
+    @Override
+    public Response response(
+        final String line,
+        final Iterable<Map.Entry<String, String>> headers,
+        final Publisher<ByteBuffer> body
+    ) {
+        final String path = new RequestLineFrom(line).uri().getPath();
+        final Optional<Key> key = CachedProxySlice.key(path);
+        final CompletionStage<Response> res;
+        if (!key.isPresent()) {
+            res = CompletableFuture.completedFuture(new RsWithStatus(RsStatus.NOT_FOUND));
+        } else if (DistSlice.PATH_PATTERN.matcher(path).matches() || path.contains("$")) {
+            res = this.immutable(path, key.get());
+        } else {
+            res = this.metadata(path, key.get());
+        }
+        return new AsyncResponse(res);
+    }
+
+    /**
+     * Serves file which never changes, fetching it from upstream if it is not cached.
+     *
+     * @param path Resource path.
+     * @param key Cached file location.
+     * @return Response.
+     */
+    private CompletionStage<Response> immutable(final String path, final Key key) {
+        return this.storage.exists(key).thenCompose(
+            exists -> {
+                final CompletionStage<RsStatus> status;
+                if (exists) {
+                    status = CompletableFuture.completedFuture(RsStatus.OK);
+                } else {
+                    status = this.flights.apply(
+                        key.string(), () -> this.fetch(path, key, Optional.empty())
+                    );
+                }
+                return status.thenCompose(fetched -> this.served(path, key, fetched));
+            }
+        );
+    }
+
+    /**
+     * Serves metadata file, fetching it from upstream if it is not cached
+     * or revalidating it if it is expired.
+     *
+     * @param path Resource path.
+     * @param key Cached file location.
+     * @return Response.
+     */
+    private CompletionStage<Response> metadata(final String path, final Key key) {
+        return this.storage.exists(key).thenCompose(
+            exists -> {
+                final CompletionStage<Optional<JsonObject>> stored;
+                if (exists) {
+                    stored = this.sidecar(key);
+                } else {
+                    stored = CompletableFuture.completedFuture(Optional.empty());
+                }
+                return stored.thenCompose(sidecar -> this.metadata(path, key, exists, sidecar));
+            }
+        );
+    }
+
+    /**
+     * Serves metadata file from cache if it is fresh, otherwise fetches it from upstream
+     * or revalidates it. Cached copy is served if upstream fails.
+     *
+     * @param path Resource path.
+     * @param key Cached file location.
+     * @param exists Whether file is cached.
+     * @param stored Sidecar of cached file, empty if file is not cached or sidecar is corrupt.
+     * @return Response.
+     * @checkstyle ParameterNumberCheck (5 lines)
+     */
+    private CompletionStage<Response> metadata(
+        final String path, final Key key, final boolean exists, final Optional<JsonObject> stored
+    ) {
+        final CompletionStage<Response> res;
+        if (stored.isPresent() && Instant.parse(
+            stored.get().getString(CachedProxySlice.FETCHED)
+        ).plus(this.ttl).isAfter(Instant.now())) {
+            res = this.cached(path, key);
+        } else {
+            res = this.flights.apply(
+                key.string(), () -> this.fetch(path, key, stored)
+            ).thenCompose(
+                status -> {
+                    final CompletionStage<Response> served;
+                    if (exists && status != RsStatus.OK && !status.clientError()) {
+                        served = this.cached(path, key);
+                    } else {
+                        served = this.served(path, key, status);
+                    }
+                    return served;
+                }
+            );
+        }
+        return res;
+    }
+
+    /**
+     * Fetches file from upstream and streams it to storage.
+     * If upstream answers that cached copy is not modified, only its sidecar is renewed.
+     * Upstream failure is reported as 'Service Unavailable' status.
+     *
+     * @param path Resource path.
+     * @param key Cached file location.
+     * @param stored Sidecar of cached file, empty if file is not cached.
+     * @return Upstream response status, status is OK if cached copy is written or renewed.
+     */
+    private CompletionStage<RsStatus> fetch(
+        final String path, final Key key, final Optional<JsonObject> stored
+    ) {
+        final List<Map.Entry<String, String>> conditions = new ArrayList<>(2);
+        stored.map(sidecar -> sidecar.getJsonObject(CachedProxySlice.HEADERS)).ifPresent(
+            kept -> {
+                if (kept.containsKey("ETag")) {
+                    conditions.add(new Header("If-None-Match", kept.getString("ETag")));
+                }
+                if (kept.containsKey("Last-Modified")) {
+                    conditions.add(
+                        new Header("If-Modified-Since", kept.getString("Last-Modified"))
+                    );
+                }
+            }
+        );
+        final CompletableFuture<RsStatus> res = new CompletableFuture<>();
+        return this.remote.response(
+            new RequestLine(RqMethod.GET, path).toString(), conditions, Content.EMPTY
+        ).send(
+            (status, headers, body) -> {
+                final CompletionStage<RsStatus> saved;
+                if (status == RsStatus.OK) {
+                    saved = this.storage.save(
+                        key,
+                        new Content.From(CachedProxySlice.length(headers), body)
+                    ).thenCompose(
+                        written -> this.renew(key, Json.createObjectBuilder().build(), headers)
+                    );
+                } else if (status == RsStatus.NOT_MODIFIED && stored.isPresent()) {
+                    saved = this.renew(
+                        key, stored.get().getJsonObject(CachedProxySlice.HEADERS), headers
+                    );
+                } else {
+                    saved = CompletableFuture.completedFuture(status);
+                }
+                return saved.thenAccept(res::complete);
+            }
+        ).thenApply(nothing -> res.getNow(RsStatus.UNAVAILABLE))
+            .exceptionally(err -> RsStatus.UNAVAILABLE);
+    }
+
+    /**
+     * Writes sidecar of cached file fetched or revalidated right now.
+     *
+     * @param key Cached file location.
+     * @param kept Upstream headers kept before.
+     * @param headers Upstream response headers, they replace headers kept before.
+     * @return OK status once sidecar is written.
+     */
+    private CompletionStage<RsStatus> renew(
+        final Key key, final JsonObject kept, final Iterable<Map.Entry<String, String>> headers
+    ) {
+        final JsonObjectBuilder updated = Json.createObjectBuilder(kept);
+        for (final String name : CachedProxySlice.KEPT) {
+            CachedProxySlice.header(headers, name).ifPresent(value -> updated.add(name, value));
+        }
+        return this.storage.save(
+            CachedProxySlice.sidecarKey(key),
+            new Content.From(
+                Json.createObjectBuilder()
+                    .add(CachedProxySlice.FETCHED, Instant.now().toString())
+                    .add(CachedProxySlice.HEADERS, updated)
+                    .build().toString().getBytes(StandardCharsets.UTF_8)
+            )
+        ).thenApply(nothing -> RsStatus.OK);
+    }
+
+    /**
+     * Reads sidecar of cached file.
+     * Sidecar which is not valid is treated as missing, so the file is fetched again.
+     *
+     * @param key Cached file location.
+     * @return Sidecar, empty if file was cached without it or sidecar is corrupt.
+     */
+    private CompletionStage<Optional<JsonObject>> sidecar(final Key key) {
+        return new IndexStorage(this.storage).value(CachedProxySlice.sidecarKey(key))
+            .thenCompose(
+                sidecar -> sidecar.map(
+                    content -> new PublisherAs(content).bytes()
+                        .thenApply(CachedProxySlice::parsed)
+                ).orElse(CompletableFuture.completedFuture(Optional.empty()))
+            );
+    }
+
+    /**
+     * Response to upstream response status.
+     *
+     * @param path Resource path.
+     * @param key Cached file location.
+     * @param status Upstream response status, OK if cached copy is written or renewed.
+     * @return Response.
+     */
+    private CompletionStage<Response> served(
+        final String path, final Key key, final RsStatus status
+    ) {
+        final CompletionStage<Response> res;
+        if (status == RsStatus.OK) {
+            res = this.cached(path, key);
+        } else {
+            res = CompletableFuture.completedFuture(new RsWithStatus(status));
+        }
+        return res;
+    }
+
+    /**
+     * Serves cached file with kept upstream 'Content-Type'.
+     *
+     * @param path Resource path.
+     * @param key Cached file location.
+     * @return Response.
+     */
+    private CompletionStage<Response> cached(final String path, final Key key) {
+        return this.sidecar(key).thenCompose(
+            sidecar -> new IndexStorage(this.storage).value(key).thenApply(
+                opt -> opt.<Response>map(
+                    content -> new RsWithHeaders(
+                        new RsWithBody(StandardRs.EMPTY, content),
+                        "Content-Type",
+                        sidecar.map(json -> json.getJsonObject(CachedProxySlice.HEADERS))
+                            .filter(kept -> kept.containsKey("Content-Type"))
+                            .map(kept -> kept.getString("Content-Type"))
+                            .orElse(CachedProxySlice.type(path))
+                    )
+                ).orElse(new RsWithStatus(RsStatus.NOT_FOUND))
+            )
+        );
+    }
+
+    /**
+     * Parses sidecar content.
+     *
+     * @param bytes Sidecar content.
+     * @return Sidecar, empty if it is not valid.
+     */
+    private static Optional<JsonObject> parsed(final byte[] bytes) {
+        Optional<JsonObject> res;
+        try (JsonReader reader = Json.createReader(new ByteArrayInputStream(bytes))) {
+            final JsonObject json = reader.readObject();
+            if (json.get(CachedProxySlice.FETCHED) instanceof JsonString
+                && json.get(CachedProxySlice.HEADERS) instanceof JsonObject) {
+                Instant.parse(json.getString(CachedProxySlice.FETCHED));
+                res = Optional.of(json);
+            } else {
+                res = Optional.empty();
+            }
+        } catch (final JsonException | DateTimeParseException ex) {
+            res = Optional.empty();
+        }
+        return res;
+    }
+
+    /**
+     * Builds cached file location from matched path.
+     *
+     * @param path Resource path.
+     * @return Cached file location, empty if path is neither metadata nor archive path.
+     */
+    private static Optional<Key> key(final String path) {
+        final Optional<Key> res;
+        if (DistSlice.PATH_PATTERN.matcher(path).matches()) {
+            res = Optional.of(new Key.From(path.substring(1)));
+        } else {
+            res = PackageMetadataSlice.key(path);
+        }
+        return res;
+    }
+
+    /**
+     * Location of cached file sidecar.
+     *
+     * @param key Cached file location.
+     * @return Sidecar location.
+     */
+    private static Key sidecarKey(final Key key) {
+        return new Key.From(String.format("%s.upstream", key.string()));
+    }
+
+    /**
+     * Content type of file cached without upstream 'Content-Type'.
+     *
+     * @param path Resource path.
+     * @return Content type.
+     */
+    private static String type(final String path) {
+        final String res;
+        if (DistSlice.PATH_PATTERN.matcher(path).matches()) {
+            res = "application/zip";
+        } else {
+            res = "application/json";
+        }
+        return res;
+    }
+
+    /**
+     * Content length sent by upstream.
+     *
+     * @param headers Upstream response headers.
+     * @return Content length, empty if it is not sent or is not a number.
+     */
+    private static Optional<Long> length(final Iterable<Map.Entry<String, String>> headers) {
+        return CachedProxySlice.header(headers, "Content-Length")
+            .filter(value -> value.matches("\\d{1,18}"))
+            .map(Long::parseLong);
+    }
+
+    /**
+     * First value of header.
+     *
+     * @param headers Headers.
+     * @param name Header name.
+     * @return Header value, empty if there is no such header.
+     */
+    private static Optional<String> header(
+        final Iterable<Map.Entry<String, String>> headers, final String name
+    ) {
+        return StreamSupport.stream(headers.spliterator(), false)
+            .filter(header -> header.getKey().equalsIgnoreCase(name))
+            .map(Map.Entry::getValue)
+            .findFirst();
+    }
+}
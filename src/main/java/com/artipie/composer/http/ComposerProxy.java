@@ -0,0 +1,89 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2020 artipie.com
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included
+ * in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NON-INFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package com.artipie.composer.http;
+
+import com.artipie.asto.Storage;
+import com.artipie.http.Slice;
+import com.artipie.http.rt.ByMethodsRule;
+import com.artipie.http.rt.RtRule;
+import com.artipie.http.rt.RtRulePath;
+import com.artipie.http.rt.SliceRoute;
+import java.time.Duration;
+
+/**
+ * PHP Composer proxy repository HTTP front end.
+ * Serves metadata and archives of upstream repository, like packagist.org,
+ * caching them in storage, see {@link CachedProxySlice}. Upstream is any slice,
+ * usually HTTP client slice sending requests to upstream host.
+ *
+ * @since 0.4
+ */
+public final class ComposerProxy extends Slice.Wrap {
+
+    /**
+     * Ctor.
+     *
+     * @param remote Upstream repository.
+     * @param storage Storage for cached files.
+     */
+    public ComposerProxy(final Slice remote, final Storage storage) {
+        this(new CachedProxySlice(remote, storage));
+    }
+
+    /**
+     * Ctor.
+     *
+     * @param remote Upstream repository.
+     * @param storage Storage for cached files.
+     * @param ttl Time to live of cached metadata.
+     */
+    public ComposerProxy(final Slice remote, final Storage storage, final Duration ttl) {
+        this(new CachedProxySlice(remote, storage, ttl));
+    }
+
+    /**
+     * Primary ctor.
+     *
+     * @param cached Caching proxy slice.
+     */
+    private ComposerProxy(final Slice cached) {
+        super(
+            new SliceRoute(
+                new RtRulePath(
+                    new RtRule.All(
+                        new RtRule.Any(
+                            new RtRule.ByPath(PackageMetadataSlice.PACKAGE),
+                            new RtRule.ByPath(PackageMetadataSlice.P2),
+                            new RtRule.ByPath(PackageMetadataSlice.PROVIDERS),
+                            new RtRule.ByPath(PackageMetadataSlice.ALL_PACKAGES),
+                            new RtRule.ByPath(DistSlice.PATH_PATTERN)
+                        ),
+                        ByMethodsRule.Standard.GET
+                    ),
+                    cached
+                )
+            )
+        );
+    }
+}
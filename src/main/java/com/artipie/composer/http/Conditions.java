@@ -0,0 +1,124 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2020 artipie.com
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included
+ * in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NON-INFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package com.artipie.composer.http;
+
+import com.artipie.composer.Etag;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.time.ZonedDateTime;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+import java.util.Arrays;
+import java.util.Map;
+import java.util.Optional;
+import java.util.stream.StreamSupport;
+
+/**
+ * Conditions of conditional GET request: 'If-None-Match' and 'If-Modified-Since' headers.
+ *
+ * @since 0.4
+ */
+final class Conditions {
+
+    /**
+     * Request headers.
+     */
+    private final Iterable<Map.Entry<String, String>> headers;
+
+    /**
+     * Ctor.
+     *
+     * @param headers Request headers.
+     */
+    Conditions(final Iterable<Map.Entry<String, String>> headers) {
+        this.headers = headers;
+    }
+
+    /**
+     * Checks whether client already has content described by validator.
+     * 'If-Modified-Since' is ignored when 'If-None-Match' is present.
+     *
+     * @param etag Validator of current content.
+     * @return True if content was not modified.
+     */
+    boolean fresh(final Etag etag) {
+        final Optional<String> match = this.header("If-None-Match");
+        final boolean res;
+        if (match.isPresent()) {
+            res = Arrays.stream(match.get().split(","))
+                .map(String::trim)
+                .map(tag -> tag.replaceFirst("^W/", ""))
+                .anyMatch(tag -> "*".equals(tag) || tag.equals(etag.value()));
+        } else {
+            res = this.header("If-Modified-Since")
+                .flatMap(Conditions::date)
+                .map(since -> !etag.modified().isAfter(since))
+                .orElse(false);
+        }
+        return res;
+    }
+
+    /**
+     * Formats time as HTTP date.
+     *
+     * @param time Time.
+     * @return HTTP date.
+     */
+    static String httpDate(final Instant time) {
+        return DateTimeFormatter.RFC_1123_DATE_TIME.format(
+            ZonedDateTime.ofInstant(time, ZoneOffset.UTC)
+        );
+    }
+
+    /**
+     * Finds request header value by name.
+     *
+     * @param name Header name.
+     * @return Header value, empty if not found.
+     */
+    private Optional<String> header(final String name) {
+        return StreamSupport.stream(this.headers.spliterator(), false)
+            .filter(header -> header.getKey().equalsIgnoreCase(name))
+            .map(Map.Entry::getValue)
+            .findFirst();
+    }
+
+    /**
+     * Parses HTTP date.
+     *
+     * @param value HTTP date.
+     * @return Time, empty if date is malformed.
+     */
+    private static Optional<Instant> date(final String value) {
+        Optional<Instant> res;
+        try {
+            res = Optional.of(
+                ZonedDateTime.parse(value, DateTimeFormatter.RFC_1123_DATE_TIME).toInstant()
+            );
+        } catch (final DateTimeParseException ex) {
+            res = Optional.empty();
+        }
+        return res;
+    }
+}
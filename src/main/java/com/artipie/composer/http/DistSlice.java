@@ -0,0 +1,88 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2020 artipie.com
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included
+ * in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NON-INFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package com.artipie.composer.http;
+
+import com.artipie.asto.Key;
+import com.artipie.composer.Repository;
+import com.artipie.http.Response;
+import com.artipie.http.Slice;
+import com.artipie.http.async.AsyncResponse;
+import com.artipie.http.rq.RequestLineFrom;
+import com.artipie.http.rs.RsStatus;
+import com.artipie.http.rs.RsWithBody;
+import com.artipie.http.rs.RsWithHeaders;
+import com.artipie.http.rs.RsWithStatus;
+import com.artipie.http.rs.StandardRs;
+import java.nio.ByteBuffer;
+import java.util.Map;
+import java.util.regex.Pattern;
+import org.reactivestreams.Publisher;
+
+/**
+ * Slice that serves package archives uploaded to the repository.
+ * Archives are streamed from storage, they are never buffered or cached in memory.
+ *
+ * @since 0.4
+ */
+public final class DistSlice implements Slice {
+
+    /**
+     * RegEx pattern for archive path.
+     */
+    public static final Pattern PATH_PATTERN = Pattern.compile(
+        "^/dist/[^/.][^/]*/[^/.][^/]*/[^/.][^/]*\\.zip$"
+    );
+
+    /**
+     * Repository.
+     */
+    private final Repository repository;
+
+    /**
+     * Ctor.
+     *
+     * @param repository Repository.
+     */
+    public DistSlice(final Repository repository) {
+        this.repository = repository;
+    }
+
+    @Override
+    public Response response(
+        final String line,
+        final Iterable<Map.Entry<String, String>> headers,
+        final Publisher<ByteBuffer> body
+    ) {
+        final String path = new RequestLineFrom(line).uri().getPath();
+        return new AsyncResponse(
+            this.repository.archive(new Key.From(path.substring(1))).thenApply(
+                opt -> opt.<Response>map(
+                    content -> new RsWithHeaders(
+                        new RsWithBody(StandardRs.EMPTY, content), "Content-Type", "application/zip"
+                    )
+                ).orElse(new RsWithStatus(RsStatus.NOT_FOUND))
+            )
+        );
+    }
+}
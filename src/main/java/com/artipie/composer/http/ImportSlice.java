@@ -0,0 +1,117 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2020 artipie.com
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included
+ * in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NON-INFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package com.artipie.composer.http;
+
+import com.artipie.asto.Content;
+import com.artipie.composer.Repository;
+import com.artipie.http.Response;
+import com.artipie.http.Slice;
+import com.artipie.http.async.AsyncResponse;
+import com.artipie.http.rs.RsStatus;
+import com.artipie.http.rs.RsWithStatus;
+import io.reactivex.Flowable;
+import java.nio.ByteBuffer;
+import java.util.Map;
+import java.util.concurrent.CompletionException;
+import java.util.regex.Pattern;
+import javax.json.JsonException;
+import org.reactivestreams.Publisher;
+
+/**
+ * Slice for adding many packages to the repository at once.
+ * Request body is either JSON array of package documents
+ * or newline delimited JSON with one package document per line.
+ * Body is split into documents while it is streamed into repository, each document is
+ * checked while streaming. If any document is not valid JSON object or has no valid
+ * package name or version, nothing is imported and request is rejected with
+ * '400 Bad Request'.
+ *
+ * @since 0.4
+ */
+public final class ImportSlice implements Slice {
+
+    /**
+     * RegEx pattern for matching path.
+     */
+    public static final Pattern PATH_PATTERN = Pattern.compile("^/import$");
+
+    /**
+     * Repository.
+     */
+    private final Repository repository;
+
+    /**
+     * Ctor.
+     *
+     * @param repository Repository.
+     */
+    public ImportSlice(final Repository repository) {
+        this.repository = repository;
+    }
+
+    @Override
+    public Response response(
+        final String line,
+        final Iterable<Map.Entry<String, String>> headers,
+        final Publisher<ByteBuffer> body
+    ) {
+        final JsonDocuments docs = new JsonDocuments();
+        return new AsyncResponse(
+            this.repository.addAll(
+                Flowable.fromPublisher(body)
+                    .concatMapIterable(docs::accept)
+                    .concatWith(Flowable.defer(() -> Flowable.fromIterable(docs.finish())))
+                    .<Content>map(Content.From::new)
+            ).handle(
+                (nothing, err) -> {
+                    final Response res;
+                    if (err == null) {
+                        res = new RsWithStatus(RsStatus.CREATED);
+                    } else if (ImportSlice.malformed(err)) {
+                        res = new RsWithStatus(RsStatus.BAD_REQUEST);
+                    } else {
+                        throw new CompletionException(err);
+                    }
+                    return res;
+                }
+            )
+        );
+    }
+
+    /**
+     * Checks whether import failed because of malformed package document.
+     *
+     * @param err Import failure.
+     * @return True if some document is not valid JSON object or valid package.
+     */
+    private static boolean malformed(final Throwable err) {
+        final Throwable cause;
+        if (err instanceof CompletionException && err.getCause() != null) {
+            cause = err.getCause();
+        } else {
+            cause = err;
+        }
+        return cause instanceof JsonException;
+    }
+}
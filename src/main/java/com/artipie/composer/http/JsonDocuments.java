@@ -0,0 +1,268 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2020 artipie.com
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included
+ * in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NON-INFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package com.artipie.composer.http;
+
+import com.artipie.composer.JsonPackage;
+import com.artipie.composer.Package;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import javax.json.Json;
+import javax.json.JsonException;
+import javax.json.JsonReader;
+
+/**
+ * Splits request body into package documents while body is streamed.
+ * Body is either JSON array of package documents or newline delimited JSON with one
+ * package document per line, kind of body is detected by its first character.
+ * Each completed document is parsed and checked here, so that invalid document fails
+ * the body before anything is imported. Every document should be JSON object with
+ * valid package name and version, otherwise {@link JsonException} is thrown.
+ *
+ * @since 0.4
+ * @checkstyle CyclomaticComplexityCheck (500 lines)
+ */
+final class JsonDocuments {
+
+    /**
+     * Splitter states.
+     */
+    private enum State {
+        /**
+         * Waiting for first character of body.
+         */
+        START,
+
+        /**
+         * Reading newline delimited JSON line.
+         */
+        LINE,
+
+        /**
+         * Waiting for next element of array.
+         */
+        ARRAY,
+
+        /**
+         * Reading array element.
+         */
+        ELEMENT,
+
+        /**
+         * Array is closed.
+         */
+        DONE
+    }
+
+    /**
+     * Current state.
+     */
+    private State state;
+
+    /**
+     * Current document.
+     */
+    private final ByteArrayOutputStream current;
+
+    /**
+     * Nesting depth of current array element.
+     */
+    private int depth;
+
+    /**
+     * Whether current array element position is inside of string.
+     */
+    private boolean string;
+
+    /**
+     * Whether previous character of string is escape character.
+     */
+    private boolean escaped;
+
+    /**
+     * Ctor.
+     */
+    JsonDocuments() {
+        this.state = State.START;
+        this.current = new ByteArrayOutputStream();
+    }
+
+    /**
+     * Accepts next chunk of body.
+     *
+     * @param chunk Body chunk.
+     * @return Documents completed by the chunk.
+     */
+    List<byte[]> accept(final ByteBuffer chunk) {
+        final List<byte[]> res = new ArrayList<>(0);
+        final ByteBuffer buf = chunk.duplicate();
+        while (buf.hasRemaining()) {
+            final byte next = buf.get();
+            switch (this.state) {
+                case START:
+                    if (next == '[') {
+                        this.state = State.ARRAY;
+                    } else if (!Character.isWhitespace(next)) {
+                        this.state = State.LINE;
+                        this.line(next, res);
+                    }
+                    break;
+                case LINE:
+                    this.line(next, res);
+                    break;
+                case ARRAY:
+                    this.array(next);
+                    break;
+                case ELEMENT:
+                    this.element(next, res);
+                    break;
+                default:
+                    if (!Character.isWhitespace(next)) {
+                        throw new JsonException("Unexpected content after array");
+                    }
+                    break;
+            }
+        }
+        return res;
+    }
+
+    /**
+     * Completes body, last line of newline delimited JSON is returned.
+     *
+     * @return Remaining documents.
+     */
+    List<byte[]> finish() {
+        final List<byte[]> res;
+        if (this.state == State.LINE) {
+            res = new ArrayList<>(1);
+            JsonDocuments.document(this.current.toByteArray(), res);
+            this.current.reset();
+        } else if (this.state == State.ARRAY || this.state == State.ELEMENT) {
+            throw new JsonException("Array of packages is not closed");
+        } else {
+            res = Collections.emptyList();
+        }
+        return res;
+    }
+
+    /**
+     * Accepts character of newline delimited JSON.
+     *
+     * @param next Character.
+     * @param res Completed documents.
+     */
+    private void line(final byte next, final List<byte[]> res) {
+        if (next == '\n') {
+            JsonDocuments.document(this.current.toByteArray(), res);
+            this.current.reset();
+        } else {
+            this.current.write(next);
+        }
+    }
+
+    /**
+     * Accepts character of array between elements.
+     *
+     * @param next Character.
+     */
+    private void array(final byte next) {
+        if (next == '{') {
+            this.state = State.ELEMENT;
+            this.depth = 1;
+            this.current.write(next);
+        } else if (next == ']') {
+            this.state = State.DONE;
+        } else if (next != ',' && !Character.isWhitespace(next)) {
+            throw new JsonException("Package should be JSON object");
+        }
+    }
+
+    /**
+     * Accepts character of array element.
+     *
+     * @param next Character.
+     * @param res Completed documents.
+     */
+    private void element(final byte next, final List<byte[]> res) {
+        this.current.write(next);
+        if (this.string) {
+            if (this.escaped) {
+                this.escaped = false;
+            } else if (next == '\\') {
+                this.escaped = true;
+            } else if (next == '"') {
+                this.string = false;
+            }
+        } else if (next == '"') {
+            this.string = true;
+        } else if (next == '{' || next == '[') {
+            this.depth += 1;
+        } else if (next == '}' || next == ']') {
+            this.depth -= 1;
+            if (this.depth == 0) {
+                res.add(JsonDocuments.checked(this.current.toByteArray()));
+                this.current.reset();
+                this.state = State.ARRAY;
+            }
+        }
+    }
+
+    /**
+     * Adds line of newline delimited JSON to documents, blank lines are skipped.
+     *
+     * @param line Line.
+     * @param res Completed documents.
+     */
+    private static void document(final byte[] line, final List<byte[]> res) {
+        final byte[] doc = new String(line, StandardCharsets.UTF_8).trim()
+            .getBytes(StandardCharsets.UTF_8);
+        if (doc.length > 0) {
+            if (doc[0] != '{') {
+                throw new JsonException("Package should be JSON object");
+            }
+            res.add(JsonDocuments.checked(doc));
+        }
+    }
+
+    /**
+     * Checks that document is JSON object with valid package name and version.
+     *
+     * @param doc Document.
+     * @return Checked document.
+     */
+    private static byte[] checked(final byte[] doc) {
+        try (JsonReader reader = Json.createReader(new ByteArrayInputStream(doc))) {
+            final Package pack = new JsonPackage(reader.readObject());
+            pack.name().key();
+            pack.versionKey();
+        } catch (final IllegalStateException | IllegalArgumentException ex) {
+            throw new JsonException(String.format("Invalid package: %s", ex.getMessage()), ex);
+        }
+        return doc;
+    }
+}
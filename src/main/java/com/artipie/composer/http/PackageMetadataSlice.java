@@ -23,19 +23,29 @@
  */
 package com.artipie.composer.http;
 
+import com.artipie.asto.Content;
+import com.artipie.asto.Key;
+import com.artipie.composer.AllPackages;
+import com.artipie.composer.Etag;
+import com.artipie.composer.Metrics;
 import com.artipie.composer.Name;
-import com.artipie.composer.Packages;
 import com.artipie.composer.Repository;
 import com.artipie.http.Response;
 import com.artipie.http.Slice;
 import com.artipie.http.async.AsyncResponse;
+import com.artipie.http.headers.Header;
 import com.artipie.http.rq.RequestLineFrom;
 import com.artipie.http.rs.RsStatus;
 import com.artipie.http.rs.RsWithBody;
+import com.artipie.http.rs.RsWithHeaders;
 import com.artipie.http.rs.RsWithStatus;
+import com.artipie.http.rs.StandardRs;
 import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.Map;
 import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.CompletionStage;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
@@ -43,6 +53,10 @@ import org.reactivestreams.Publisher;
 
 /**
  * Slice that serves package metadata.
+ * Metadata is served with 'ETag' and 'Last-Modified' validators, conditional requests
+ * are answered with 304 status without reading metadata content. Clients accepting gzip
+ * get compressed variant stored on write, metadata is never compressed on request.
+ * Served, not modified and not found responses and served bytes are counted in {@link Metrics}.
  *
  * @since 0.3
  */
@@ -50,9 +64,30 @@ public final class PackageMetadataSlice implements Slice {
 
     /**
      * RegEx pattern for package metadata path.
+     * Vendor and package do not start with dot and vendor is not reserved by {@link Name},
+     * so path never refers outside of 'p/' and never refers to provider or shard file.
      */
     public static final Pattern PACKAGE = Pattern.compile(
-        "/p/(?<vendor>[^/]+)/(?<package>[^/]+)\\.json$"
+        "^/p/(?<vendor>(?!(?:p|p2|dist)/)[^/.][^/]*)/(?<package>[^/.][^/]*)\\.json$"
+    );
+
+    /**
+     * RegEx pattern for package metadata in Composer v2 format path,
+     * metadata of dev versions has '~dev' suffix.
+     */
+    public static final Pattern P2 = Pattern.compile(
+        String.join(
+            "",
+            "^/p2/(?<vendor>(?!(?:p|p2|dist)/)[^/.][^/]*)/",
+            "(?<package>[^/.~][^/~]*)(?<dev>~dev)?\\.json$"
+        )
+    );
+
+    /**
+     * RegEx pattern for Composer v1 provider file and vendor shard file path.
+     */
+    public static final Pattern PROVIDERS = Pattern.compile(
+        "^/p/(?<name>(provider|include)-[^/]+)\\.json$"
     );
 
     /**
@@ -60,18 +95,59 @@ public final class PackageMetadataSlice implements Slice {
      */
     public static final Pattern ALL_PACKAGES = Pattern.compile("^/packages.json$");
 
+    /**
+     * Cache control for files named by hash of content, such files never change.
+     */
+    private static final String IMMUTABLE = "public, max-age=31536000, immutable";
+
+    /**
+     * Counter of served metadata files.
+     */
+    private static final String HITS = "composer.http.metadata.hits";
+
+    /**
+     * Counter of not modified responses.
+     */
+    private static final String NOT_MODIFIED = "composer.http.metadata.not-modified";
+
+    /**
+     * Counter of not found responses.
+     */
+    private static final String NOT_FOUND = "composer.http.metadata.not-found";
+
+    /**
+     * Counter of served metadata bytes.
+     */
+    private static final String BYTES = "composer.http.metadata.bytes";
+
     /**
      * Repository.
      */
     private final Repository repository;
 
+    /**
+     * Metrics.
+     */
+    private final Metrics metrics;
+
     /**
      * Ctor.
      *
      * @param repository Repository.
      */
     public PackageMetadataSlice(final Repository repository) {
+        this(repository, Metrics.NOP);
+    }
+
+    /**
+     * Ctor.
+     *
+     * @param repository Repository.
+     * @param metrics Metrics to report to.
+     */
+    public PackageMetadataSlice(final Repository repository, final Metrics metrics) {
         this.repository = repository;
+        this.metrics = metrics;
     }
 
     @Override
@@ -80,35 +156,160 @@ public final class PackageMetadataSlice implements Slice {
         final Iterable<Map.Entry<String, String>> headers,
         final Publisher<ByteBuffer> body
     ) {
+        final String path = new RequestLineFrom(line).uri().getPath();
+        final Key key = PackageMetadataSlice.key(path).orElseThrow(
+            () -> new IllegalStateException(String.format("Unexpected path: %s", path))
+        );
+        final boolean gzip = new AcceptEncoding(headers).gzip();
         return new AsyncResponse(
-            this.packages(new RequestLineFrom(line).uri().getPath()).thenApply(
-                opt -> opt.<Response>map(
-                    packages -> new RsWithBody(packages.content())
-                ).orElse(new RsWithStatus(RsStatus.NOT_FOUND))
+            this.repository.etag(key).thenCompose(
+                etag -> {
+                    final Optional<Etag> variant;
+                    if (gzip) {
+                        variant = etag.map(Etag::gzip);
+                    } else {
+                        variant = etag;
+                    }
+                    final CompletionStage<Response> res;
+                    if (variant.isPresent() && new Conditions(headers).fresh(variant.get())) {
+                        this.metrics.counter(PackageMetadataSlice.NOT_MODIFIED, 1);
+                        res = CompletableFuture.completedFuture(
+                            new RsWithHeaders(
+                                new RsWithStatus(RsStatus.NOT_MODIFIED),
+                                PackageMetadataSlice.headers(path, variant)
+                            )
+                        );
+                    } else if (gzip) {
+                        res = this.repository.gzip(key).thenCompose(
+                            compressed -> compressed.<CompletionStage<Response>>map(
+                                content -> {
+                                    final List<Map.Entry<String, String>> hdrs =
+                                        PackageMetadataSlice.headers(path, variant);
+                                    hdrs.add(new Header("Content-Encoding", "gzip"));
+                                    this.served(content);
+                                    return CompletableFuture.completedFuture(
+                                        new RsWithHeaders(
+                                            new RsWithBody(StandardRs.EMPTY, content), hdrs
+                                        )
+                                    );
+                                }
+                            ).orElseGet(() -> this.plain(key, path, etag))
+                        );
+                    } else {
+                        res = this.plain(key, path, etag);
+                    }
+                    return res;
+                }
             )
         );
     }
 
     /**
-     * Builds key to storage value from path.
+     * Responds with uncompressed metadata file.
+     * Content is streamed from storage as is, 'Content-Length' is taken from its size.
+     *
+     * @param key Metadata file location in storage.
+     * @param path Resource path.
+     * @param etag Validator of metadata file, might be empty.
+     * @return Response.
+     */
+    private CompletionStage<Response> plain(
+        final Key key, final String path, final Optional<Etag> etag
+    ) {
+        return this.repository.content(key).thenApply(
+            opt -> {
+                final Response res;
+                if (opt.isPresent()) {
+                    this.served(opt.get());
+                    res = new RsWithHeaders(
+                        new RsWithBody(StandardRs.EMPTY, opt.get()),
+                        PackageMetadataSlice.headers(path, etag)
+                    );
+                } else {
+                    this.metrics.counter(PackageMetadataSlice.NOT_FOUND, 1);
+                    res = new RsWithStatus(RsStatus.NOT_FOUND);
+                }
+                return res;
+            }
+        );
+    }
+
+    /**
+     * Reports served metadata file.
+     *
+     * @param content Served content.
+     */
+    private void served(final Content content) {
+        this.metrics.counter(PackageMetadataSlice.HITS, 1);
+        this.metrics.counter(PackageMetadataSlice.BYTES, content.size().orElse(0L));
+    }
+
+    /**
+     * Builds response headers for metadata file.
+     * Files with validators are stored with compressed variant, so response varies
+     * by 'Accept-Encoding'.
      *
      * @param path Resource path.
-     * @return Key to storage value.
+     * @param etag Validator of metadata file, might be empty.
+     * @return Response headers.
      */
-    private CompletionStage<Optional<Packages>> packages(final String path) {
-        final CompletionStage<Optional<Packages>> result;
+    private static List<Map.Entry<String, String>> headers(
+        final String path, final Optional<Etag> etag
+    ) {
+        final List<Map.Entry<String, String>> res = new ArrayList<>(5);
+        if (path.contains("$")) {
+            res.add(new Header("Cache-Control", PackageMetadataSlice.IMMUTABLE));
+        }
+        etag.ifPresent(
+            tag -> {
+                res.add(new Header("ETag", tag.value()));
+                res.add(new Header("Last-Modified", Conditions.httpDate(tag.modified())));
+                res.add(new Header("Vary", "Accept-Encoding"));
+            }
+        );
+        return res;
+    }
+
+    /**
+     * Builds metadata file location in storage from matched path.
+     *
+     * @param path Resource path.
+     * @return Key to storage value, empty if path is not metadata path.
+     */
+    static Optional<Key> key(final String path) {
+        final Optional<Key> result;
         final Matcher matcher = PACKAGE.matcher(path);
-        if (matcher.find()) {
-            result = this.repository.packages(
-                new Name(
-                    String.format("%s/%s", matcher.group("vendor"), matcher.group("package"))
-                )
+        final Matcher p2 = P2.matcher(path);
+        final Matcher providers = PROVIDERS.matcher(path);
+        if (matcher.matches()) {
+            result = Optional.of(PackageMetadataSlice.name(matcher).key());
+        } else if (p2.matches()) {
+            if (p2.group("dev") == null) {
+                result = Optional.of(PackageMetadataSlice.name(p2).p2Key());
+            } else {
+                result = Optional.of(PackageMetadataSlice.name(p2).p2DevKey());
+            }
+        } else if (providers.matches()) {
+            result = Optional.of(
+                new Key.From("p", String.format("%s.json", providers.group("name")))
             );
         } else if (ALL_PACKAGES.matcher(path).matches()) {
-            result = this.repository.packages();
+            result = Optional.of(new AllPackages());
         } else {
-            throw new IllegalStateException(String.format("Unexpected path: %s", path));
+            result = Optional.empty();
         }
         return result;
     }
+
+    /**
+     * Builds package name from matched path.
+     *
+     * @param matcher Matched path.
+     * @return Package name.
+     */
+    private static Name name(final Matcher matcher) {
+        return new Name(
+            String.format("%s/%s", matcher.group("vendor"), matcher.group("package"))
+        );
+    }
 }
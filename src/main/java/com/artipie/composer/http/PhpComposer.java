@@ -23,12 +23,16 @@
  */
 package com.artipie.composer.http;
 
+import com.artipie.composer.InMemoryMetrics;
+import com.artipie.composer.Metrics;
 import com.artipie.composer.Repository;
 import com.artipie.http.Slice;
+import com.artipie.http.rs.StandardRs;
 import com.artipie.http.rt.ByMethodsRule;
 import com.artipie.http.rt.RtRule;
 import com.artipie.http.rt.RtRulePath;
 import com.artipie.http.rt.SliceRoute;
+import com.artipie.http.slice.SliceSimple;
 
 /**
  * PHP Composer repository HTTP front end.
@@ -44,24 +48,101 @@ public final class PhpComposer extends Slice.Wrap {
      * @param repository Repository.
      */
     public PhpComposer(final Repository repository) {
+        this(repository, Metrics.NOP);
+    }
+
+    /**
+     * Ctor.
+     *
+     * @param repository Repository.
+     * @param metrics Metrics to report to.
+     */
+    public PhpComposer(final Repository repository, final Metrics metrics) {
+        this(repository, metrics, "");
+    }
+
+    /**
+     * Ctor.
+     *
+     * @param repository Repository.
+     * @param metrics Metrics to report to.
+     * @param base Base URL of repository for absolute URLs of archives and search pages,
+     *  empty to build it from request scheme and host.
+     */
+    public PhpComposer(final Repository repository, final Metrics metrics, final String base) {
+        this(repository, metrics, new SliceSimple(StandardRs.NOT_FOUND), base);
+    }
+
+    /**
+     * Ctor with metrics served at '/_metrics'.
+     *
+     * @param repository Repository.
+     * @param metrics Metrics to report to and serve.
+     */
+    public PhpComposer(final Repository repository, final InMemoryMetrics metrics) {
+        this(repository, metrics, new MetricsSlice(metrics), "");
+    }
+
+    /**
+     * Primary ctor.
+     *
+     * @param repository Repository.
+     * @param metrics Metrics to report to.
+     * @param stats Slice serving metrics.
+     * @param base Base URL of repository, empty to build it from request.
+     * @checkstyle ParameterNumberCheck (5 lines)
+     */
+    private PhpComposer(
+        final Repository repository, final Metrics metrics, final Slice stats, final String base
+    ) {
         super(
             new SliceRoute(
                 new RtRulePath(
                     new RtRule.All(
                         new RtRule.Any(
                             new RtRule.ByPath(PackageMetadataSlice.PACKAGE),
+                            new RtRule.ByPath(PackageMetadataSlice.P2),
+                            new RtRule.ByPath(PackageMetadataSlice.PROVIDERS),
                             new RtRule.ByPath(PackageMetadataSlice.ALL_PACKAGES)
                         ),
                         ByMethodsRule.Standard.GET
                     ),
-                    new PackageMetadataSlice(repository)
+                    new PackageMetadataSlice(repository, metrics)
+                ),
+                new RtRulePath(
+                    new RtRule.All(
+                        new RtRule.ByPath(SearchSlice.PATH_PATTERN),
+                        ByMethodsRule.Standard.GET
+                    ),
+                    new SearchSlice(repository, base)
+                ),
+                new RtRulePath(
+                    new RtRule.All(
+                        new RtRule.ByPath(DistSlice.PATH_PATTERN),
+                        ByMethodsRule.Standard.GET
+                    ),
+                    new DistSlice(repository)
                 ),
                 new RtRulePath(
                     new RtRule.All(
                         new RtRule.ByPath(AddSlice.PATH_PATTERN),
                         ByMethodsRule.Standard.PUT
                     ),
-                    new AddSlice(repository)
+                    new AddSlice(repository, metrics, base)
+                ),
+                new RtRulePath(
+                    new RtRule.All(
+                        new RtRule.ByPath(ImportSlice.PATH_PATTERN),
+                        ByMethodsRule.Standard.PUT
+                    ),
+                    new ImportSlice(repository)
+                ),
+                new RtRulePath(
+                    new RtRule.All(
+                        new RtRule.ByPath(MetricsSlice.PATH_PATTERN),
+                        ByMethodsRule.Standard.GET
+                    ),
+                    stats
                 )
             )
         );
@@ -0,0 +1,210 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2020 artipie.com
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included
+ * in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NON-INFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package com.artipie.composer.http;
+
+import com.artipie.composer.Repository;
+import com.artipie.http.Response;
+import com.artipie.http.Slice;
+import com.artipie.http.async.AsyncResponse;
+import com.artipie.http.rq.RequestLineFrom;
+import com.artipie.http.rs.RsWithBody;
+import com.artipie.http.rs.RsWithHeaders;
+import java.io.UnsupportedEncodingException;
+import java.net.URLDecoder;
+import java.net.URLEncoder;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Optional;
+import java.util.regex.Pattern;
+import javax.json.Json;
+import javax.json.JsonObjectBuilder;
+import org.reactivestreams.Publisher;
+
+/**
+ * Slice for package search, query is passed with 'q' parameter, package type with
+ * 'type' parameter and page number with 'page' parameter.
+ * Response refers to the next page with 'next' attribute if there are more results.
+ *
+ * @since 0.4
+ */
+public final class SearchSlice implements Slice {
+
+    /**
+     * RegEx pattern for search path.
+     */
+    public static final Pattern PATH_PATTERN = Pattern.compile("^/search\\.json$");
+
+    /**
+     * Number of results on page.
+     */
+    private static final int PAGE = 15;
+
+    /**
+     * Last page number, offsets of greater pages do not fit into int.
+     */
+    private static final int LAST = Integer.MAX_VALUE / SearchSlice.PAGE;
+
+    /**
+     * Repository.
+     */
+    private final Repository repository;
+
+    /**
+     * Base URL of repository for next page URLs.
+     */
+    private final BaseUrl base;
+
+    /**
+     * Ctor.
+     *
+     * @param repository Repository.
+     */
+    public SearchSlice(final Repository repository) {
+        this(repository, "");
+    }
+
+    /**
+     * Ctor.
+     *
+     * @param repository Repository.
+     * @param base Base URL of repository for next page URLs, empty to build it from request.
+     */
+    public SearchSlice(final Repository repository, final String base) {
+        this.repository = repository;
+        this.base = new BaseUrl(base);
+    }
+
+    @Override
+    public Response response(
+        final String line,
+        final Iterable<Map.Entry<String, String>> headers,
+        final Publisher<ByteBuffer> body
+    ) {
+        final Map<String, String> params = SearchSlice.params(
+            new RequestLineFrom(line).uri().getRawQuery()
+        );
+        final String query = params.getOrDefault("q", "");
+        final String type = params.getOrDefault("type", "");
+        final int page = SearchSlice.page(params.getOrDefault("page", "1"));
+        final String base = this.base.value(headers);
+        return new AsyncResponse(
+            this.repository.search(
+                query, type, (page - 1) * SearchSlice.PAGE, SearchSlice.PAGE
+            ).thenApply(
+                results -> {
+                    final JsonObjectBuilder json = Json.createObjectBuilder(results);
+                    if (results.getInt("total") > page * SearchSlice.PAGE) {
+                        json.add(
+                            "next",
+                            String.format(
+                                "%s/search.json?q=%s&type=%s&page=%d",
+                                base, SearchSlice.encode(query), SearchSlice.encode(type),
+                                page + 1
+                            )
+                        );
+                    }
+                    return new RsWithHeaders(
+                        new RsWithBody(json.build().toString(), StandardCharsets.UTF_8),
+                        "Content-Type", "application/json"
+                    );
+                }
+            )
+        );
+    }
+
+    /**
+     * Parses query parameters.
+     *
+     * @param query Raw query string, might be null.
+     * @return Decoded parameters by name, first value is taken for repeated parameter.
+     */
+    private static Map<String, String> params(final String query) {
+        final Map<String, String> res = new HashMap<>();
+        Optional.ofNullable(query).ifPresent(
+            raw -> {
+                for (final String pair : raw.split("&")) {
+                    final int idx = pair.indexOf('=');
+                    if (idx > 0) {
+                        res.putIfAbsent(
+                            SearchSlice.decode(pair.substring(0, idx)),
+                            SearchSlice.decode(pair.substring(idx + 1))
+                        );
+                    }
+                }
+            }
+        );
+        return res;
+    }
+
+    /**
+     * Parses page number.
+     *
+     * @param value Page parameter value.
+     * @return Page number, 1 if value is not a positive number, last page number
+     *  if value is greater than it.
+     */
+    private static int page(final String value) {
+        int res;
+        try {
+            res = Math.min(Math.max(Integer.parseInt(value), 1), SearchSlice.LAST);
+        } catch (final NumberFormatException ex) {
+            res = 1;
+        }
+        return res;
+    }
+
+    /**
+     * Decodes URL encoded value.
+     *
+     * @param value Encoded value.
+     * @return Decoded value, value as is if it has malformed escapes.
+     */
+    private static String decode(final String value) {
+        String res;
+        try {
+            res = URLDecoder.decode(value, StandardCharsets.UTF_8.name());
+        } catch (final UnsupportedEncodingException ex) {
+            throw new IllegalStateException(ex);
+        } catch (final IllegalArgumentException ex) {
+            res = value;
+        }
+        return res;
+    }
+
+    /**
+     * URL encodes value.
+     *
+     * @param value Value.
+     * @return Encoded value.
+     */
+    private static String encode(final String value) {
+        try {
+            return URLEncoder.encode(value, StandardCharsets.UTF_8.name());
+        } catch (final UnsupportedEncodingException ex) {
+            throw new IllegalStateException(ex);
+        }
+    }
+}
@@ -28,11 +28,19 @@ import com.artipie.asto.Key;
 import com.artipie.asto.Storage;
 import com.artipie.asto.blocking.BlockingStorage;
 import com.artipie.asto.memory.InMemoryStorage;
+import com.google.common.hash.Hashing;
 import com.google.common.io.ByteSource;
 import com.google.common.io.ByteStreams;
+import io.reactivex.Flowable;
 import java.io.ByteArrayInputStream;
 import java.io.ByteArrayOutputStream;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
 import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
 import javax.json.Json;
 import javax.json.JsonObject;
 import javax.json.JsonReader;
@@ -130,10 +138,496 @@ class AstoRepositoryAddTest {
             this.storage.list(Key.ROOT).join().stream()
                 .map(Key::string)
                 .collect(Collectors.toList()),
-            Matchers.contains("packages.json", "vendor/package.json")
+            Matchers.contains(
+                "p2/vendor/package.json",
+                "p2/vendor/package.json.etag",
+                "p2/vendor/package.json.gz",
+                "packages.json",
+                "packages.json.etag",
+                "packages.json.gz",
+                "vendor/package.json",
+                "vendor/package.json.etag",
+                "vendor/package.json.gz"
+            )
+        );
+    }
+
+    @Test
+    void shouldAddPackageFromOneTimeContent() throws Exception {
+        new AstoRepository(this.storage).add(new Content.OneTime(this.packageJson())).get();
+        MatcherAssert.assertThat(
+            "Upload should be consumed once, directly from request body",
+            this.packages().getJsonObject(this.pack.name().string()).keySet(),
+            new IsEqual<>(new SetOf<>(this.pack.version()))
+        );
+    }
+
+    @Test
+    void shouldKeepAllVersionsWhenAddedConcurrently() throws Exception {
+        final AstoRepository repo = new AstoRepository(this.storage);
+        final int count = 2000;
+        final int names = 10;
+        CompletableFuture.allOf(
+            IntStream.range(0, count).parallel().mapToObj(
+                idx -> repo.add(
+                    new Content.From(
+                        String.format(
+                            "{\"name\":\"vendor/package%d\",\"version\":\"1.0.%d\"}",
+                            idx % names, idx
+                        ).getBytes()
+                    )
+                )
+            ).toArray(CompletableFuture[]::new)
+        ).join();
+        MatcherAssert.assertThat(
+            "All versions should present in all packages",
+            this.packages().values().stream()
+                .mapToInt(versions -> versions.asJsonObject().size())
+                .sum(),
+            new IsEqual<>(count)
+        );
+        int total = 0;
+        for (int idx = 0; idx < names; idx += 1) {
+            final Name name = new Name(String.format("vendor/package%d", idx));
+            total += this.packages(name).getJsonObject(name.string()).size();
+        }
+        MatcherAssert.assertThat(
+            "All versions should present in packages",
+            total,
+            new IsEqual<>(count)
+        );
+    }
+
+    @Test
+    void shouldAddPackagesInBatches() throws Exception {
+        final AstoRepository repo = new AstoRepository(
+            this.storage, Duration.ofMillis(50), 10
+        );
+        final int count = 25;
+        CompletableFuture.allOf(
+            IntStream.range(0, count).mapToObj(
+                idx -> repo.add(
+                    new Content.From(
+                        String.format(
+                            "{\"name\":\"vendor/package\",\"version\":\"2.0.%d\"}", idx
+                        ).getBytes()
+                    )
+                )
+            ).toArray(CompletableFuture[]::new)
+        ).join();
+        MatcherAssert.assertThat(
+            this.packages().getJsonObject("vendor/package").size(),
+            new IsEqual<>(count)
+        );
+    }
+
+    @Test
+    void shouldAddMetadataUrlToRoot() throws Exception {
+        new AstoRepository(this.storage).add(this.packageJson()).get();
+        MatcherAssert.assertThat(
+            this.json(new AllPackages()).getString("metadata-url"),
+            new IsEqual<>("/p2/%package%.json")
+        );
+    }
+
+    @Test
+    void shouldAddPackageToP2() throws Exception {
+        new BlockingStorage(this.storage).save(
+            this.pack.name().key(),
+            "{\"packages\":{\"vendor/package\":{\"1.1.0\":{\"version\":\"1.1.0\"}}}}"
+                .getBytes()
+        );
+        new AstoRepository(this.storage).add(this.packageJson()).get();
+        MatcherAssert.assertThat(
+            "Package versions should present in Composer v2 metadata as array",
+            this.packages(this.pack.name().p2Key())
+                .getJsonArray(this.pack.name().string())
+                .getValuesAs(JsonObject.class)
+                .stream()
+                .map(version -> version.getString("version"))
+                .collect(Collectors.toList()),
+            Matchers.contains("1.1.0", this.pack.version())
+        );
+    }
+
+    @Test
+    void shouldSeparateDevVersionsInP2() throws Exception {
+        new AstoRepository(this.storage).addAll(
+            Flowable.just(
+                new Content.From(
+                    "{\"name\":\"vendor/package\",\"version\":\"1.1.0\"}".getBytes()
+                ),
+                new Content.From(
+                    "{\"name\":\"vendor/package\",\"version\":\"dev-master\"}".getBytes()
+                )
+            )
+        ).get();
+        final Name name = this.pack.name();
+        MatcherAssert.assertThat(
+            "Stable versions should be in Composer v2 metadata",
+            this.versions(name.p2Key()),
+            Matchers.contains("1.1.0")
+        );
+        MatcherAssert.assertThat(
+            "Dev versions should be in Composer v2 metadata of dev versions",
+            this.versions(name.p2DevKey()),
+            Matchers.contains("dev-master")
+        );
+    }
+
+    @Test
+    void shouldAddPackageToMinifiedP2() throws Exception {
+        final Name name = this.pack.name();
+        new BlockingStorage(this.storage).save(
+            name.key(),
+            String.join(
+                "",
+                "{\"packages\":{\"vendor/package\":{\"1.1.0\":",
+                "{\"name\":\"vendor/package\",\"version\":\"1.1.0\",\"license\":\"MIT\"}",
+                "}}}"
+            ).getBytes()
+        );
+        new AstoRepository(
+            this.storage,
+            new RepoConfig.Simple(Duration.ZERO, 1).withMinified(true)
+        ).add(this.packageJson()).get();
+        MatcherAssert.assertThat(
+            "Metadata should be marked as minified",
+            this.json(name.p2Key()).getString("minified"),
+            new IsEqual<>("composer/2.0")
+        );
+        final JsonObject latest = this.packages(name.p2Key())
+            .getJsonArray(name.string())
+            .getJsonObject(1);
+        MatcherAssert.assertThat(
+            "Version should list only changed attributes",
+            latest.keySet(),
+            new IsEqual<>(new SetOf<>("version", "dist", "license"))
+        );
+        MatcherAssert.assertThat(
+            "Removed attribute should be unset",
+            latest.getString("license"),
+            new IsEqual<>("__unset")
+        );
+    }
+
+    @Test
+    void shouldKeepRootSmallWhenPackagesNotInlined() throws Exception {
+        new AstoRepository(
+            this.storage, new RepoConfig.Simple(Duration.ZERO, 1).withInline(false)
+        ).add(this.packageJson()).get();
+        MatcherAssert.assertThat(
+            "Root should not list packages",
+            this.packages().isEmpty(),
+            new IsEqual<>(true)
+        );
+    }
+
+    @Test
+    void shouldWriteProviderFiles() throws Exception {
+        new AstoRepository(
+            this.storage,
+            new RepoConfig.Simple(Duration.ZERO, 1).withInline(false).withProviders(true)
+        ).add(this.packageJson()).get();
+        final JsonObject root = this.json(new AllPackages());
+        final JsonObject includes = root.getJsonObject("provider-includes");
+        final String bucket = includes.keySet().iterator().next();
+        final String sha = this.json(
+            new Key.From(
+                bucket.replace("%hash%", includes.getJsonObject(bucket).getString("sha256"))
+            )
+        ).getJsonObject("providers")
+            .getJsonObject(this.pack.name().string())
+            .getString("sha256");
+        MatcherAssert.assertThat(
+            "Package file named by hash should be listed in provider file",
+            new BlockingStorage(this.storage).value(
+                new Name(String.format("%s$%s", this.pack.name().string(), sha)).key()
+            ),
+            new IsEqual<>(new BlockingStorage(this.storage).value(this.pack.name().key()))
+        );
+        MatcherAssert.assertThat(
+            root.getString("providers-url"),
+            new IsEqual<>("/p/%package%$%hash%.json")
+        );
+    }
+
+    @Test
+    void shouldDeleteReplacedProviderFiles() throws Exception {
+        final Repository repo = new AstoRepository(
+            this.storage,
+            new RepoConfig.Simple(Duration.ZERO, 1).withInline(false).withProviders(true)
+        );
+        repo.add(this.packageJson()).get();
+        repo.addAll(
+            Flowable.just(
+                new Content.From(
+                    "{\"name\":\"vendor/package\",\"version\":\"2.0.0\"}".getBytes()
+                )
+            )
+        ).get();
+        MatcherAssert.assertThat(
+            "Only provider file root refers to should be kept",
+            this.hashed(new Key.From("p")).size(),
+            new IsEqual<>(1)
+        );
+        MatcherAssert.assertThat(
+            "Only package file provider file refers to should be kept",
+            this.hashed(new Key.From("vendor")).size(),
+            new IsEqual<>(1)
         );
     }
 
+    @Test
+    void shouldAddPackageToIndexLoadedFromStorage() throws Exception {
+        final Name name = this.pack.name();
+        new BlockingStorage(this.storage).save(
+            name.key(),
+            "{\"packages\":{\"vendor/package\":{\"1.1.0\":{}}}}".getBytes()
+        );
+        new AstoRepository(
+            this.storage, new RepoConfig.Simple(Duration.ZERO, 1).withIndex(true)
+        ).add(this.packageJson()).get();
+        MatcherAssert.assertThat(
+            "Package metadata should have versions from storage and added one",
+            this.packages(name).getJsonObject(name.string()).keySet(),
+            new IsEqual<>(new SetOf<>("1.1.0", this.pack.version()))
+        );
+        MatcherAssert.assertThat(
+            "Root should be rendered from index",
+            this.packages().getJsonObject(name.string()).keySet(),
+            new IsEqual<>(new SetOf<>("1.1.0", this.pack.version()))
+        );
+    }
+
+    @Test
+    void shouldLoadIndexFromSnapshot() throws Exception {
+        final RepoConfig config = new RepoConfig.Simple(Duration.ZERO, 1).withIndex(true);
+        new AstoRepository(this.storage, config).addAll(
+            Flowable.just(
+                new Content.From(
+                    "{\"name\":\"vendor/package\",\"version\":\"1.1.0\"}".getBytes()
+                )
+            )
+        ).get();
+        final Name name = this.pack.name();
+        this.storage.delete(name.key()).join();
+        new AstoRepository(this.storage, config).add(this.packageJson()).get();
+        MatcherAssert.assertThat(
+            "Package metadata should have versions from snapshot and added one",
+            this.packages(name).getJsonObject(name.string()).keySet(),
+            new IsEqual<>(new SetOf<>("1.1.0", this.pack.version()))
+        );
+    }
+
+    @Test
+    void shouldListPackagesInVendorShards() throws Exception {
+        new AstoRepository(
+            this.storage, new RepoConfig.Simple(Duration.ZERO, 1).withShards(true)
+        ).add(this.packageJson()).get();
+        final JsonObject includes = this.json(new AllPackages()).getJsonObject("includes");
+        final String shard = includes.keySet().iterator().next();
+        MatcherAssert.assertThat(
+            "Root should refer to vendor shard by hash",
+            shard,
+            new IsEqual<>(
+                String.format(
+                    "p/include-vendor$%s.json", includes.getJsonObject(shard).getString("sha1")
+                )
+            )
+        );
+        MatcherAssert.assertThat(
+            "Shard should list package",
+            this.packages(new Key.From(shard)).getJsonObject(this.pack.name().string()).keySet(),
+            new IsEqual<>(new SetOf<>(this.pack.version()))
+        );
+        MatcherAssert.assertThat(
+            "Root should not list packages",
+            this.packages().isEmpty(),
+            new IsEqual<>(true)
+        );
+    }
+
+    @Test
+    void shouldDeleteReplacedShards() throws Exception {
+        final Repository repo = new AstoRepository(
+            this.storage, new RepoConfig.Simple(Duration.ZERO, 1).withShards(true)
+        );
+        repo.add(this.packageJson()).get();
+        repo.addAll(
+            Flowable.just(
+                new Content.From(
+                    "{\"name\":\"vendor/package\",\"version\":\"2.0.0\"}".getBytes()
+                )
+            )
+        ).get();
+        MatcherAssert.assertThat(
+            "Only shard root refers to should be kept",
+            this.hashed(new Key.From("p")).stream().map(Key::string).collect(Collectors.toSet()),
+            new IsEqual<>(this.json(new AllPackages()).getJsonObject("includes").keySet())
+        );
+    }
+
+    @Test
+    void shouldRejectPackageOfReservedVendor() {
+        MatcherAssert.assertThat(
+            new AstoRepository(
+                this.storage, new RepoConfig.Simple(Duration.ZERO, 1).withShards(true)
+            ).addAll(
+                Flowable.just(
+                    new Content.From(
+                        "{\"name\":\"p/include-vendor\",\"version\":\"1.0\"}".getBytes()
+                    )
+                )
+            ).handle((nothing, err) -> err != null).join(),
+            new IsEqual<>(true)
+        );
+    }
+
+    @Test
+    void shouldMigrateRootToVendorShards() throws Exception {
+        new BlockingStorage(this.storage).save(
+            new AllPackages(),
+            String.join(
+                "",
+                "{\"packages\":{\"vendor/package\":{\"2.0\":{}},\"other/lib\":{\"1.0\":{}}},",
+                "\"metadata-url\":\"/p2/%package%.json\"}"
+            ).getBytes()
+        );
+        new Shards(this.storage).migrate().toCompletableFuture().join();
+        final JsonObject root = this.json(new AllPackages());
+        MatcherAssert.assertThat(
+            "Root should refer to shard of each vendor",
+            root.getJsonObject("includes").size(),
+            new IsEqual<>(2)
+        );
+        MatcherAssert.assertThat(
+            "Root attributes should be kept",
+            root.getString("metadata-url"),
+            new IsEqual<>("/p2/%package%.json")
+        );
+        MatcherAssert.assertThat(
+            "Packages should be moved to shard",
+            this.packages(new Key.From("p/include-other.json")).getJsonObject("other/lib").keySet(),
+            new IsEqual<>(new SetOf<>("1.0"))
+        );
+        MatcherAssert.assertThat(
+            "Root should not list packages",
+            root.getJsonObject("packages").isEmpty(),
+            new IsEqual<>(true)
+        );
+    }
+
+    @Test
+    void shouldAddAllPackages() throws Exception {
+        final int count = 20;
+        new AstoRepository(this.storage, Duration.ZERO, 1).addAll(
+            Flowable.range(0, count).map(
+                idx -> new Content.From(
+                    Json.createObjectBuilder()
+                        .add("name", String.format("vendor/package%d", idx % 2))
+                        .add("version", String.format("1.0.%d", idx))
+                        .build().toString().getBytes()
+                )
+            )
+        ).get();
+        final Name name = new Name("vendor/package1");
+        MatcherAssert.assertThat(
+            "Package should have all its versions",
+            this.packages(name).getJsonObject(name.string()).size(),
+            new IsEqual<>(count / 2)
+        );
+        MatcherAssert.assertThat(
+            "Root should have all packages",
+            this.packages().keySet(),
+            new IsEqual<>(new SetOf<>("vendor/package0", "vendor/package1"))
+        );
+    }
+
+    @Test
+    void shouldAddPackageFromArchive() throws Exception {
+        final ByteArrayOutputStream zip = new ByteArrayOutputStream();
+        try (ZipOutputStream zos = new ZipOutputStream(zip)) {
+            zos.putNextEntry(new ZipEntry("package/composer.json"));
+            zos.write("{\"name\":\"vendor/package\",\"version\":\"1.0\"}".getBytes());
+            zos.closeEntry();
+        }
+        new AstoRepository(this.storage).addArchive(
+            new Content.From(zip.toByteArray()), "http://example.com"
+        ).get();
+        MatcherAssert.assertThat(
+            "Archive should be stored in repository",
+            new BlockingStorage(this.storage).value(new Key.From("dist/vendor/package/1.0.zip")),
+            new IsEqual<>(zip.toByteArray())
+        );
+        MatcherAssert.assertThat(
+            "Package dist should refer to stored archive",
+            this.packages(this.pack.name()).getJsonObject("vendor/package")
+                .getJsonObject("1.0")
+                .getJsonObject("dist")
+                .getString("url"),
+            new IsEqual<>("http://example.com/dist/vendor/package/1.0.zip")
+        );
+        MatcherAssert.assertThat(
+            "Package dist should have SHA-1 of archive",
+            this.packages(this.pack.name()).getJsonObject("vendor/package")
+                .getJsonObject("1.0")
+                .getJsonObject("dist")
+                .getString("shasum"),
+            new IsEqual<>(Hashing.sha1().hashBytes(zip.toByteArray()).toString())
+        );
+    }
+
+    @Test
+    void shouldFailToAddArchiveWithoutComposerJson() throws Exception {
+        final ByteArrayOutputStream zip = new ByteArrayOutputStream();
+        try (ZipOutputStream zos = new ZipOutputStream(zip)) {
+            zos.putNextEntry(new ZipEntry("README.md"));
+            zos.write("readme".getBytes());
+            zos.closeEntry();
+        }
+        final CompletableFuture<Name> added = new AstoRepository(this.storage).addArchive(
+            new Content.From(zip.toByteArray()), ""
+        );
+        MatcherAssert.assertThat(
+            "Adding archive should fail",
+            added.handle((nothing, err) -> err != null).join(),
+            new IsEqual<>(true)
+        );
+        MatcherAssert.assertThat(
+            "Uploaded archive should be removed",
+            this.storage.list(Key.ROOT).join().isEmpty(),
+            new IsEqual<>(true)
+        );
+    }
+
+    @Test
+    void shouldRemoveUploadedArchiveWhenAddFails() throws Exception {
+        final ByteArrayOutputStream zip = new ByteArrayOutputStream();
+        try (ZipOutputStream zos = new ZipOutputStream(zip)) {
+            zos.putNextEntry(new ZipEntry("composer.json"));
+            zos.write("{\"name\":1,\"version\":\"1.0\"}".getBytes());
+            zos.closeEntry();
+        }
+        MatcherAssert.assertThat(
+            "Adding archive should fail",
+            new AstoRepository(this.storage).addArchive(new Content.From(zip.toByteArray()), "")
+                .handle((nothing, err) -> err != null).join(),
+            new IsEqual<>(true)
+        );
+        MatcherAssert.assertThat(
+            "Uploaded archive should be removed",
+            this.storage.list(Key.ROOT).join().isEmpty(),
+            new IsEqual<>(true)
+        );
+    }
+
+    private List<Key> hashed(final Key prefix) {
+        return new BlockingStorage(this.storage).list(prefix).stream()
+            .filter(key -> key.string().endsWith(".json") && key.string().contains("$"))
+            .collect(Collectors.toList());
+    }
+
     private JsonObject packages() throws Exception {
         return this.packages(new AllPackages());
     }
@@ -143,12 +637,23 @@ class AstoRepositoryAddTest {
     }
 
     private JsonObject packages(final Key key) throws Exception {
-        final JsonObject saved;
+        return this.json(key).getJsonObject("packages");
+    }
+
+    private List<String> versions(final Key key) throws Exception {
+        return this.packages(key)
+            .getJsonArray(this.pack.name().string())
+            .getValuesAs(JsonObject.class)
+            .stream()
+            .map(version -> version.getString("version"))
+            .collect(Collectors.toList());
+    }
+
+    private JsonObject json(final Key key) throws Exception {
         final byte[] bytes = new BlockingStorage(this.storage).value(key);
         try (JsonReader reader = Json.createReader(new ByteArrayInputStream(bytes))) {
-            saved = reader.readObject();
+            return reader.readObject();
         }
-        return saved.getJsonObject("packages");
     }
 
     private Content packageJson() throws Exception {
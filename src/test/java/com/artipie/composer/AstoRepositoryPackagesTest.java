@@ -23,16 +23,20 @@
  */
 package com.artipie.composer;
 
+import com.artipie.asto.Content;
 import com.artipie.asto.Storage;
 import com.artipie.asto.blocking.BlockingStorage;
+import com.artipie.asto.ext.PublisherAs;
 import com.artipie.asto.memory.InMemoryStorage;
+import java.util.Optional;
 import org.hamcrest.MatcherAssert;
 import org.hamcrest.core.IsEqual;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 
 /**
- * Tests for {@link AstoRepository#packages()} and {@link AstoRepository#packages(Name)}.
+ * Tests for {@link AstoRepository#packages()}, {@link AstoRepository#packages(Name)}
+ * and {@link AstoRepository#content(com.artipie.asto.Key)}.
  *
  * @since 0.3
  * @checkstyle ClassDataAbstractionCouplingCheck (2 lines)
@@ -92,4 +96,32 @@ class AstoRepositoryPackagesTest {
             new IsEqual<>(bytes)
         );
     }
+
+    @Test
+    void shouldReadContentAsIs() throws Exception {
+        final Name name = new Name("foo/bar3");
+        final byte[] bytes = "streamed".getBytes();
+        new BlockingStorage(this.storage).save(name.key(), bytes);
+        final Content content = new AstoRepository(this.storage).content(name.key())
+            .toCompletableFuture().join().get();
+        MatcherAssert.assertThat(
+            "Content size should be taken from storage",
+            content.size(),
+            new IsEqual<>(Optional.of((long) bytes.length))
+        );
+        MatcherAssert.assertThat(
+            new PublisherAs(content).bytes().toCompletableFuture().join(),
+            new IsEqual<>(bytes)
+        );
+    }
+
+    @Test
+    void shouldReadEmptyContentWhenNotExists() {
+        MatcherAssert.assertThat(
+            new AstoRepository(this.storage).content(new Name("foo/none").key())
+                .toCompletableFuture().join()
+                .isPresent(),
+            new IsEqual<>(false)
+        );
+    }
 }
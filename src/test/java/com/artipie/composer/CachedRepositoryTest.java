@@ -0,0 +1,256 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2020 artipie.com
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included
+ * in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NON-INFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package com.artipie.composer;
+
+import com.artipie.asto.Content;
+import com.artipie.asto.Key;
+import com.artipie.asto.Storage;
+import com.artipie.asto.blocking.BlockingStorage;
+import com.artipie.asto.ext.PublisherAs;
+import com.artipie.asto.memory.InMemoryStorage;
+import java.io.StringReader;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import javax.json.Json;
+import org.cactoos.set.SetOf;
+import org.hamcrest.MatcherAssert;
+import org.hamcrest.core.IsEqual;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Tests for {@link CachedRepository}.
+ *
+ * @since 0.4
+ */
+class CachedRepositoryTest {
+
+    /**
+     * Storage used in tests.
+     */
+    private Storage storage;
+
+    @BeforeEach
+    void init() {
+        this.storage = new InMemoryStorage();
+    }
+
+    @Test
+    void shouldServeRepeatedReadFromCache() throws Exception {
+        final Name name = new Name("vendor/package");
+        new BlockingStorage(this.storage).save(name.key(), "cached".getBytes());
+        final CachedRepository repo = new CachedRepository(new AstoRepository(this.storage));
+        repo.packages(name).toCompletableFuture().join();
+        new BlockingStorage(this.storage).save(name.key(), "changed".getBytes());
+        MatcherAssert.assertThat(
+            "Repeated read should return cached content",
+            CachedRepositoryTest.content(repo, name),
+            new IsEqual<>("cached")
+        );
+        MatcherAssert.assertThat(
+            "Repeated read should be counted as hit",
+            repo.hits(),
+            new IsEqual<>(1L)
+        );
+    }
+
+    @Test
+    void shouldInvalidateAddedPackage() {
+        final Name name = new Name("vendor/package");
+        final CachedRepository repo = new CachedRepository(new AstoRepository(this.storage));
+        repo.add(CachedRepositoryTest.pack("1.0.0")).join();
+        repo.packages(name).toCompletableFuture().join();
+        repo.add(CachedRepositoryTest.pack("2.0.0")).join();
+        MatcherAssert.assertThat(
+            Json.createReader(new StringReader(CachedRepositoryTest.content(repo, name)))
+                .readObject()
+                .getJsonObject("packages")
+                .getJsonObject(name.string())
+                .keySet(),
+            new IsEqual<>(new SetOf<>("1.0.0", "2.0.0"))
+        );
+    }
+
+    @Test
+    void shouldEvictWhenBudgetExceeded() throws Exception {
+        final Name small = new Name("vendor/small");
+        final Name large = new Name("vendor/large");
+        new BlockingStorage(this.storage).save(small.key(), "small".getBytes());
+        new BlockingStorage(this.storage).save(large.key(), new byte[200]);
+        final CachedRepository repo = new CachedRepository(
+            new AstoRepository(this.storage), 150, Duration.ofMinutes(1)
+        );
+        repo.packages(small).toCompletableFuture().join();
+        repo.packages(large).toCompletableFuture().join();
+        new BlockingStorage(this.storage).save(small.key(), "other".getBytes());
+        new BlockingStorage(this.storage).save(large.key(), "large".getBytes());
+        MatcherAssert.assertThat(
+            "Entry within budget should stay cached",
+            CachedRepositoryTest.content(repo, small),
+            new IsEqual<>("small")
+        );
+        MatcherAssert.assertThat(
+            "Entry exceeding budget should be evicted",
+            CachedRepositoryTest.content(repo, large),
+            new IsEqual<>("large")
+        );
+    }
+
+    @Test
+    void shouldInvalidateVendorShardOfAddedPackage() throws Exception {
+        final Key shard = Shards.key(new Name("vendor/package"));
+        final CachedRepository repo = new CachedRepository(
+            new AstoRepository(
+                this.storage, new RepoConfig.Simple(Duration.ZERO, 1).withShards(true)
+            )
+        );
+        repo.add(CachedRepositoryTest.pack("1.0.0")).join();
+        repo.content(shard).toCompletableFuture().join();
+        repo.add(CachedRepositoryTest.pack("2.0.0")).join();
+        MatcherAssert.assertThat(
+            new PublisherAs(repo.content(shard).toCompletableFuture().join().get())
+                .asciiString().toCompletableFuture().join(),
+            new IsEqual<>(
+                new String(new BlockingStorage(this.storage).value(shard), StandardCharsets.UTF_8)
+            )
+        );
+    }
+
+    @Test
+    void shouldServeRepeatedGzipReadFromCache() throws Exception {
+        final Key key = new Name("vendor/package").key();
+        new IndexStorage(this.storage).save(key, "cached".getBytes(StandardCharsets.UTF_8))
+            .join();
+        final CachedRepository repo = new CachedRepository(new AstoRepository(this.storage));
+        final byte[] first = new PublisherAs(
+            repo.gzip(key).toCompletableFuture().join().get()
+        ).bytes().toCompletableFuture().join();
+        new BlockingStorage(this.storage).save(
+            new Key.From(String.format("%s.gz", key.string())), "changed".getBytes()
+        );
+        MatcherAssert.assertThat(
+            "Repeated read should return cached compressed content",
+            new PublisherAs(repo.gzip(key).toCompletableFuture().join().get())
+                .bytes().toCompletableFuture().join(),
+            new IsEqual<>(first)
+        );
+        MatcherAssert.assertThat(
+            "Compressed content should be read from storage once",
+            repo.misses(),
+            new IsEqual<>(1L)
+        );
+    }
+
+    @Test
+    void shouldServeCompressedVariantOfCachedContent() throws Exception {
+        final Key key = new Name("vendor/package").key();
+        new IndexStorage(this.storage).save(key, "cached".getBytes(StandardCharsets.UTF_8))
+            .join();
+        final byte[] gzip = new BlockingStorage(this.storage).value(
+            new Key.From(String.format("%s.gz", key.string()))
+        );
+        final CachedRepository repo = new CachedRepository(new AstoRepository(this.storage));
+        repo.content(key).toCompletableFuture().join();
+        new IndexStorage(this.storage).save(key, "changed".getBytes(StandardCharsets.UTF_8))
+            .join();
+        MatcherAssert.assertThat(
+            new PublisherAs(repo.gzip(key).toCompletableFuture().join().get())
+                .bytes().toCompletableFuture().join(),
+            new IsEqual<>(gzip)
+        );
+    }
+
+    @Test
+    void shouldServeValidatorOfCachedContent() {
+        final Key key = new Name("vendor/package").key();
+        final byte[] cached = "cached".getBytes(StandardCharsets.UTF_8);
+        new IndexStorage(this.storage).save(key, cached).join();
+        final CachedRepository repo = new CachedRepository(new AstoRepository(this.storage));
+        repo.content(key).toCompletableFuture().join();
+        new IndexStorage(this.storage).save(key, "changed".getBytes(StandardCharsets.UTF_8))
+            .join();
+        MatcherAssert.assertThat(
+            repo.etag(key).toCompletableFuture().join().get().value(),
+            new IsEqual<>(new Etag(cached).value())
+        );
+    }
+
+    @Test
+    void shouldNotCacheArchives() throws Exception {
+        final Key key = new Key.From("dist/vendor/package/1.0.zip");
+        new BlockingStorage(this.storage).save(key, "old".getBytes());
+        final CachedRepository repo = new CachedRepository(new AstoRepository(this.storage));
+        repo.archive(key).toCompletableFuture().join();
+        new BlockingStorage(this.storage).save(key, "new".getBytes());
+        MatcherAssert.assertThat(
+            new PublisherAs(repo.archive(key).toCompletableFuture().join().get())
+                .asciiString().toCompletableFuture().join(),
+            new IsEqual<>("new")
+        );
+    }
+
+    @Test
+    void shouldExpireEntries() throws Exception {
+        final Name name = new Name("vendor/package");
+        new BlockingStorage(this.storage).save(name.key(), "old".getBytes());
+        final CachedRepository repo = new CachedRepository(
+            new AstoRepository(this.storage), 1024, Duration.ZERO
+        );
+        repo.packages(name).toCompletableFuture().join();
+        new BlockingStorage(this.storage).save(name.key(), "new".getBytes());
+        MatcherAssert.assertThat(
+            CachedRepositoryTest.content(repo, name),
+            new IsEqual<>("new")
+        );
+    }
+
+    /**
+     * Reads package metadata through repository as string.
+     *
+     * @param repo Repository.
+     * @param name Package name.
+     * @return Metadata content.
+     */
+    private static String content(final Repository repo, final Name name) {
+        return new PublisherAs(
+            repo.packages(name).toCompletableFuture().join().get().content()
+        ).asciiString().toCompletableFuture().join();
+    }
+
+    /**
+     * Builds package JSON.
+     *
+     * @param version Package version.
+     * @return Package content.
+     */
+    private static Content pack(final String version) {
+        return new Content.From(
+            Json.createObjectBuilder()
+                .add("name", "vendor/package")
+                .add("version", version)
+                .build().toString()
+                .getBytes(StandardCharsets.UTF_8)
+        );
+    }
+}
@@ -0,0 +1,150 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2020 artipie.com
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included
+ * in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NON-INFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package com.artipie.composer;
+
+import com.artipie.asto.Key;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+import javax.json.Json;
+import org.hamcrest.MatcherAssert;
+import org.hamcrest.Matchers;
+import org.hamcrest.core.IsEqual;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Tests for {@link GroupCommit}.
+ *
+ * @since 0.4
+ */
+class GroupCommitTest {
+
+    /**
+     * Key used in tests.
+     */
+    private static final Key KEY = new Key.From("packages.json");
+
+    @Test
+    void shouldWriteBatchOnceWithinWindow() {
+        final List<List<Package>> writes = new CopyOnWriteArrayList<>();
+        final GroupCommit commit = new GroupCommit(
+            (key, packs) -> {
+                writes.add(packs);
+                return CompletableFuture.completedFuture(null);
+            },
+            Duration.ofMillis(100),
+            Integer.MAX_VALUE
+        );
+        final int count = 50;
+        CompletableFuture.allOf(
+            IntStream.range(0, count)
+                .mapToObj(idx -> commit.add(GroupCommitTest.KEY, GroupCommitTest.pack(idx)))
+                .toArray(CompletableFuture[]::new)
+        ).join();
+        MatcherAssert.assertThat(
+            "All packages should be written with single write",
+            writes.stream().map(List::size).collect(Collectors.toList()),
+            Matchers.contains(count)
+        );
+    }
+
+    @Test
+    void shouldLimitBatchSize() {
+        final List<List<Package>> writes = new CopyOnWriteArrayList<>();
+        final GroupCommit commit = new GroupCommit(
+            (key, packs) -> {
+                writes.add(packs);
+                return CompletableFuture.completedFuture(null);
+            },
+            Duration.ofMinutes(1),
+            2
+        );
+        CompletableFuture.allOf(
+            IntStream.range(0, 4)
+                .mapToObj(idx -> commit.add(GroupCommitTest.KEY, GroupCommitTest.pack(idx)))
+                .toArray(CompletableFuture[]::new)
+        ).join();
+        MatcherAssert.assertThat(
+            writes.stream().map(List::size).collect(Collectors.toList()),
+            Matchers.contains(2, 2)
+        );
+    }
+
+    @Test
+    void shouldCompleteAfterBatchIsWritten() {
+        final CompletableFuture<Void> write = new CompletableFuture<>();
+        final CompletableFuture<Void> added = new GroupCommit(
+            (key, packs) -> write, Duration.ZERO, 1
+        ).add(GroupCommitTest.KEY, GroupCommitTest.pack(0));
+        final boolean before = added.isDone();
+        write.complete(null);
+        added.join();
+        MatcherAssert.assertThat(before, new IsEqual<>(false));
+    }
+
+    @Test
+    void shouldFailAllWhenWriteFailed() {
+        final CompletableFuture<Void> write = new CompletableFuture<>();
+        write.completeExceptionally(new IllegalStateException("Failed to write"));
+        MatcherAssert.assertThat(
+            new GroupCommit((key, packs) -> write, Duration.ZERO, 1)
+                .add(GroupCommitTest.KEY, GroupCommitTest.pack(0))
+                .isCompletedExceptionally(),
+            new IsEqual<>(true)
+        );
+    }
+
+    @Test
+    void shouldWriteAllPackagesAtOnce() {
+        final List<List<Package>> writes = new CopyOnWriteArrayList<>();
+        new GroupCommit(
+            (key, packs) -> {
+                writes.add(packs);
+                return CompletableFuture.completedFuture(null);
+            },
+            Duration.ZERO,
+            1
+        ).addAll(
+            GroupCommitTest.KEY,
+            IntStream.range(0, 3).mapToObj(GroupCommitTest::pack).collect(Collectors.toList())
+        ).join();
+        MatcherAssert.assertThat(
+            "All packages should be written with single write despite batch size",
+            writes.stream().map(List::size).collect(Collectors.toList()),
+            Matchers.contains(3)
+        );
+    }
+
+    private static Package pack(final int idx) {
+        return new JsonPackage(
+            Json.createObjectBuilder()
+                .add("name", "vendor/package")
+                .add("version", String.format("1.0.%d", idx))
+                .build()
+        );
+    }
+}
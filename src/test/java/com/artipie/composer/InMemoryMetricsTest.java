@@ -0,0 +1,78 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2020 artipie.com
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included
+ * in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NON-INFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package com.artipie.composer;
+
+import javax.json.Json;
+import org.hamcrest.MatcherAssert;
+import org.hamcrest.core.IsEqual;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Tests for {@link InMemoryMetrics}.
+ *
+ * @since 0.4
+ */
+class InMemoryMetricsTest {
+
+    @Test
+    void shouldRecordTimers() {
+        final InMemoryMetrics metrics = new InMemoryMetrics();
+        metrics.timer("timer", 3);
+        metrics.timer("timer", 5);
+        MatcherAssert.assertThat(
+            metrics.json().getJsonObject("timers").getJsonObject("timer"),
+            new IsEqual<>(
+                Json.createObjectBuilder()
+                    .add("count", 2)
+                    .add("total", 8)
+                    .add("max", 5)
+                    .build()
+            )
+        );
+    }
+
+    @Test
+    void shouldCountAndKeepLastGaugeValue() {
+        final InMemoryMetrics metrics = new InMemoryMetrics();
+        metrics.counter("counter", 1);
+        metrics.counter("counter", 2);
+        metrics.gauge("gauge", 10);
+        metrics.gauge("gauge", 7);
+        MatcherAssert.assertThat(
+            metrics.json().toString(),
+            new IsEqual<>(
+                "{\"timers\":{},\"counters\":{\"counter\":3},\"gauges\":{\"gauge\":7}}"
+            )
+        );
+    }
+
+    @Test
+    void shouldReturnZeroForUnknownMetrics() {
+        final InMemoryMetrics metrics = new InMemoryMetrics();
+        MatcherAssert.assertThat(
+            metrics.records("timer") + metrics.count("counter") + metrics.value("gauge"),
+            new IsEqual<>(0L)
+        );
+    }
+}
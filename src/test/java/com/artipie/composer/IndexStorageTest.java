@@ -0,0 +1,179 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2020 artipie.com
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included
+ * in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NON-INFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package com.artipie.composer;
+
+import com.artipie.asto.Content;
+import com.artipie.asto.Key;
+import com.artipie.asto.Storage;
+import com.artipie.asto.memory.InMemoryStorage;
+import java.nio.charset.StandardCharsets;
+import java.util.Collection;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionStage;
+import java.util.function.Function;
+import org.hamcrest.MatcherAssert;
+import org.hamcrest.core.IsEqual;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Tests for {@link IndexStorage}.
+ *
+ * @since 0.4
+ */
+class IndexStorageTest {
+
+    @Test
+    void shouldSaveValidatorOfContent() {
+        final Key key = new Key.From("vendor/package.json");
+        final byte[] content = "content".getBytes(StandardCharsets.UTF_8);
+        final IndexStorage index = new IndexStorage(new InMemoryStorage());
+        index.save(key, content).join();
+        MatcherAssert.assertThat(
+            index.etag(key).toCompletableFuture().join().get().value(),
+            new IsEqual<>(new Etag(content).value())
+        );
+    }
+
+    @Test
+    void shouldNotKeepStaleValidatorWhenSaveFails() {
+        final Key key = new Key.From("vendor/package.json");
+        final Storage storage = new InMemoryStorage();
+        new IndexStorage(storage).save(key, "old".getBytes(StandardCharsets.UTF_8)).join();
+        final IndexStorage index = new IndexStorage(new FailingStorage(storage, ".gz"));
+        MatcherAssert.assertThat(
+            "Saving should fail",
+            index.save(key, "new".getBytes(StandardCharsets.UTF_8))
+                .handle((nothing, err) -> err != null).join(),
+            new IsEqual<>(true)
+        );
+        MatcherAssert.assertThat(
+            "Validator of old content should be removed",
+            index.etag(key).toCompletableFuture().join().isPresent(),
+            new IsEqual<>(false)
+        );
+        MatcherAssert.assertThat(
+            "Compressed old content should be removed",
+            index.gzip(key).toCompletableFuture().join().isPresent(),
+            new IsEqual<>(false)
+        );
+    }
+
+    @Test
+    void shouldRewriteFileWithoutExistenceChecks() {
+        final Key key = new Key.From("vendor/package.json");
+        final Storage storage = new InMemoryStorage();
+        new IndexStorage(storage).save(key, "old".getBytes(StandardCharsets.UTF_8)).join();
+        final InMemoryMetrics metrics = new InMemoryMetrics();
+        new IndexStorage(new MeteredStorage(storage, metrics))
+            .save(key, "new".getBytes(StandardCharsets.UTF_8)).join();
+        MatcherAssert.assertThat(
+            "Existence should not be checked",
+            metrics.count("composer.storage.exists"),
+            new IsEqual<>(0L)
+        );
+        MatcherAssert.assertThat(
+            "Previous compressed variant and validator should be deleted",
+            metrics.count("composer.storage.delete"),
+            new IsEqual<>(2L)
+        );
+    }
+
+    /**
+     * Storage which fails to save values by keys with suffix.
+     *
+     * @since 0.4
+     */
+    private static final class FailingStorage implements Storage {
+
+        /**
+         * Origin storage.
+         */
+        private final Storage origin;
+
+        /**
+         * Suffix of keys failed to save.
+         */
+        private final String suffix;
+
+        /**
+         * Ctor.
+         *
+         * @param origin Origin storage.
+         * @param suffix Suffix of keys failed to save.
+         */
+        FailingStorage(final Storage origin, final String suffix) {
+            this.origin = origin;
+            this.suffix = suffix;
+        }
+
+        @Override
+        public CompletableFuture<Boolean> exists(final Key key) {
+            return this.origin.exists(key);
+        }
+
+        @Override
+        public CompletableFuture<Collection<Key>> list(final Key prefix) {
+            return this.origin.list(prefix);
+        }
+
+        @Override
+        public CompletableFuture<Void> save(final Key key, final Content content) {
+            final CompletableFuture<Void> res;
+            if (key.string().endsWith(this.suffix)) {
+                res = new CompletableFuture<>();
+                res.completeExceptionally(new IllegalStateException("Save failed"));
+            } else {
+                res = this.origin.save(key, content);
+            }
+            return res;
+        }
+
+        @Override
+        public CompletableFuture<Void> move(final Key source, final Key destination) {
+            return this.origin.move(source, destination);
+        }
+
+        @Override
+        public CompletableFuture<Long> size(final Key key) {
+            return this.origin.size(key);
+        }
+
+        @Override
+        public CompletableFuture<Content> value(final Key key) {
+            return this.origin.value(key);
+        }
+
+        @Override
+        public CompletableFuture<Void> delete(final Key key) {
+            return this.origin.delete(key);
+        }
+
+        @Override
+        public <T> CompletionStage<T> exclusively(
+            final Key key, final Function<Storage, CompletionStage<T>> operation
+        ) {
+            return this.origin.exclusively(key, operation);
+        }
+    }
+}
@@ -27,6 +27,7 @@ package com.artipie.composer;
 import com.google.common.io.ByteSource;
 import com.google.common.io.ByteStreams;
 import java.io.IOException;
+import javax.json.Json;
 import org.cactoos.io.ResourceOf;
 import org.hamcrest.MatcherAssert;
 import org.hamcrest.Matchers;
@@ -66,4 +67,26 @@ class JsonPackageTest {
             Matchers.is("1.2.0")
         );
     }
+
+    @Test
+    void shouldParseContentOnce() {
+        MatcherAssert.assertThat(
+            "Parsed JSON should be shared between calls",
+            this.pack.json(),
+            Matchers.sameInstance(this.pack.json())
+        );
+    }
+
+    @Test
+    void shouldExtractNameFromJsonObject() {
+        MatcherAssert.assertThat(
+            new JsonPackage(
+                Json.createObjectBuilder()
+                    .add("name", "foo/bar")
+                    .add("version", "0.1")
+                    .build()
+            ).name().string(),
+            Matchers.is("foo/bar")
+        );
+    }
 }
@@ -32,6 +32,7 @@ import com.google.common.io.ByteSource;
 import com.google.common.io.ByteStreams;
 import java.io.ByteArrayInputStream;
 import java.io.IOException;
+import java.nio.charset.StandardCharsets;
 import java.util.Arrays;
 import java.util.HashSet;
 import javax.json.Json;
@@ -117,6 +118,84 @@ class JsonPackagesTest {
         );
     }
 
+    @Test
+    void shouldAddPackageWhenOtherPackageExists() throws Exception {
+        final JsonObject json = this.addPackageTo(
+            "{\"packages\":{\"vendor/other\":{\"1.0\":{}}}}"
+        );
+        MatcherAssert.assertThat(
+            json.getJsonObject("packages").keySet(),
+            new IsEqual<>(new HashSet<>(Arrays.asList("vendor/other", "vendor/package")))
+        );
+    }
+
+    @Test
+    void shouldAddSeveralPackagesAtOnce() throws Exception {
+        final Key key = this.pack.name().key();
+        new JsonPackages().addAll(
+            Arrays.asList(
+                this.pack,
+                new JsonPackage(
+                    Json.createObjectBuilder()
+                        .add("name", "vendor/package")
+                        .add("version", "2.0")
+                        .build()
+                )
+            )
+        ).save(this.storage, key).get();
+        MatcherAssert.assertThat(
+            this.versions(this.json(key)).keySet(),
+            new IsEqual<>(new HashSet<>(Arrays.asList(this.pack.version(), "2.0")))
+        );
+    }
+
+    @Test
+    void shouldWriteVersionsInOrder() throws Exception {
+        final JsonObject json = this.addPackageTo(
+            "{\"packages\":{\"vendor/package\":{\"2.0\":{},\"1.2.0-beta\":{}}}}"
+        );
+        MatcherAssert.assertThat(
+            this.versions(json).keySet(),
+            Matchers.contains("1.2.0-beta", this.pack.version(), "2.0")
+        );
+    }
+
+    @Test
+    void shouldRewriteOnlyUpdatedPackage() throws Exception {
+        final Key key = this.pack.name().key();
+        new JsonPackages(
+            ByteSource.wrap(
+                String.join(
+                    "",
+                    "{\"minimum-stability\":\"dev\",\"packages\":{",
+                    "\"a/b\":{\"1.0\":{\"n\":[1,2.50,true,null],\"s\":\"x\\\"y\"}},",
+                    "\"vendor/package\":{\"1.1.0\":{},\"1.2.0\":{\"old\":1}},",
+                    "\"c/d\":null},\"metadata-url\":\"/old\"}"
+                ).getBytes(StandardCharsets.UTF_8)
+            ),
+            Json.createObjectBuilder()
+                .add("metadata-url", "/p2/%package%.json")
+                .add("extra", "e")
+                .build()
+        ).add(this.pack).save(this.storage, key).get();
+        MatcherAssert.assertThat(
+            new String(new BlockingStorage(this.storage).value(key), StandardCharsets.UTF_8),
+            new IsEqual<>(
+                String.join(
+                    "",
+                    "{\"minimum-stability\":\"dev\",\"packages\":{",
+                    "\"a/b\":{\"1.0\":{\"n\":[1,2.50,true,null],\"s\":\"x\\\"y\"}},",
+                    "\"vendor/package\":{\"1.1.0\":{},\"1.2.0\":",
+                    "{\"name\":\"vendor/package\",\"version\":\"1.2.0\",\"dist\":",
+                    "{\"url\":\"https://www.example.com/files/content.zip\",",
+                    "\"type\":\"zip\"}}},",
+                    "\"c/d\":null},\"metadata-url\":\"/p2/%package%.json\",",
+                    "\"extra\":\"e\"}"
+                )
+            )
+        );
+    }
+
     private JsonObject addPackageTo(final String original) throws Exception {
         final Key key = this.pack.name().key();
         new JsonPackages(ByteSource.wrap(original.getBytes()))
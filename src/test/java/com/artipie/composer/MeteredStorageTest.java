@@ -0,0 +1,73 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2020 artipie.com
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included
+ * in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NON-INFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package com.artipie.composer;
+
+import com.artipie.asto.Content;
+import com.artipie.asto.Key;
+import com.artipie.asto.Storage;
+import com.artipie.asto.memory.InMemoryStorage;
+import org.hamcrest.MatcherAssert;
+import org.hamcrest.core.IsEqual;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Tests for {@link MeteredStorage}.
+ *
+ * @since 0.4
+ */
+class MeteredStorageTest {
+
+    @Test
+    void shouldCountCallsByOperation() {
+        final InMemoryMetrics metrics = new InMemoryMetrics();
+        final Storage storage = new MeteredStorage(new InMemoryStorage(), metrics);
+        final Key key = new Key.From("key");
+        storage.save(key, new Content.From("value".getBytes())).join();
+        storage.value(key).join();
+        storage.value(key).join();
+        MatcherAssert.assertThat(
+            "Save should be counted once",
+            metrics.count("composer.storage.save"),
+            new IsEqual<>(1L)
+        );
+        MatcherAssert.assertThat(
+            "Value should be counted twice",
+            metrics.count("composer.storage.value"),
+            new IsEqual<>(2L)
+        );
+    }
+
+    @Test
+    void shouldCountCallsInsideExclusiveOperation() {
+        final InMemoryMetrics metrics = new InMemoryMetrics();
+        final Key key = new Key.From("key");
+        new MeteredStorage(new InMemoryStorage(), metrics).exclusively(
+            key, storage -> storage.exists(key)
+        ).toCompletableFuture().join();
+        MatcherAssert.assertThat(
+            metrics.count("composer.storage.exists"),
+            new IsEqual<>(1L)
+        );
+    }
+}
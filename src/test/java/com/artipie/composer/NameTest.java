@@ -42,4 +42,20 @@ class NameTest {
             Matchers.is("vendor/package.json")
         );
     }
+
+    @Test
+    void shouldGenerateP2Key() {
+        MatcherAssert.assertThat(
+            new Name("vendor/package").p2Key().string(),
+            Matchers.is("p2/vendor/package.json")
+        );
+    }
+
+    @Test
+    void shouldGenerateP2DevKey() {
+        MatcherAssert.assertThat(
+            new Name("vendor/package").p2DevKey().string(),
+            Matchers.is("p2/vendor/package~dev.json")
+        );
+    }
 }
@@ -0,0 +1,249 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2020 artipie.com
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included
+ * in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NON-INFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package com.artipie.composer;
+
+import com.artipie.asto.Storage;
+import com.artipie.asto.blocking.BlockingStorage;
+import com.artipie.asto.memory.InMemoryStorage;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import javax.json.Json;
+import javax.json.JsonReader;
+import org.hamcrest.MatcherAssert;
+import org.hamcrest.core.IsEqual;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Tests for {@link PackageIndex}.
+ *
+ * @since 0.4
+ */
+class PackageIndexTest {
+
+    @Test
+    void shouldRenderPackageWithReplacedVersion() throws IOException {
+        final PackageIndex index = new PackageIndex();
+        index.addAll(
+            Arrays.asList(
+                PackageIndexTest.pack("vendor/a", "1.0", "first"),
+                PackageIndexTest.pack("vendor/a", "2.0", "second"),
+                PackageIndexTest.pack("vendor/b", "1.0", "other"),
+                PackageIndexTest.pack("vendor/a", "1.0", "replaced")
+            )
+        );
+        MatcherAssert.assertThat(
+            index.render(new Name("vendor/a")).asCharSource(StandardCharsets.UTF_8).read(),
+            new IsEqual<>(
+                String.join(
+                    "",
+                    "{\"packages\":{\"vendor/a\":{",
+                    "\"1.0\":{\"name\":\"vendor/a\",\"version\":\"1.0\",",
+                    "\"description\":\"replaced\"},",
+                    "\"2.0\":{\"name\":\"vendor/a\",\"version\":\"2.0\",",
+                    "\"description\":\"second\"}",
+                    "}}}"
+                )
+            )
+        );
+    }
+
+    @Test
+    void shouldRenderAllPackages() throws IOException {
+        final PackageIndex index = new PackageIndex();
+        index.addAll(
+            Arrays.asList(
+                PackageIndexTest.pack("vendor/b", "1.0", "b"),
+                PackageIndexTest.pack("vendor/a", "1.0", "a")
+            )
+        );
+        MatcherAssert.assertThat(
+            index.render().asCharSource(StandardCharsets.UTF_8).read(),
+            new IsEqual<>(
+                String.join(
+                    "",
+                    "{\"packages\":{",
+                    "\"vendor/b\":{\"1.0\":{\"name\":\"vendor/b\",\"version\":\"1.0\",",
+                    "\"description\":\"b\"}},",
+                    "\"vendor/a\":{\"1.0\":{\"name\":\"vendor/a\",\"version\":\"1.0\",",
+                    "\"description\":\"a\"}}",
+                    "}}"
+                )
+            )
+        );
+    }
+
+    @Test
+    void shouldRollbackAddedVersions() throws IOException {
+        final PackageIndex index = new PackageIndex();
+        index.addAll(Arrays.asList(PackageIndexTest.pack("vendor/a", "1.0", "kept")));
+        final String before = index.render().asCharSource(StandardCharsets.UTF_8).read();
+        index.addAll(
+            Arrays.asList(
+                PackageIndexTest.pack("vendor/a", "1.0", "replaced"),
+                PackageIndexTest.pack("vendor/a", "2.0", "added"),
+                PackageIndexTest.pack("vendor/b", "1.0", "added")
+            )
+        ).run();
+        MatcherAssert.assertThat(
+            index.render().asCharSource(StandardCharsets.UTF_8).read(),
+            new IsEqual<>(before)
+        );
+    }
+
+    @Test
+    void shouldNotChangeIndexWhenPackageIsInvalid() throws IOException {
+        final PackageIndex index = new PackageIndex();
+        index.addAll(Arrays.asList(PackageIndexTest.pack("vendor/a", "1.0", "kept")));
+        final String before = index.render().asCharSource(StandardCharsets.UTF_8).read();
+        MatcherAssert.assertThat(
+            "Invalid package should be rejected",
+            CompletableFuture.runAsync(
+                () -> index.addAll(
+                    Arrays.asList(
+                        PackageIndexTest.pack("vendor/a", "2.0", "valid"),
+                        new JsonPackage(Json.createObjectBuilder().add("name", "c/d").build())
+                    )
+                )
+            ).handle((nothing, err) -> err != null).join(),
+            new IsEqual<>(true)
+        );
+        MatcherAssert.assertThat(
+            "Index should not be changed",
+            index.render().asCharSource(StandardCharsets.UTF_8).read(),
+            new IsEqual<>(before)
+        );
+    }
+
+    @Test
+    void shouldRestoreSnapshotTakenWithSameRoot() throws IOException {
+        final PackageIndex index = new PackageIndex();
+        index.addAll(
+            Arrays.asList(
+                PackageIndexTest.pack("vendor/a", "1.0", "a"),
+                PackageIndexTest.pack("vendor/a", "2.0", "b")
+            )
+        );
+        final String tag = "\"abc\"";
+        MatcherAssert.assertThat(
+            PackageIndex.restore(index.snapshot(tag), tag).get()
+                .render(new Name("vendor/a")).read(),
+            new IsEqual<>(index.render(new Name("vendor/a")).read())
+        );
+    }
+
+    @Test
+    void shouldNotRestoreSnapshotTakenWithOtherRoot() {
+        final PackageIndex index = new PackageIndex();
+        index.addAll(Arrays.asList(PackageIndexTest.pack("vendor/a", "1.0", "a")));
+        MatcherAssert.assertThat(
+            PackageIndex.restore(index.snapshot("\"old\""), "\"new\"").isPresent(),
+            new IsEqual<>(false)
+        );
+    }
+
+    @Test
+    void shouldLoadPackagesFromStorageInListedOrder() throws Exception {
+        final Storage storage = new InMemoryStorage();
+        final List<String> names = new ArrayList<>(0);
+        for (int idx = 0; idx < 40; idx += 1) {
+            final Name name = new Name(String.format("vendor/package%02d", idx));
+            names.add(name.string());
+            new BlockingStorage(storage).save(
+                name.key(),
+                Json.createObjectBuilder().add(
+                    "packages",
+                    Json.createObjectBuilder().add(
+                        name.string(),
+                        Json.createObjectBuilder().add(
+                            "1.0", PackageIndexTest.pack(name.string(), "1.0", "d").json()
+                        )
+                    )
+                ).build().toString().getBytes(StandardCharsets.UTF_8)
+            );
+        }
+        try (JsonReader reader = Json.createReader(
+            PackageIndex.load(storage).toCompletableFuture().join().render().openStream()
+        )) {
+            MatcherAssert.assertThat(
+                new ArrayList<>(reader.readObject().getJsonObject("packages").keySet()),
+                new IsEqual<>(names)
+            );
+        }
+    }
+
+    @Test
+    void shouldLoadIndexFromSnapshotAndDeltas() throws IOException {
+        final Storage storage = new InMemoryStorage();
+        final PackageIndex index = new PackageIndex();
+        for (int idx = 0; idx < 3; idx += 1) {
+            PackageIndexTest.update(
+                storage, index,
+                PackageIndexTest.pack(String.format("vendor/package%d", idx), "1.0", "d")
+            );
+        }
+        MatcherAssert.assertThat(
+            PackageIndex.load(storage).toCompletableFuture().join().render().read(),
+            new IsEqual<>(index.render().read())
+        );
+    }
+
+    @Test
+    void shouldNotRewriteSnapshotOnEveryUpdate() throws Exception {
+        final Storage storage = new InMemoryStorage();
+        final PackageIndex index = new PackageIndex();
+        PackageIndexTest.update(storage, index, PackageIndexTest.pack("vendor/a", "1.0", "a"));
+        final byte[] snapshot = new BlockingStorage(storage).value(PackageIndex.SNAPSHOT);
+        PackageIndexTest.update(storage, index, PackageIndexTest.pack("vendor/b", "1.0", "b"));
+        MatcherAssert.assertThat(
+            new BlockingStorage(storage).value(PackageIndex.SNAPSHOT),
+            new IsEqual<>(snapshot)
+        );
+    }
+
+    private static void update(
+        final Storage storage, final PackageIndex index, final Package pack
+    ) {
+        final List<Package> packs = Collections.singletonList(pack);
+        index.addAll(packs);
+        final byte[] root = String.format("{\"added\":\"%s\"}", pack.name().string())
+            .getBytes(StandardCharsets.UTF_8);
+        new IndexStorage(storage).save(AstoRepository.ALL_PACKAGES, root).join();
+        index.persist(storage, new Etag(root).value(), packs).toCompletableFuture().join();
+    }
+
+    private static Package pack(final String name, final String version, final String desc) {
+        return new JsonPackage(
+            Json.createObjectBuilder()
+                .add("name", name)
+                .add("version", version)
+                .add("description", desc)
+                .build()
+        );
+    }
+}
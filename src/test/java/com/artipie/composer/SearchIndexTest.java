@@ -0,0 +1,90 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2020 artipie.com
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included
+ * in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NON-INFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package com.artipie.composer;
+
+import javax.json.Json;
+import javax.json.JsonObject;
+import org.hamcrest.MatcherAssert;
+import org.hamcrest.core.IsEqual;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Tests for {@link SearchIndex}.
+ *
+ * @since 0.4
+ */
+class SearchIndexTest {
+
+    @Test
+    void shouldFindPackagesByWordPrefixes() {
+        final SearchIndex index = new SearchIndex();
+        index.add("acme/http-client", SearchIndexTest.json("Simple HTTP client", "library"));
+        index.add("acme/logger", SearchIndexTest.json("Logging for http clients", "library"));
+        index.add("other/cache", SearchIndexTest.json("Cache", "library"));
+        MatcherAssert.assertThat(
+            index.search("HTTP cli", "", 0, 15).toString(),
+            new IsEqual<>(
+                String.join(
+                    "",
+                    "{\"results\":[",
+                    "{\"name\":\"acme/http-client\",\"description\":\"Simple HTTP client\"},",
+                    "{\"name\":\"acme/logger\",\"description\":\"Logging for http clients\"}",
+                    "],\"total\":2}"
+                )
+            )
+        );
+    }
+
+    @Test
+    void shouldFilterByTypeAndLimitResults() {
+        final SearchIndex index = new SearchIndex();
+        index.add("acme/a", SearchIndexTest.json("Plugin a", "composer-plugin"));
+        index.add("acme/b", SearchIndexTest.json("Plugin b", "composer-plugin"));
+        index.add("acme/c", SearchIndexTest.json("Plugin c", "library"));
+        MatcherAssert.assertThat(
+            index.search("acme", "composer-plugin", 1, 1).toString(),
+            new IsEqual<>(
+                "{\"results\":[{\"name\":\"acme/b\",\"description\":\"Plugin b\"}],\"total\":2}"
+            )
+        );
+    }
+
+    @Test
+    void shouldReplaceWordsOfPreviousVersion() {
+        final SearchIndex index = new SearchIndex();
+        index.add("acme/tool", SearchIndexTest.json("Old parser", "library"));
+        index.add("acme/tool", SearchIndexTest.json("New renderer", "library"));
+        MatcherAssert.assertThat(
+            index.search("parser", "", 0, 15).getInt("total"),
+            new IsEqual<>(0)
+        );
+    }
+
+    private static JsonObject json(final String description, final String type) {
+        return Json.createObjectBuilder()
+            .add("description", description)
+            .add("type", type)
+            .build();
+    }
+}
@@ -0,0 +1,118 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2020 artipie.com
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included
+ * in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NON-INFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package com.artipie.composer;
+
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+import org.hamcrest.MatcherAssert;
+import org.hamcrest.Matchers;
+import org.hamcrest.core.IsEqual;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Tests for {@link SingleFlight}.
+ *
+ * @since 0.4
+ */
+class SingleFlightTest {
+
+    @Test
+    void shouldShareLoadInFlight() {
+        final SingleFlight<String, String> flight = new SingleFlight<>();
+        final AtomicInteger loads = new AtomicInteger();
+        final CompletableFuture<String> load = new CompletableFuture<>();
+        final List<CompletionStage<String>> results = IntStream.range(0, 10)
+            .mapToObj(
+                idx -> flight.apply(
+                    "key",
+                    () -> {
+                        loads.incrementAndGet();
+                        return load;
+                    }
+                )
+            ).collect(Collectors.toList());
+        load.complete("value");
+        MatcherAssert.assertThat(
+            "All callers should get loaded value",
+            results.stream().map(res -> res.toCompletableFuture().join())
+                .collect(Collectors.toList()),
+            Matchers.everyItem(new IsEqual<>("value"))
+        );
+        MatcherAssert.assertThat(
+            "Value should be loaded once",
+            loads.get(),
+            new IsEqual<>(1)
+        );
+        MatcherAssert.assertThat(
+            "Other calls should be counted as coalesced",
+            flight.coalesced(),
+            new IsEqual<>(9L)
+        );
+    }
+
+    @Test
+    void shouldLoadAgainAfterCompletion() {
+        final SingleFlight<String, Integer> flight = new SingleFlight<>();
+        final AtomicInteger loads = new AtomicInteger();
+        flight.apply(
+            "key", () -> CompletableFuture.completedFuture(loads.incrementAndGet())
+        ).toCompletableFuture().join();
+        MatcherAssert.assertThat(
+            flight.apply(
+                "key", () -> CompletableFuture.completedFuture(loads.incrementAndGet())
+            ).toCompletableFuture().join(),
+            new IsEqual<>(2)
+        );
+    }
+
+    @Test
+    void shouldNotShareLoadsOfDifferentKeys() {
+        final SingleFlight<String, String> flight = new SingleFlight<>();
+        final CompletableFuture<String> first = new CompletableFuture<>();
+        flight.apply("first", () -> first);
+        MatcherAssert.assertThat(
+            flight.apply("second", () -> CompletableFuture.completedFuture("second"))
+                .toCompletableFuture().join(),
+            new IsEqual<>("second")
+        );
+    }
+
+    @Test
+    void shouldReportFailureToAllCallers() {
+        final SingleFlight<String, String> flight = new SingleFlight<>();
+        final CompletableFuture<String> load = new CompletableFuture<>();
+        final CompletionStage<String> first = flight.apply("key", () -> load);
+        final CompletionStage<String> second = flight.apply("key", () -> load);
+        load.completeExceptionally(new IllegalStateException("failed"));
+        MatcherAssert.assertThat(
+            first.toCompletableFuture().isCompletedExceptionally()
+                && second.toCompletableFuture().isCompletedExceptionally(),
+            new IsEqual<>(true)
+        );
+    }
+}
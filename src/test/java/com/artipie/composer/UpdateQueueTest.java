@@ -0,0 +1,93 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2020 artipie.com
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included
+ * in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NON-INFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package com.artipie.composer;
+
+import com.artipie.asto.Key;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+import org.hamcrest.MatcherAssert;
+import org.hamcrest.core.IsEqual;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Tests for {@link UpdateQueue}.
+ *
+ * @since 0.4
+ */
+class UpdateQueueTest {
+
+    @Test
+    void shouldPerformUpdatesOfSameKeyInOrder() {
+        final UpdateQueue queue = new UpdateQueue();
+        final Key key = new Key.From("one");
+        final List<Integer> done = new CopyOnWriteArrayList<>();
+        final int count = 1000;
+        CompletableFuture.allOf(
+            IntStream.range(0, count).mapToObj(
+                idx -> queue.submit(
+                    key,
+                    () -> CompletableFuture.runAsync(() -> done.add(idx))
+                )
+            ).toArray(CompletableFuture[]::new)
+        ).join();
+        MatcherAssert.assertThat(
+            done,
+            new IsEqual<>(IntStream.range(0, count).boxed().collect(Collectors.toList()))
+        );
+    }
+
+    @Test
+    void shouldNotWaitForUpdatesOfOtherKey() {
+        final UpdateQueue queue = new UpdateQueue();
+        final CompletableFuture<Void> blocker = new CompletableFuture<>();
+        queue.submit(new Key.From("first"), () -> blocker);
+        MatcherAssert.assertThat(
+            queue.submit(
+                new Key.From("second"),
+                () -> CompletableFuture.completedFuture("done")
+            ).join(),
+            new IsEqual<>("done")
+        );
+        blocker.complete(null);
+    }
+
+    @Test
+    void shouldContinueAfterFailedUpdate() {
+        final UpdateQueue queue = new UpdateQueue();
+        final Key key = new Key.From("failing");
+        queue.submit(
+            key,
+            () -> {
+                throw new IllegalStateException("Update failed");
+            }
+        );
+        MatcherAssert.assertThat(
+            queue.submit(key, () -> CompletableFuture.completedFuture(1)).join(),
+            new IsEqual<>(1)
+        );
+    }
+}
@@ -0,0 +1,102 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2020 artipie.com
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included
+ * in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NON-INFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package com.artipie.composer;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.stream.Collectors;
+import org.hamcrest.MatcherAssert;
+import org.hamcrest.Matchers;
+import org.hamcrest.core.IsEqual;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.CsvSource;
+
+/**
+ * Tests for {@link Version}.
+ *
+ * @since 0.4
+ */
+class VersionTest {
+
+    @ParameterizedTest
+    @CsvSource({
+        "1.0.0,1.0.0.0",
+        "v1.2,1.2.0.0",
+        "1.2.3.4,1.2.3.4",
+        "1.0.0-b2,1.0.0.0-beta2",
+        "1.0.0RC1dev,1.0.0.0-RC1-dev",
+        "1.0.0-pl3,1.0.0.0-patch3",
+        "1.0.0-stable,1.0.0.0",
+        "1.0.0+build,1.0.0.0",
+        "1.0.0@beta,1.0.0.0",
+        "1.0-dev,1.0.0.0-dev",
+        "1.x-dev,1.9999999.9999999.9999999-dev",
+        "2.1.*-dev,2.1.9999999.9999999-dev",
+        "20100102-203040,20100102.203040",
+        "master,dev-master",
+        "dev-feature/a,dev-feature/a"
+    })
+    void shouldNormalize(final String version, final String normalized) {
+        MatcherAssert.assertThat(
+            new Version(version).normalized(),
+            new IsEqual<>(normalized)
+        );
+    }
+
+    @ParameterizedTest
+    @CsvSource({
+        "1.0.0,stable",
+        "1.0.0-patch1,stable",
+        "1.0.0-RC2,RC",
+        "1.0-b1,beta",
+        "1.0.0-alpha,alpha",
+        "1.0.0-beta1-dev,dev",
+        "1.x-dev,dev",
+        "dev-master,dev"
+    })
+    void shouldDetectStability(final String version, final String stability) {
+        MatcherAssert.assertThat(
+            new Version(version).stability(),
+            new IsEqual<>(stability)
+        );
+    }
+
+    @Test
+    void shouldOrderVersions() {
+        final List<String> versions = Arrays.asList(
+            "2.0.0", "1.0.0-patch1", "1.0.0", "1.0.0-RC1", "1.0.0-beta10", "1.0.0-beta2",
+            "1.0.0-beta2-dev", "1.0.0-alpha", "1.0.0-dev", "1.x-dev", "dev-master", "v1.0.0"
+        );
+        MatcherAssert.assertThat(
+            versions.stream().map(Version::new).sorted()
+                .map(Version::string).collect(Collectors.toList()),
+            Matchers.contains(
+                "dev-master", "1.0.0-dev", "1.0.0-alpha", "1.0.0-beta2-dev", "1.0.0-beta2",
+                "1.0.0-beta10", "1.0.0-RC1", "1.0.0", "v1.0.0", "1.0.0-patch1", "1.x-dev",
+                "2.0.0"
+            )
+        );
+    }
+}
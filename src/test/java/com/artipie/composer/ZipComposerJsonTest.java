@@ -0,0 +1,107 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2020 artipie.com
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included
+ * in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NON-INFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package com.artipie.composer;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+import org.hamcrest.MatcherAssert;
+import org.hamcrest.core.IsEqual;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.CsvSource;
+
+/**
+ * Tests for {@link ZipComposerJson}.
+ *
+ * @since 0.4
+ */
+class ZipComposerJsonTest {
+
+    @ParameterizedTest
+    @CsvSource({
+        "composer.json,1",
+        "composer.json,4096",
+        "package/composer.json,1",
+        "package/composer.json,4096"
+    })
+    void shouldFindComposerJson(final String name, final int chunk) throws Exception {
+        final String json = "{\"name\":\"vendor/package\"}";
+        MatcherAssert.assertThat(
+            ZipComposerJsonTest.scan(ZipComposerJsonTest.zip(name, json), chunk),
+            new IsEqual<>(json)
+        );
+    }
+
+    @ParameterizedTest
+    @CsvSource({
+        "composer.lock",
+        "package/src/composer.json"
+    })
+    void shouldNotFindComposerJsonInOtherPlaces(final String name) throws Exception {
+        MatcherAssert.assertThat(
+            ZipComposerJsonTest.scan(ZipComposerJsonTest.zip(name, "{}"), 1024),
+            new IsEqual<>("")
+        );
+    }
+
+    /**
+     * Scans archive fed by chunks.
+     *
+     * @param zip Archive.
+     * @param chunk Chunk size.
+     * @return Content of 'composer.json' found, empty string if not found.
+     */
+    private static String scan(final byte[] zip, final int chunk) {
+        final ZipComposerJson scanner = new ZipComposerJson();
+        for (int pos = 0; pos < zip.length; pos += chunk) {
+            scanner.accept(ByteBuffer.wrap(zip, pos, Math.min(chunk, zip.length - pos)));
+        }
+        return scanner.content()
+            .map(bytes -> new String(bytes, StandardCharsets.UTF_8))
+            .orElse("");
+    }
+
+    /**
+     * Builds archive with source file and JSON file.
+     *
+     * @param name Name of JSON file.
+     * @param json JSON file content.
+     * @return Archive.
+     * @throws Exception If failed.
+     */
+    private static byte[] zip(final String name, final String json) throws Exception {
+        final ByteArrayOutputStream out = new ByteArrayOutputStream();
+        try (ZipOutputStream zos = new ZipOutputStream(out)) {
+            zos.putNextEntry(new ZipEntry("package/src/Package.php"));
+            zos.write("<?php class Package {}".getBytes(StandardCharsets.UTF_8));
+            zos.closeEntry();
+            zos.putNextEntry(new ZipEntry(name));
+            zos.write(json.getBytes(StandardCharsets.UTF_8));
+            zos.closeEntry();
+        }
+        return out.toByteArray();
+    }
+}
@@ -0,0 +1,314 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2020 artipie.com
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included
+ * in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NON-INFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package com.artipie.composer.http;
+
+import com.artipie.asto.Key;
+import com.artipie.asto.Storage;
+import com.artipie.asto.blocking.BlockingStorage;
+import com.artipie.asto.memory.InMemoryStorage;
+import com.artipie.http.Response;
+import com.artipie.http.Slice;
+import com.artipie.http.headers.Header;
+import com.artipie.http.hm.RsHasBody;
+import com.artipie.http.hm.RsHasHeaders;
+import com.artipie.http.hm.RsHasStatus;
+import com.artipie.http.rq.RequestLine;
+import com.artipie.http.rq.RqMethod;
+import com.artipie.http.rs.RsStatus;
+import com.artipie.http.rs.RsWithBody;
+import com.artipie.http.rs.RsWithHeaders;
+import com.artipie.http.rs.RsWithStatus;
+import io.reactivex.Flowable;
+import java.nio.ByteBuffer;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+import org.hamcrest.MatcherAssert;
+import org.hamcrest.core.AllOf;
+import org.hamcrest.core.IsEqual;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Tests for {@link ComposerProxy}.
+ *
+ * @since 0.4
+ */
+class ComposerProxyTest {
+
+    /**
+     * Storage used in tests.
+     */
+    private Storage storage;
+
+    /**
+     * Content served by upstream, empty if upstream is down.
+     */
+    private AtomicReference<String> upstream;
+
+    /**
+     * Number of requests to upstream.
+     */
+    private AtomicInteger requests;
+
+    @BeforeEach
+    void init() {
+        this.storage = new InMemoryStorage();
+        this.upstream = new AtomicReference<>("");
+        this.requests = new AtomicInteger();
+    }
+
+    @Test
+    void shouldServeCachedMetadataWhenUpstreamIsDown() {
+        final Slice proxy = new ComposerProxy(this.remote(), this.storage, Duration.ZERO);
+        this.upstream.set("{\"packages\":{}}");
+        MatcherAssert.assertThat(
+            "Metadata should be fetched from upstream",
+            this.get(proxy, "/packages.json"),
+            new RsHasStatus(RsStatus.OK)
+        );
+        this.upstream.set("");
+        MatcherAssert.assertThat(
+            "Cached metadata should be served",
+            this.get(proxy, "/packages.json"),
+            new AllOf<>(
+                Arrays.asList(
+                    new RsHasStatus(RsStatus.OK),
+                    new RsHasBody("{\"packages\":{}}".getBytes())
+                )
+            )
+        );
+    }
+
+    @Test
+    void shouldNotRequestUpstreamForFreshMetadata() {
+        final Slice proxy = new ComposerProxy(this.remote(), this.storage, Duration.ofHours(1));
+        this.upstream.set("{\"packages\":{}}");
+        MatcherAssert.assertThat(
+            "Metadata should be fetched from upstream",
+            this.get(proxy, "/p2/vendor/package.json"),
+            new RsHasStatus(RsStatus.OK)
+        );
+        MatcherAssert.assertThat(
+            "Fresh metadata should be served from cache",
+            this.get(proxy, "/p2/vendor/package.json"),
+            new RsHasStatus(RsStatus.OK)
+        );
+        MatcherAssert.assertThat(
+            "Upstream should be requested once",
+            this.requests.get(),
+            new IsEqual<>(1)
+        );
+    }
+
+    @Test
+    void shouldRevalidateExpiredMetadata() {
+        final Slice proxy = new ComposerProxy(this.remote(), this.storage, Duration.ZERO);
+        this.upstream.set("{\"packages\":{\"old\":{}}}");
+        MatcherAssert.assertThat(
+            "Metadata should be fetched from upstream",
+            this.get(proxy, "/p2/vendor/package.json"),
+            new RsHasStatus(RsStatus.OK)
+        );
+        this.upstream.set("{\"packages\":{\"new\":{}}}");
+        MatcherAssert.assertThat(
+            "Updated metadata should be served",
+            this.get(proxy, "/p2/vendor/package.json"),
+            new RsHasBody("{\"packages\":{\"new\":{}}}".getBytes())
+        );
+    }
+
+    @Test
+    void shouldFetchArchiveOnce() {
+        final Slice proxy = new ComposerProxy(this.remote(), this.storage, Duration.ZERO);
+        this.upstream.set("zip");
+        MatcherAssert.assertThat(
+            "Archive should be fetched from upstream",
+            this.get(proxy, "/dist/vendor/package/1.0.zip"),
+            new RsHasBody("zip".getBytes())
+        );
+        this.upstream.set("");
+        MatcherAssert.assertThat(
+            "Archive should be served from cache",
+            this.get(proxy, "/dist/vendor/package/1.0.zip"),
+            new RsHasBody("zip".getBytes())
+        );
+        MatcherAssert.assertThat(
+            "Upstream should be requested once",
+            this.requests.get(),
+            new IsEqual<>(1)
+        );
+    }
+
+    @Test
+    void shouldReturnNotFoundWhenUpstreamHasNoFile() {
+        MatcherAssert.assertThat(
+            this.get(
+                new ComposerProxy(
+                    (line, headers, body) -> new RsWithStatus(RsStatus.NOT_FOUND), this.storage
+                ),
+                "/p2/vendor/package.json"
+            ),
+            new RsHasStatus(RsStatus.NOT_FOUND)
+        );
+    }
+
+    @Test
+    void shouldRevalidateWithUpstreamValidators() {
+        final AtomicReference<String> condition = new AtomicReference<>("");
+        final Slice proxy = new ComposerProxy(
+            (line, headers, body) -> {
+                this.requests.incrementAndGet();
+                headers.forEach(
+                    header -> {
+                        if ("If-None-Match".equals(header.getKey())) {
+                            condition.set(header.getValue());
+                        }
+                    }
+                );
+                final Response res;
+                if (condition.get().isEmpty()) {
+                    res = new RsWithHeaders(
+                        new RsWithBody(ByteBuffer.wrap("{\"packages\":{}}".getBytes())),
+                        "ETag", "\"v1\""
+                    );
+                } else {
+                    res = new RsWithStatus(RsStatus.NOT_MODIFIED);
+                }
+                return res;
+            },
+            this.storage, Duration.ZERO
+        );
+        this.get(proxy, "/p2/vendor/package.json");
+        MatcherAssert.assertThat(
+            "Cached metadata should be served if not modified",
+            this.get(proxy, "/p2/vendor/package.json"),
+            new RsHasBody("{\"packages\":{}}".getBytes())
+        );
+        MatcherAssert.assertThat(
+            "Upstream entity tag should be sent",
+            condition.get(),
+            new IsEqual<>("\"v1\"")
+        );
+    }
+
+    @Test
+    void shouldKeepUpstreamContentTypeOfArchive() {
+        final Slice proxy = new ComposerProxy(
+            (line, headers, body) -> new RsWithHeaders(
+                new RsWithBody(ByteBuffer.wrap("zip".getBytes())),
+                "Content-Type", "application/x-zip"
+            ),
+            this.storage
+        );
+        MatcherAssert.assertThat(
+            this.get(proxy, "/dist/vendor/package/1.0.zip"),
+            new RsHasHeaders(
+                new Header("Content-Length", "3"),
+                new Header("Content-Type", "application/x-zip")
+            )
+        );
+    }
+
+    @Test
+    void shouldNotProxyPathOutsideOfRepository() {
+        this.upstream.set("{\"packages\":{}}");
+        MatcherAssert.assertThat(
+            "Path should not be found",
+            this.get(
+                new ComposerProxy(this.remote(), this.storage), "/files/p/vendor/package.json"
+            ),
+            new RsHasStatus(RsStatus.NOT_FOUND)
+        );
+        MatcherAssert.assertThat(
+            "Upstream should not be requested",
+            this.requests.get(),
+            new IsEqual<>(0)
+        );
+    }
+
+    @Test
+    void shouldFetchMetadataAgainWhenSidecarIsCorrupt() throws Exception {
+        final BlockingStorage blocking = new BlockingStorage(this.storage);
+        blocking.save(new Key.From("p2/vendor/package.json"), "{\"packages\":{}}".getBytes());
+        blocking.save(
+            new Key.From("p2/vendor/package.json.upstream"), "{\"fetched\":\"never\"}".getBytes()
+        );
+        this.upstream.set("{\"packages\":{\"new\":{}}}");
+        MatcherAssert.assertThat(
+            this.get(
+                new ComposerProxy(this.remote(), this.storage, Duration.ofHours(1)),
+                "/p2/vendor/package.json"
+            ),
+            new AllOf<>(
+                Arrays.asList(
+                    new RsHasStatus(RsStatus.OK),
+                    new RsHasBody("{\"packages\":{\"new\":{}}}".getBytes())
+                )
+            )
+        );
+    }
+
+    @Test
+    void shouldServeCachedMetadataWithCorruptSidecarWhenUpstreamIsDown() throws Exception {
+        final BlockingStorage blocking = new BlockingStorage(this.storage);
+        blocking.save(new Key.From("p2/vendor/package.json"), "{\"packages\":{}}".getBytes());
+        blocking.save(new Key.From("p2/vendor/package.json.upstream"), "corrupt".getBytes());
+        MatcherAssert.assertThat(
+            this.get(
+                new ComposerProxy(this.remote(), this.storage, Duration.ofHours(1)),
+                "/p2/vendor/package.json"
+            ),
+            new AllOf<>(
+                Arrays.asList(
+                    new RsHasStatus(RsStatus.OK),
+                    new RsHasBody("{\"packages\":{}}".getBytes())
+                )
+            )
+        );
+    }
+
+    private Response get(final Slice slice, final String path) {
+        return slice.response(
+            new RequestLine(RqMethod.GET, path).toString(),
+            Collections.emptyList(),
+            Flowable.empty()
+        );
+    }
+
+    private Slice remote() {
+        return (line, headers, body) -> {
+            this.requests.incrementAndGet();
+            final Response res;
+            if (this.upstream.get().isEmpty()) {
+                res = new RsWithStatus(RsStatus.UNAVAILABLE);
+            } else {
+                res = new RsWithBody(ByteBuffer.wrap(this.upstream.get().getBytes()));
+            }
+            return res;
+        };
+    }
+}
@@ -29,20 +29,40 @@ import com.artipie.asto.blocking.BlockingStorage;
 import com.artipie.asto.memory.InMemoryStorage;
 import com.artipie.composer.AllPackages;
 import com.artipie.composer.AstoRepository;
+import com.artipie.composer.Etag;
+import com.artipie.composer.InMemoryMetrics;
+import com.artipie.composer.IndexStorage;
+import com.artipie.composer.Name;
+import com.artipie.composer.RepoConfig;
+import com.artipie.http.Headers;
 import com.artipie.http.Response;
+import com.artipie.http.headers.Header;
 import com.artipie.http.hm.RsHasBody;
+import com.artipie.http.hm.RsHasHeaders;
 import com.artipie.http.hm.RsHasStatus;
 import com.artipie.http.rq.RequestLine;
 import com.artipie.http.rq.RqMethod;
 import com.artipie.http.rs.RsStatus;
 import com.google.common.io.ByteStreams;
 import io.reactivex.Flowable;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
 import java.nio.ByteBuffer;
+import java.time.ZoneOffset;
+import java.time.ZonedDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+import javax.json.Json;
 import org.cactoos.io.ResourceOf;
 import org.hamcrest.MatcherAssert;
 import org.hamcrest.core.AllOf;
+import org.hamcrest.core.IsEqual;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 
@@ -102,6 +122,264 @@ class PhpComposerTest {
         );
     }
 
+    @Test
+    void shouldGetP2DevContent() throws Exception {
+        final byte[] data = "p2 dev data".getBytes();
+        new BlockingStorage(this.storage).save(
+            new Key.From("p2", "vendor", "package~dev.json"),
+            data
+        );
+        final Response response = this.php.response(
+            new RequestLine(RqMethod.GET, "/p2/vendor/package~dev.json").toString(),
+            Collections.emptyList(),
+            Flowable.empty()
+        );
+        MatcherAssert.assertThat(
+            "Composer v2 package metadata of dev versions should be returned in response",
+            response,
+            new AllOf<>(
+                Arrays.asList(
+                    new RsHasStatus(RsStatus.OK),
+                    new RsHasBody(data)
+                )
+            )
+        );
+    }
+
+    @Test
+    void shouldGetP2Content() throws Exception {
+        final byte[] data = "p2 data".getBytes();
+        new BlockingStorage(this.storage).save(
+            new Key.From("p2", "vendor", "package.json"),
+            data
+        );
+        final Response response = this.php.response(
+            new RequestLine(RqMethod.GET, "/p2/vendor/package.json").toString(),
+            Collections.emptyList(),
+            Flowable.empty()
+        );
+        MatcherAssert.assertThat(
+            "Composer v2 package metadata should be returned in response",
+            response,
+            new AllOf<>(
+                Arrays.asList(
+                    new RsHasStatus(RsStatus.OK),
+                    new RsHasBody(data)
+                )
+            )
+        );
+    }
+
+    @Test
+    void shouldGetProviderFileAsImmutable() throws Exception {
+        final byte[] data = "providers".getBytes();
+        new BlockingStorage(this.storage).save(
+            new Key.From("p", "provider-01$abc.json"),
+            data
+        );
+        final Response response = this.php.response(
+            new RequestLine(RqMethod.GET, "/p/provider-01$abc.json").toString(),
+            Collections.emptyList(),
+            Flowable.empty()
+        );
+        MatcherAssert.assertThat(
+            "Provider file should be returned with immutable cache control",
+            response,
+            new AllOf<>(
+                Arrays.asList(
+                    new RsHasStatus(RsStatus.OK),
+                    new RsHasBody(data),
+                    new RsHasHeaders(
+                        new Header("Content-Length", String.valueOf(data.length)),
+                        new Header("Cache-Control", "public, max-age=31536000, immutable")
+                    )
+                )
+            )
+        );
+    }
+
+    @Test
+    void shouldGetPackageContentWithValidators() {
+        final byte[] data = "validated".getBytes();
+        final Key key = new Key.From("vendor", "package.json");
+        new IndexStorage(this.storage).save(key, data).join();
+        final Etag etag = new IndexStorage(this.storage).etag(key).toCompletableFuture()
+            .join().get();
+        final Response response = this.php.response(
+            new RequestLine(RqMethod.GET, "/p/vendor/package.json").toString(),
+            Collections.emptyList(),
+            Flowable.empty()
+        );
+        MatcherAssert.assertThat(
+            "Package metadata should be returned with validators",
+            response,
+            new AllOf<>(
+                Arrays.asList(
+                    new RsHasStatus(RsStatus.OK),
+                    new RsHasBody(data),
+                    new RsHasHeaders(
+                        new Header("Content-Length", String.valueOf(data.length)),
+                        new Header("ETag", etag.value()),
+                        new Header(
+                            "Last-Modified",
+                            DateTimeFormatter.RFC_1123_DATE_TIME.format(
+                                ZonedDateTime.ofInstant(etag.modified(), ZoneOffset.UTC)
+                            )
+                        ),
+                        new Header("Vary", "Accept-Encoding")
+                    )
+                )
+            )
+        );
+    }
+
+    @Test
+    void shouldAnswerNotModifiedWhenEtagMatches() {
+        final Key key = new Key.From("vendor", "package.json");
+        new IndexStorage(this.storage).save(key, "cached".getBytes()).join();
+        final Etag etag = new IndexStorage(this.storage).etag(key).toCompletableFuture()
+            .join().get();
+        MatcherAssert.assertThat(
+            this.php.response(
+                new RequestLine(RqMethod.GET, "/p/vendor/package.json").toString(),
+                new Headers.From("If-None-Match", etag.value()),
+                Flowable.empty()
+            ),
+            new RsHasStatus(RsStatus.NOT_MODIFIED)
+        );
+    }
+
+    @Test
+    void shouldAnswerNotModifiedWhenNotModifiedSince() {
+        new IndexStorage(this.storage).save(new AllPackages(), "all".getBytes()).join();
+        MatcherAssert.assertThat(
+            this.php.response(
+                PhpComposerTest.GET_PACKAGES,
+                new Headers.From(
+                    "If-Modified-Since",
+                    DateTimeFormatter.RFC_1123_DATE_TIME.format(
+                        ZonedDateTime.now(ZoneOffset.UTC).plusMinutes(1)
+                    )
+                ),
+                Flowable.empty()
+            ),
+            new RsHasStatus(RsStatus.NOT_MODIFIED)
+        );
+    }
+
+    @Test
+    void shouldGetContentWhenEtagDiffers() {
+        final byte[] data = "changed".getBytes();
+        new IndexStorage(this.storage).save(new AllPackages(), data).join();
+        MatcherAssert.assertThat(
+            this.php.response(
+                PhpComposerTest.GET_PACKAGES,
+                new Headers.From("If-None-Match", "\"outdated\""),
+                Flowable.empty()
+            ),
+            new AllOf<>(
+                Arrays.asList(
+                    new RsHasStatus(RsStatus.OK),
+                    new RsHasBody(data)
+                )
+            )
+        );
+    }
+
+    @Test
+    void shouldGetCompressedContentWhenGzipAccepted() throws Exception {
+        new IndexStorage(this.storage).save(new AllPackages(), "compressed".getBytes()).join();
+        final byte[] gzip = new BlockingStorage(this.storage).value(
+            new Key.From("packages.json.gz")
+        );
+        MatcherAssert.assertThat(
+            this.php.response(
+                PhpComposerTest.GET_PACKAGES,
+                new Headers.From("Accept-Encoding", "gzip, deflate"),
+                Flowable.empty()
+            ),
+            new AllOf<>(
+                Arrays.asList(
+                    new RsHasStatus(RsStatus.OK),
+                    new RsHasBody(gzip)
+                )
+            )
+        );
+    }
+
+    @Test
+    void shouldSendLengthOfCompressedContent() throws Exception {
+        new IndexStorage(this.storage).save(new AllPackages(), "sized".getBytes()).join();
+        final byte[] gzip = new BlockingStorage(this.storage).value(
+            new Key.From("packages.json.gz")
+        );
+        final List<String> lengths = new ArrayList<>(1);
+        this.php.response(
+            PhpComposerTest.GET_PACKAGES,
+            new Headers.From("Accept-Encoding", "gzip"),
+            Flowable.empty()
+        ).send(
+            (status, headers, body) -> {
+                headers.forEach(
+                    header -> {
+                        if ("Content-Length".equalsIgnoreCase(header.getKey())) {
+                            lengths.add(header.getValue());
+                        }
+                    }
+                );
+                return CompletableFuture.allOf();
+            }
+        ).toCompletableFuture().join();
+        MatcherAssert.assertThat(
+            lengths,
+            new IsEqual<>(Collections.singletonList(String.valueOf(gzip.length)))
+        );
+    }
+
+    @Test
+    void shouldSendLengthOfArchive() throws Exception {
+        final byte[] data = "archive".getBytes();
+        new BlockingStorage(this.storage).save(
+            new Key.From("dist/vendor/package/1.0.zip"), data
+        );
+        MatcherAssert.assertThat(
+            this.php.response(
+                new RequestLine(RqMethod.GET, "/dist/vendor/package/1.0.zip").toString(),
+                Collections.emptyList(),
+                Flowable.empty()
+            ),
+            new AllOf<>(
+                Arrays.asList(
+                    new RsHasStatus(RsStatus.OK),
+                    new RsHasBody(data),
+                    new RsHasHeaders(
+                        new Header("Content-Length", String.valueOf(data.length)),
+                        new Header("Content-Type", "application/zip")
+                    )
+                )
+            )
+        );
+    }
+
+    @Test
+    void shouldGetPlainContentWhenGzipNotAccepted() {
+        final byte[] data = "plain".getBytes();
+        new IndexStorage(this.storage).save(new AllPackages(), data).join();
+        MatcherAssert.assertThat(
+            this.php.response(
+                PhpComposerTest.GET_PACKAGES,
+                new Headers.From("Accept-Encoding", "gzip;q=0"),
+                Flowable.empty()
+            ),
+            new AllOf<>(
+                Arrays.asList(
+                    new RsHasStatus(RsStatus.OK),
+                    new RsHasBody(data)
+                )
+            )
+        );
+    }
+
     @Test
     void shouldFailGetPackageMetadataWhenNotExists() {
         final Response response = this.php.response(
@@ -166,4 +444,239 @@ class PhpComposerTest {
             new RsHasStatus(RsStatus.CREATED)
         );
     }
+
+    @Test
+    void shouldBuildArchiveUrlWithForwardedScheme() throws Exception {
+        final ByteArrayOutputStream zip = new ByteArrayOutputStream();
+        try (ZipOutputStream zos = new ZipOutputStream(zip)) {
+            zos.putNextEntry(new ZipEntry("composer.json"));
+            zos.write("{\"name\":\"vendor/package\",\"version\":\"1.0\"}".getBytes());
+            zos.closeEntry();
+        }
+        MatcherAssert.assertThat(
+            this.php.response(
+                new RequestLine(RqMethod.PUT, "/").toString(),
+                new Headers.From(
+                    new Header("Content-Type", "application/zip"),
+                    new Header("Host", "example.com"),
+                    new Header("X-Forwarded-Proto", "https")
+                ),
+                Flowable.just(ByteBuffer.wrap(zip.toByteArray()))
+            ),
+            new RsHasStatus(RsStatus.CREATED)
+        );
+        MatcherAssert.assertThat(
+            Json.createReader(
+                new ByteArrayInputStream(
+                    new BlockingStorage(this.storage).value(new Name("vendor/package").key())
+                )
+            ).readObject()
+                .getJsonObject("packages")
+                .getJsonObject("vendor/package")
+                .getJsonObject("1.0")
+                .getJsonObject("dist")
+                .getString("url"),
+            new IsEqual<>("https://example.com/dist/vendor/package/1.0.zip")
+        );
+    }
+
+    @Test
+    void shouldImportNewlineDelimitedPackages() {
+        MatcherAssert.assertThat(
+            this.php.response(
+                new RequestLine(RqMethod.PUT, "/import").toString(),
+                Collections.emptyList(),
+                Flowable.just(
+                    ByteBuffer.wrap(
+                        String.join(
+                            "\n",
+                            "{\"name\":\"vendor/package\",\"version\":\"1.0\"}",
+                            "",
+                            "{\"name\":\"vendor/package\",\"version\":\"2.0\"}"
+                        ).getBytes()
+                    )
+                )
+            ),
+            new RsHasStatus(RsStatus.CREATED)
+        );
+        MatcherAssert.assertThat(
+            new AstoRepository(this.storage).packages(new Name("vendor/package"))
+                .toCompletableFuture().join().isPresent(),
+            new IsEqual<>(true)
+        );
+    }
+
+    @Test
+    void shouldImportArrayOfPackages() {
+        MatcherAssert.assertThat(
+            this.php.response(
+                new RequestLine(RqMethod.PUT, "/import").toString(),
+                Collections.emptyList(),
+                Flowable.just(
+                    ByteBuffer.wrap(
+                        String.join(
+                            "",
+                            " [{\"name\":\"vendor/a\",\"version\":\"1.0\"},",
+                            "{\"name\":\"vendor/b\",\"version\":\"1.0\"}]"
+                        ).getBytes()
+                    )
+                )
+            ),
+            new RsHasStatus(RsStatus.CREATED)
+        );
+        MatcherAssert.assertThat(
+            new AstoRepository(this.storage).packages(new Name("vendor/b"))
+                .toCompletableFuture().join().isPresent(),
+            new IsEqual<>(true)
+        );
+    }
+
+    @Test
+    void shouldRejectPackagesWithoutValidNameOrVersion() throws Exception {
+        MatcherAssert.assertThat(
+            this.php.response(
+                new RequestLine(RqMethod.PUT, "/import").toString(),
+                Collections.emptyList(),
+                Flowable.just(
+                    ByteBuffer.wrap(
+                        String.join(
+                            "\n",
+                            "{\"name\":\"vendor/a\",\"version\":\"1.0\"}",
+                            "{\"name\":\"vendor/b\"}",
+                            "{\"name\":\"invalid\",\"version\":\"1.0\"}"
+                        ).getBytes()
+                    )
+                )
+            ),
+            new RsHasStatus(RsStatus.BAD_REQUEST)
+        );
+        MatcherAssert.assertThat(
+            "Nothing should be imported",
+            this.storage.list(Key.ROOT).join().isEmpty(),
+            new IsEqual<>(true)
+        );
+    }
+
+    @Test
+    void shouldRejectArrayWithNonObjectPackage() throws Exception {
+        MatcherAssert.assertThat(
+            this.php.response(
+                new RequestLine(RqMethod.PUT, "/import").toString(),
+                Collections.emptyList(),
+                Flowable.just(
+                    ByteBuffer.wrap("[{\"name\":\"vendor/a\",\"version\":\"1.0\"}, 1]".getBytes())
+                )
+            ),
+            new RsHasStatus(RsStatus.BAD_REQUEST)
+        );
+        MatcherAssert.assertThat(
+            "Nothing should be imported",
+            this.storage.list(Key.ROOT).join().isEmpty(),
+            new IsEqual<>(true)
+        );
+    }
+
+    @Test
+    void shouldReportMetrics() throws Exception {
+        final InMemoryMetrics metrics = new InMemoryMetrics();
+        final PhpComposer slice = new PhpComposer(
+            new AstoRepository(this.storage, new RepoConfig.Simple(), metrics), metrics
+        );
+        MatcherAssert.assertThat(
+            "Package should be added",
+            slice.response(
+                new RequestLine(RqMethod.PUT, "/").toString(),
+                Collections.emptyList(),
+                Flowable.just(
+                    ByteBuffer.wrap(
+                        ByteStreams.toByteArray(new ResourceOf("minimal-package.json").stream())
+                    )
+                )
+            ),
+            new RsHasStatus(RsStatus.CREATED)
+        );
+        MatcherAssert.assertThat(
+            "Metrics should be served",
+            slice.response(
+                new RequestLine(RqMethod.GET, "/_metrics").toString(),
+                Collections.emptyList(),
+                Flowable.empty()
+            ),
+            new RsHasStatus(RsStatus.OK)
+        );
+        MatcherAssert.assertThat(
+            "Add stages should be timed",
+            metrics.records("composer.add.parse") + metrics.records("composer.metadata.save"),
+            new IsEqual<>(2L)
+        );
+    }
+
+    @Test
+    void shouldFindAddedPackage() throws Exception {
+        MatcherAssert.assertThat(
+            "Package should be added",
+            this.php.response(
+                new RequestLine(RqMethod.PUT, "/").toString(),
+                Collections.emptyList(),
+                Flowable.just(
+                    ByteBuffer.wrap(
+                        ByteStreams.toByteArray(new ResourceOf("minimal-package.json").stream())
+                    )
+                )
+            ),
+            new RsHasStatus(RsStatus.CREATED)
+        );
+        MatcherAssert.assertThat(
+            "Package should be found",
+            this.php.response(
+                new RequestLine(RqMethod.GET, "/search.json?q=vendor%20pack").toString(),
+                Collections.emptyList(),
+                Flowable.empty()
+            ),
+            new AllOf<>(
+                Arrays.asList(
+                    new RsHasStatus(RsStatus.OK),
+                    new RsHasBody(
+                        String.join(
+                            "",
+                            "{\"results\":[{\"name\":\"vendor/package\",",
+                            "\"description\":\"\"}],\"total\":1}"
+                        ).getBytes()
+                    )
+                )
+            )
+        );
+    }
+
+    @Test
+    void shouldServeLastPageOfSearchWithoutOverflow() throws Exception {
+        MatcherAssert.assertThat(
+            "Package should be added",
+            this.php.response(
+                new RequestLine(RqMethod.PUT, "/").toString(),
+                Collections.emptyList(),
+                Flowable.just(
+                    ByteBuffer.wrap(
+                        ByteStreams.toByteArray(new ResourceOf("minimal-package.json").stream())
+                    )
+                )
+            ),
+            new RsHasStatus(RsStatus.CREATED)
+        );
+        MatcherAssert.assertThat(
+            "Page beyond results should be empty",
+            this.php.response(
+                new RequestLine(RqMethod.GET, "/search.json?q=vendor&page=2147483647")
+                    .toString(),
+                Collections.emptyList(),
+                Flowable.empty()
+            ),
+            new AllOf<>(
+                Arrays.asList(
+                    new RsHasStatus(RsStatus.OK),
+                    new RsHasBody("{\"results\":[],\"total\":1}".getBytes())
+                )
+            )
+        );
+    }
 }